@@ -0,0 +1,124 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.database.DatabaseManager;
+import com.example.cookingbook.database.DishDAO;
+import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.model.Dish;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Генерирует воспроизводимые наборы данных для бенчмарков и создает временные
+ * базы данных, заполненные ими.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class BenchmarkData {
+
+    static final long SEED = 20240520L;
+
+    static final String[] DISH_WORDS = {
+            "суп", "борщ", "салат", "омлет", "блины", "пирог", "котлеты", "плов", "рагу", "запеканка",
+            "каша", "сырники", "гуляш", "жаркое", "рулет", "пюре", "тефтели", "вареники", "оладьи", "щи"
+    };
+
+    static final String[] INGREDIENTS = {
+            "яйца", "молоко", "мука", "сахар", "соль", "масло сливочное", "масло растительное", "лук",
+            "морковь", "картофель", "свекла", "капуста", "говядина", "свинина", "курица", "рис", "гречка",
+            "творог", "сметана", "сыр", "чеснок", "помидоры", "перец", "укроп", "петрушка", "грибы"
+    };
+
+    private static final String[] PROCESS_SENTENCES = {
+            "Нарежьте овощи небольшими кубиками.",
+            "Разогрейте сковороду с маслом.",
+            "Обжарьте лук до золотистого цвета.",
+            "Добавьте остальные ингредиенты и перемешайте.",
+            "Посолите и поперчите по вкусу.",
+            "Готовьте на среднем огне 15 мин.",
+            "Накройте крышкой и оставьте на 10 мин.",
+            "Подавайте горячим, посыпав зеленью!",
+            "Можно ли заменить сметану йогуртом?",
+            "Взбейте яйца с молоком до однородности."
+    };
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Создает блюдо со случайными названием, ингредиентами и процессом приготовления.
+     */
+    static Dish randomDish(Random random, int number) {
+        String name = DISH_WORDS[random.nextInt(DISH_WORDS.length)] + " " + number;
+        int ingredientCount = 3 + random.nextInt(6);
+        StringBuilder ingredients = new StringBuilder();
+        for (int i = 0; i < ingredientCount; i++) {
+            if (i > 0) {
+                ingredients.append(", ");
+            }
+            ingredients.append(INGREDIENTS[random.nextInt(INGREDIENTS.length)])
+                    .append(" - ").append(1 + random.nextInt(500)).append(" г");
+        }
+        String cookingTime = (5 + random.nextInt(120)) + " мин";
+        return new Dish(name, cookingTime, ingredients.toString(), recipeText(random, 4 + random.nextInt(12)),
+                random.nextInt(10) == 0);
+    }
+
+    /**
+     * Создает текст процесса приготовления из заданного количества предложений.
+     */
+    static String recipeText(Random random, int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            if (i > 0) {
+                text.append(random.nextInt(8) == 0 ? "\n" : " ");
+            }
+            text.append(PROCESS_SENTENCES[random.nextInt(PROCESS_SENTENCES.length)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Создает временную базу данных и заполняет ее блюдами.
+     */
+    static SeededDatabase seed(int dishCount) throws IOException {
+        return seed(Files.createTempFile("cookingbook-benchmark", ".db"), dishCount);
+    }
+
+    /**
+     * Создает базу данных в заданном файле и заполняет ее блюдами.
+     */
+    static SeededDatabase seed(Path file, int dishCount) {
+        DatabaseManager databaseManager = new DatabaseManager(file.toString(), 4);
+        DishDAO dishDAO = new DishDAOImpl(databaseManager);
+        Random random = new Random(SEED);
+        List<Dish> dishes = new ArrayList<>(dishCount);
+        for (int i = 0; i < dishCount; i++) {
+            dishes.add(randomDish(random, i));
+        }
+        dishDAO.addDishes(dishes);
+        return new SeededDatabase(file, databaseManager, dishDAO);
+    }
+
+    /**
+     * Временная база данных бенчмарка.
+     */
+    record SeededDatabase(Path file, DatabaseManager databaseManager, DishDAO dishDAO) {
+
+        /**
+         * Закрывает соединения и удаляет файлы базы данных.
+         */
+        void delete() throws IOException {
+            databaseManager.closeConnection();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(Path.of(file + "-wal"));
+            Files.deleteIfExists(Path.of(file + "-shm"));
+        }
+    }
+}
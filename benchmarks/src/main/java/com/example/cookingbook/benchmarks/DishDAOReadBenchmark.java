@@ -0,0 +1,84 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.database.DishDAO;
+import com.example.cookingbook.model.Dish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки запросов на чтение DishDAOImpl: загрузка всех блюд, поиск и запросы сортировки.
+ * Кэш блюд не используется, каждый вызов обращается к базе данных.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DishDAOReadBenchmark {
+
+    private static final String[] SEARCH_QUERIES = {"борщ", "омлет 12", "каша", "сыр", "пирог 1"};
+
+    @Param({"1000", "100000"})
+    public int dishCount;
+
+    private BenchmarkData.SeededDatabase database;
+    private DishDAO dishDAO;
+    private int queryIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkData.seed(dishCount);
+        dishDAO = database.dishDAO();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.delete();
+    }
+
+    @Benchmark
+    public List<Dish> getAllDishes() {
+        return dishDAO.getAllDishes();
+    }
+
+    @Benchmark
+    public List<Dish> searchDishes() {
+        String query = SEARCH_QUERIES[queryIndex++ % SEARCH_QUERIES.length];
+        return dishDAO.searchDishes(query);
+    }
+
+    @Benchmark
+    public List<Dish> getFavoriteDishes() {
+        return dishDAO.getFavoriteDishes();
+    }
+
+    @Benchmark
+    public List<Dish> getRecentlyAddedDishes() {
+        return dishDAO.getRecentlyAddedDishes();
+    }
+
+    @Benchmark
+    public List<Dish> getAlphabeticallySortedDishes() {
+        return dishDAO.getAlphabeticallySortedDishes();
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.database.DishDAO;
+import com.example.cookingbook.model.Dish;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки пропускной способности записи DishDAOImpl. Каждый вызов addDish и updateDish
+ * выполняется в отдельной транзакции. Бенчмарк addDish увеличивает таблицу блюд,
+ * поэтому база данных создается заново для каждой итерации.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DishDAOWriteBenchmark {
+
+    @Param({"1000", "100000"})
+    public int dishCount;
+
+    private BenchmarkData.SeededDatabase database;
+    private DishDAO dishDAO;
+    private Random random;
+    private int dishNumber;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        database = BenchmarkData.seed(dishCount);
+        dishDAO = database.dishDAO();
+        random = new Random(BenchmarkData.SEED);
+        dishNumber = dishCount;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        database.delete();
+    }
+
+    @Benchmark
+    public Dish addDish() {
+        Dish dish = BenchmarkData.randomDish(random, dishNumber++);
+        dishDAO.addDish(dish);
+        return dish;
+    }
+
+    @Benchmark
+    public Dish updateDish() {
+        Dish dish = BenchmarkData.randomDish(random, dishNumber++);
+        dish.setId(1 + random.nextInt(dishCount));
+        dishDAO.updateDish(dish);
+        return dish;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.database.DatabaseManager;
+import com.example.cookingbook.database.DishDAO;
+import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает поиск блюд через полнотекстовый индекс FTS5 ({@code MATCH}) с поиском
+ * по подстроке названия ({@code LIKE '%текст%'}), которым DishDAOImpl пользуется, если индекса нет.
+ * Для варианта без индекса таблица индекса и ее триггеры удаляются из заполненной базы,
+ * и база открывается заново. Все запросы находят хотя бы одно блюдо, поэтому нечеткий поиск
+ * не вызывается ни в одном из вариантов.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FullTextSearchBenchmark {
+
+    private static final String[] SEARCH_QUERIES = {"борщ", "омлет 12", "каша", "сыр", "пирог 1"};
+
+    @Param({"100000"})
+    public int dishCount;
+
+    @Param({"true", "false"})
+    public boolean fullTextSearch;
+
+    private BenchmarkData.SeededDatabase database;
+    private DishDAO dishDAO;
+    private int queryIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        database = BenchmarkData.seed(dishCount);
+        if (!fullTextSearch) {
+            try (Statement statement = database.databaseManager().getConnection().createStatement()) {
+                statement.execute("DROP TRIGGER dishes_fts_insert");
+                statement.execute("DROP TRIGGER dishes_fts_delete");
+                statement.execute("DROP TRIGGER dishes_fts_update");
+                statement.execute("DROP TABLE dishes_fts");
+            }
+            database.databaseManager().closeConnection();
+            DatabaseManager databaseManager = new DatabaseManager(database.file().toString(), 4);
+            database = new BenchmarkData.SeededDatabase(database.file(), databaseManager,
+                    new DishDAOImpl(databaseManager));
+        }
+        if (database.databaseManager().isFullTextSearchAvailable() != fullTextSearch) {
+            throw new IllegalStateException("Full-text search availability does not match the parameter");
+        }
+        dishDAO = database.dishDAO();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.delete();
+    }
+
+    @Benchmark
+    public List<Dish> searchDishes() {
+        return dishDAO.searchDishes(nextQuery());
+    }
+
+    @Benchmark
+    public List<DishSummary> searchSummaries() {
+        return dishDAO.searchSummaries(nextQuery());
+    }
+
+    private String nextQuery() {
+        return SEARCH_QUERIES[queryIndex++ % SEARCH_QUERIES.length];
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.search.FuzzyDishSearch;
+import com.example.cookingbook.search.IngredientIndex;
+import com.example.cookingbook.search.IngredientNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк нечеткого поиска в памяти: запросы с опечатками, раздельным написанием
+ * и в неверной раскладке клавиатуры. Индексы заполняются сгенерированными блюдами
+ * без базы данных.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FuzzySearchBenchmark {
+
+    private static final int LIMIT = 100;
+
+    @Param({"борш", "запиканка 12", "сыр ники", ",jho", "cshybrb", "картошка"})
+    public String query;
+
+    @Param({"500000"})
+    public int dishCount;
+
+    private FuzzyDishSearch search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        IngredientIndex ingredientIndex = new IngredientIndex();
+        Random random = new Random(BenchmarkData.SEED);
+        Dish[] dishes = new Dish[dishCount];
+        for (int i = 0; i < dishCount; i++) {
+            dishes[i] = BenchmarkData.randomDish(random, i);
+            ingredientIndex.add(i + 1, IngredientNormalizer.normalize(dishes[i].getIngredients()));
+        }
+        ingredientIndex.optimize();
+        search = new FuzzyDishSearch(ingredientIndex);
+        for (int i = 0; i < dishCount; i++) {
+            search.add(i + 1, dishes[i].getName(), List.of());
+        }
+        search.optimize();
+    }
+
+    @Benchmark
+    public List<FuzzyDishSearch.Match> find() {
+        return search.find(query, LIMIT);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.metrics.Operation;
+import com.example.cookingbook.neuralNetwork.SentenceSegmenter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк накладных расходов {@link Operation}: короткая операция (разбиение рецепта
+ * на предложения) без измерения, с измерением и с измерением при включенной записи JFR.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private static final Operation OPERATION = Metrics.operation("MetricsBenchmark", "segment");
+
+    private String recipe;
+
+    @Setup
+    public void setUp() {
+        recipe = BenchmarkData.recipeText(new Random(BenchmarkData.SEED), 4);
+    }
+
+    @Benchmark
+    public int baseline() {
+        return SentenceSegmenter.segment(recipe).sentenceCount();
+    }
+
+    @Benchmark
+    public int instrumented() {
+        return OPERATION.call(() -> SentenceSegmenter.segment(recipe)).sentenceCount();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-XX:StartFlightRecording=disk=false,settings=profile")
+    public int instrumentedWithRecording() {
+        return OPERATION.call(() -> SentenceSegmenter.segment(recipe)).sentenceCount();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.cookingbook.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Прежняя реализация разделения текста на предложения и шаги на регулярных выражениях.
+ * Сохранена как точка отсчета для сравнения с SentenceSegmenter.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class RegexTextDivider {
+
+    private RegexTextDivider() {
+    }
+
+    static List<String> splitTextIntoSteps(String text) {
+        List<String> steps = new ArrayList<>();
+        List<String> sentences = splitTextIntoSentences(text);
+
+        for (int i = 0; i < sentences.size(); i += 5) {
+            int end = Math.min(i + 5, sentences.size());
+            List<String> stepSentences = sentences.subList(i, end);
+            steps.add(String.join(" ", stepSentences));
+        }
+
+        return steps;
+    }
+
+    static List<String> splitTextIntoSentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        Pattern pattern = Pattern.compile("[^.!?\\s][^.!?]*(?:\\.(?!\\s|$)|[.!?](?=\\s|$))");
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            sentences.add(matcher.group());
+        }
+        return sentences;
+    }
+
+    /**
+     * Прежнее форматирование процесса приготовления в окне деталей блюда.
+     */
+    static String formatSteps(String cookingProcess) {
+        List<String> steps = splitTextIntoSteps(cookingProcess);
+        StringBuilder dividedText = new StringBuilder();
+
+        for (int i = 0; i < steps.size(); i++) {
+            String[] sentences = steps.get(i).split("\\.\\s*");
+            dividedText.append("Шаг ").append(i + 1).append(":\n");
+
+            for (String sentence : sentences) {
+                dividedText.append(sentence).append(".\n");
+            }
+
+            dividedText.append("\n");
+        }
+
+        return dividedText.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.database.DatabaseManager;
+import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.database.StartupSnapshot;
+import com.example.cookingbook.model.DishSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Холодный запуск: время получения строк первого экрана таблицы в только что запущенной JVM.
+ * Каждое измерение выполняется один раз в новой JVM без прогрева, поэтому в него входят
+ * загрузка классов и, для {@code database}, загрузка драйвера SQLite, открытие базы данных
+ * (соединения, проверка схемы) и запрос первой страницы. {@code snapshot} читает те же строки
+ * из снимка для быстрого запуска.
+ * <p>
+ * База данных и снимок готовятся отдельным процессом, чтобы подготовка не загрузила
+ * нужные классы в измеряемую JVM заранее.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    private static final int FIRST_SCREEN_ROWS = 200;
+
+    @Param({"20000"})
+    public int dishCount;
+
+    private Path file;
+    private DatabaseManager databaseManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        file = Files.createTempFile("cookingbook-startup", ".db");
+        Process prepare = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), StartupBenchmark.class.getName(),
+                file.toString(), Integer.toString(dishCount))
+                .inheritIO()
+                .start();
+        if (prepare.waitFor() != 0) {
+            throw new IOException("Benchmark database was not prepared");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (databaseManager != null) {
+            databaseManager.closeConnection();
+        }
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+        Files.deleteIfExists(StartupSnapshot.fileFor(file.toString()));
+    }
+
+    @Benchmark
+    public List<DishSummary> database() {
+        databaseManager = new DatabaseManager(file.toString(), 4);
+        return new DishDAOImpl(databaseManager).getSummariesAfterId(0, FIRST_SCREEN_ROWS);
+    }
+
+    @Benchmark
+    public List<DishSummary> snapshot() {
+        return new StartupSnapshot(StartupSnapshot.fileFor(file.toString()), FIRST_SCREEN_ROWS).read();
+    }
+
+    /**
+     * Готовит базу данных и снимок первой страницы в отдельном процессе.
+     *
+     * @param args Путь к файлу базы данных и количество блюд.
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Path.of(args[0]);
+        BenchmarkData.SeededDatabase database = BenchmarkData.seed(file, Integer.parseInt(args[1]));
+        new StartupSnapshot(StartupSnapshot.fileFor(file.toString()), FIRST_SCREEN_ROWS)
+                .write(database.dishDAO().getSummariesAfterId(0, FIRST_SCREEN_ROWS));
+        database.databaseManager().closeConnection();
+    }
+}
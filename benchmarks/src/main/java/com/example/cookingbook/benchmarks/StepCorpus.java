@@ -0,0 +1,174 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.neuralNetwork.Segmentation;
+import com.example.cookingbook.neuralNetwork.SentenceSegmenter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Размеченный набор процессов приготовления для обучения и проверки
+ * {@link com.example.cookingbook.neuralNetwork.StepModel}. Каждый четвертый рецепт
+ * отложен для проверки и в обучении не участвует.
+ * <p>
+ * Шаги рецепта соединяются пробелом, а в каждом третьем рецепте - переводом строки,
+ * как это бывает в текстах, набранных пользователями.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class StepCorpus {
+
+    private static final String RESOURCE = "step-corpus.txt";
+
+    /**
+     * Размеченный рецепт.
+     *
+     * @param segmentation Разбиение текста рецепта на предложения.
+     * @param stepStarts   Для каждого предложения - начинается ли с него новый шаг.
+     */
+    record Recipe(Segmentation segmentation, boolean[] stepStarts) {
+    }
+
+    /**
+     * Результат проверки: сколько границ шагов найдено верно, лишних и пропущенных.
+     */
+    record Evaluation(int truePositives, int falsePositives, int falseNegatives, int exactRecipes, int recipes) {
+
+        double precision() {
+            return truePositives == 0 ? 0 : (double) truePositives / (truePositives + falsePositives);
+        }
+
+        double recall() {
+            return truePositives == 0 ? 0 : (double) truePositives / (truePositives + falseNegatives);
+        }
+
+        double f1() {
+            double precision = precision();
+            double recall = recall();
+            return precision + recall == 0 ? 0 : 2 * precision * recall / (precision + recall);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("precision %.3f, recall %.3f, F1 %.3f, exact %d/%d",
+                    precision(), recall(), f1(), exactRecipes, recipes);
+        }
+    }
+
+    private final List<Recipe> training = new ArrayList<>();
+    private final List<Recipe> test = new ArrayList<>();
+
+    private StepCorpus() {
+    }
+
+    /**
+     * Загружает набор из ресурсов модуля.
+     */
+    static StepCorpus load() throws IOException {
+        StepCorpus corpus = new StepCorpus();
+        try (InputStream in = StepCorpus.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IOException(RESOURCE + " not found");
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                Recipe recipe = parse(line, number % 3 == 2 ? "\n" : " ");
+                if (recipe == null) {
+                    System.err.println("Skipping recipe with ambiguous sentence bounds: " + line);
+                } else {
+                    (number % 4 == 3 ? corpus.test : corpus.training).add(recipe);
+                }
+                number++;
+            }
+        }
+        return corpus;
+    }
+
+    List<Recipe> training() {
+        return training;
+    }
+
+    List<Recipe> test() {
+        return test;
+    }
+
+    /**
+     * Проверяет разметку шагов, полученную функцией {@code divide}, по эталону.
+     */
+    static Evaluation evaluate(List<Recipe> recipes, Function<Segmentation, Segmentation> divide) {
+        int truePositives = 0;
+        int falsePositives = 0;
+        int falseNegatives = 0;
+        int exact = 0;
+        for (Recipe recipe : recipes) {
+            Segmentation source = recipe.segmentation();
+            boolean[] predicted = stepStarts(divide.apply(SentenceSegmenter.segment(source.getText())));
+            boolean same = true;
+            for (int i = 1; i < predicted.length; i++) {
+                if (predicted[i] && recipe.stepStarts()[i]) {
+                    truePositives++;
+                } else if (predicted[i]) {
+                    falsePositives++;
+                    same = false;
+                } else if (recipe.stepStarts()[i]) {
+                    falseNegatives++;
+                    same = false;
+                }
+            }
+            if (same) {
+                exact++;
+            }
+        }
+        return new Evaluation(truePositives, falsePositives, falseNegatives, exact, recipes.size());
+    }
+
+    private static boolean[] stepStarts(Segmentation segmentation) {
+        boolean[] starts = new boolean[segmentation.sentenceCount()];
+        for (int step = 0; step < segmentation.stepCount(); step++) {
+            starts[segmentation.stepFirstSentence(step)] = true;
+        }
+        return starts;
+    }
+
+    /**
+     * Собирает текст рецепта из шагов и размечает начала шагов. Возвращает {@code null},
+     * если предложения целого текста не совпадают с предложениями отдельных шагов.
+     */
+    private static Recipe parse(String line, String separator) {
+        StringBuilder text = new StringBuilder();
+        List<Boolean> starts = new ArrayList<>();
+        for (String step : line.split("\\|")) {
+            String trimmed = step.trim();
+            if (text.length() > 0) {
+                text.append(separator);
+            }
+            text.append(trimmed);
+            int sentences = SentenceSegmenter.segment(trimmed).sentenceCount();
+            for (int i = 0; i < sentences; i++) {
+                starts.add(i == 0);
+            }
+        }
+        Segmentation segmentation = SentenceSegmenter.segment(text.toString());
+        if (segmentation.sentenceCount() != starts.size()) {
+            return null;
+        }
+        boolean[] stepStarts = new boolean[starts.size()];
+        for (int i = 0; i < stepStarts.length; i++) {
+            stepStarts[i] = starts.get(i);
+        }
+        return new Recipe(segmentation, stepStarts);
+    }
+}
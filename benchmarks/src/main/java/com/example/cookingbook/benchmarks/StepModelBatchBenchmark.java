@@ -0,0 +1,68 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.neuralNetwork.Segmentation;
+import com.example.cookingbook.neuralNetwork.SentenceSegmenter;
+import com.example.cookingbook.neuralNetwork.StepModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк разбиения на шаги сразу многих рецептов: последовательно и через
+ * {@link StepModel#segmentAll(List)}, который распределяет рецепты по ядрам.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StepModelBatchBenchmark {
+
+    @Param({"10000"})
+    public int recipeCount;
+
+    private List<String> recipes;
+    private StepModel stepModel;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(BenchmarkData.SEED);
+        recipes = new ArrayList<>(recipeCount);
+        for (int i = 0; i < recipeCount; i++) {
+            recipes.add(BenchmarkData.recipeText(random, 4 + random.nextInt(12)));
+        }
+        stepModel = StepModel.bundled();
+    }
+
+    @Benchmark
+    public List<Segmentation> sequential() {
+        List<Segmentation> result = new ArrayList<>(recipes.size());
+        for (String recipe : recipes) {
+            result.add(stepModel.assignSteps(SentenceSegmenter.segment(recipe)));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Segmentation> parallel() {
+        return stepModel.segmentAll(recipes);
+    }
+}
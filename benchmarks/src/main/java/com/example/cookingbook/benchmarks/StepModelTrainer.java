@@ -0,0 +1,99 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.neuralNetwork.Segmentation;
+import com.example.cookingbook.neuralNetwork.StepModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Обучает {@link StepModel} логистической регрессией на размеченном наборе {@link StepCorpus}
+ * и сохраняет веса. Путь к файлу весов передается первым аргументом, по умолчанию
+ * файл step-model.bin записывается в ресурсы основного модуля.
+ * <p>
+ * После обучения выводит качество модели на обучающей и отложенной частях набора
+ * в сравнении с прежним разбиением по пять предложений.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class StepModelTrainer {
+
+    private static final String DEFAULT_OUTPUT = "../src/main/resources/com/example/cookingbook/neuralNetwork/step-model.bin";
+    private static final int SIZE = 4096;
+    private static final int EPOCHS = 60;
+    private static final float LEARNING_RATE = 0.1f;
+    private static final float L2 = 3e-3f;
+
+    public static void main(String[] args) throws IOException {
+        StepCorpus corpus = StepCorpus.load();
+        StepModel model = train(corpus.training());
+
+        Path output = Path.of(args.length > 0 ? args[0] : DEFAULT_OUTPUT).toAbsolutePath().normalize();
+        Files.createDirectories(output.getParent());
+        try (OutputStream out = Files.newOutputStream(output)) {
+            model.write(out);
+        }
+        System.out.println("Model written to " + output);
+
+        print("training", corpus.training(), model);
+        print("test", corpus.test(), model);
+    }
+
+    static void print(String name, List<StepCorpus.Recipe> recipes, StepModel model) {
+        System.out.println(name + " (" + recipes.size() + " recipes)");
+        System.out.println("  fixed five sentences: " + StepCorpus.evaluate(recipes, segmentation -> segmentation));
+        System.out.println("  step model:           " + StepCorpus.evaluate(recipes, model::assignSteps));
+    }
+
+    /**
+     * Обучает модель стохастическим градиентным спуском. Количество предложений в текущем
+     * шаге берется из эталонной разметки.
+     */
+    private static StepModel train(List<StepCorpus.Recipe> recipes) {
+        List<int[]> examples = new ArrayList<>();
+        List<Boolean> labels = new ArrayList<>();
+        int[] features = new int[StepModel.MAX_FEATURES];
+        for (StepCorpus.Recipe recipe : recipes) {
+            Segmentation segmentation = recipe.segmentation();
+            int sentencesInStep = 1;
+            for (int sentence = 1; sentence < segmentation.sentenceCount(); sentence++) {
+                int count = StepModel.features(segmentation, sentence, sentencesInStep, SIZE, features);
+                int[] example = new int[count];
+                System.arraycopy(features, 0, example, 0, count);
+                examples.add(example);
+                labels.add(recipe.stepStarts()[sentence]);
+                sentencesInStep = recipe.stepStarts()[sentence] ? 1 : sentencesInStep + 1;
+            }
+        }
+
+        float[] weights = new float[SIZE];
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < examples.size(); i++) {
+            order.add(i);
+        }
+        Random random = new Random(BenchmarkData.SEED);
+        for (int epoch = 0; epoch < EPOCHS; epoch++) {
+            Collections.shuffle(order, random);
+            for (int index : order) {
+                int[] example = examples.get(index);
+                float score = 0;
+                for (int feature : example) {
+                    score += weights[feature];
+                }
+                float gradient = (labels.get(index) ? 1 : 0) - (float) (1 / (1 + Math.exp(-score)));
+                for (int feature : example) {
+                    weights[feature] += LEARNING_RATE * (gradient - L2 * weights[feature]);
+                }
+            }
+        }
+        return new StepModel(weights, 0);
+    }
+}
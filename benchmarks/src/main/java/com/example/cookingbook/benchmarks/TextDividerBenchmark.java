@@ -0,0 +1,92 @@
+package com.example.cookingbook.benchmarks;
+
+import com.example.cookingbook.neuralNetwork.Segmentation;
+import com.example.cookingbook.neuralNetwork.SentenceSegmenter;
+import com.example.cookingbook.neuralNetwork.StepModel;
+import com.example.cookingbook.neuralNetwork.TextDivider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк разделения процесса приготовления на предложения и шаги для короткого рецепта
+ * и очень длинного текста. Методы с префиксом regex измеряют прежнюю реализацию
+ * на регулярных выражениях; {@code segment} дает шаги фиксированной длины,
+ * {@code segmentWithStepModel} - шаги, выбранные {@link StepModel}.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextDividerBenchmark {
+
+    @Param({"8", "20000"})
+    public int sentenceCount;
+
+    private String recipe;
+    private StepModel stepModel;
+
+    @Setup
+    public void setUp() {
+        recipe = BenchmarkData.recipeText(new Random(BenchmarkData.SEED), sentenceCount);
+        stepModel = StepModel.bundled();
+    }
+
+    @Benchmark
+    public Segmentation segment() {
+        return SentenceSegmenter.segment(recipe);
+    }
+
+    @Benchmark
+    public Segmentation segmentWithStepModel() {
+        return stepModel.assignSteps(SentenceSegmenter.segment(recipe));
+    }
+
+    @Benchmark
+    public List<String> splitTextIntoSentences() {
+        return TextDivider.splitTextIntoSentences(recipe);
+    }
+
+    @Benchmark
+    public List<String> regexSplitTextIntoSentences() {
+        return RegexTextDivider.splitTextIntoSentences(recipe);
+    }
+
+    @Benchmark
+    public List<String> splitTextIntoSteps() {
+        return TextDivider.splitTextIntoSteps(recipe);
+    }
+
+    @Benchmark
+    public List<String> regexSplitTextIntoSteps() {
+        return RegexTextDivider.splitTextIntoSteps(recipe);
+    }
+
+    @Benchmark
+    public String formatSteps() {
+        return TextDivider.formatSteps(recipe);
+    }
+
+    @Benchmark
+    public String regexFormatSteps() {
+        return RegexTextDivider.formatSteps(recipe);
+    }
+}
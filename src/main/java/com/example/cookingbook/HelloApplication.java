@@ -3,6 +3,12 @@ package com.example.cookingbook;
  *
  */
 
+import com.example.cookingbook.database.DatabaseCompletionStore;
+import com.example.cookingbook.database.DatabaseManager;
+import com.example.cookingbook.database.DishDAOProvider;
+import com.example.cookingbook.metrics.FxStallWatchdog;
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.openAI.OpenAIManager;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -11,8 +17,14 @@ import javafx.stage.Stage;
 import java.io.IOException;
 
 public class HelloApplication extends Application {
+    private FxStallWatchdog stallWatchdog;
+
     @Override
     public void start(Stage stage) throws IOException {
+        stallWatchdog = FxStallWatchdog.startConfigured();
+        // Без базы данных окно не открывается: ошибка открытия завершает запуск сразу.
+        DatabaseManager.getInstance();
+        OpenAIManager.setCompletionStore(() -> new DatabaseCompletionStore(DatabaseManager.getInstance()));
         FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("hello-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 704, 575);
         stage.setTitle("CookingBook");
@@ -20,6 +32,19 @@ public class HelloApplication extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (stallWatchdog != null) {
+            stallWatchdog.stop();
+        }
+        // Все, кто пользуется соединениями с базой данных, останавливаются до ее закрытия.
+        DishDAOProvider.shutdown();
+        Metrics.writeConfiguredSnapshot();
+        DishDAOProvider.saveStartupSnapshot();
+        OpenAIManager.shutdown();
+        DatabaseManager.shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
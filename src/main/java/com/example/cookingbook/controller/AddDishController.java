@@ -1,13 +1,14 @@
 package com.example.cookingbook.controller;
-import com.example.cookingbook.database.DatabaseManager;
-import com.example.cookingbook.database.DishDAO;
-import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.database.AsyncDishDAO;
+import com.example.cookingbook.database.DishDAOProvider;
 import com.example.cookingbook.model.Dish;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 
+import static com.example.cookingbook.util.FxFutures.onFxThread;
+
 /**
  * Контроллер для добавления нового блюда.
  * Управляет полями ввода и кнопкой сохранения блюда.
@@ -18,7 +19,7 @@ import javafx.scene.control.TextField;
  */
 public class AddDishController {
 
-    private DishDAO dishDAO;
+    private AsyncDishDAO dishDAO;
 
     @FXML
     private TextField nameField;
@@ -41,7 +42,7 @@ public class AddDishController {
      */
     @FXML
     private void initialize() {
-        this.dishDAO = new DishDAOImpl(new DatabaseManager());
+        this.dishDAO = DishDAOProvider.getAsyncDishDAO();
     }
 
     /**
@@ -57,9 +58,7 @@ public class AddDishController {
 
         Dish newDish = new Dish(name, cookingTime, ingredients, cookingProcess, favorite);
 
-        dishDAO.addDish(newDish);
-
-        closeWindow();
+        onFxThread(dishDAO.addDish(newDish), ignored -> closeWindow());
     }
 
     /**
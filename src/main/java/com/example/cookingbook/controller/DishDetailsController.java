@@ -1,15 +1,16 @@
 package com.example.cookingbook.controller;
-import com.example.cookingbook.database.DatabaseManager;
-import com.example.cookingbook.database.DishDAO;
-import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.database.AsyncDishDAO;
+import com.example.cookingbook.database.DishDAOProvider;
 import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.neuralNetwork.Segmentation;
 import com.example.cookingbook.neuralNetwork.TextDivider;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextArea;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
-import java.util.List;
+
+import static com.example.cookingbook.util.FxFutures.onFxThread;
 
 /**
  * Контроллер для работы с окном деталей блюда.
@@ -37,7 +38,8 @@ public class DishDetailsController {
     private CheckBox favoriteCheckBox;
 
     private Dish selectedDish;
-    private DishDAO dishDAO;
+    private String displayedCookingProcess;
+    private AsyncDishDAO dishDAO;
 
     /**
      * Метод инициализации, вызываемый после загрузки FXML.
@@ -45,7 +47,7 @@ public class DishDetailsController {
      */
     @FXML
     private void initialize() {
-        this.dishDAO = new DishDAOImpl(new DatabaseManager());
+        this.dishDAO = DishDAOProvider.getAsyncDishDAO();
     }
 
     /**
@@ -66,32 +68,21 @@ public class DishDetailsController {
             nameTextArea.setText(selectedDish.getName());
             cookingTimeTextArea.setText(selectedDish.getCookingTime());
             ingredientsTextArea.setText(selectedDish.getIngredients());
-            divideCookingProcess(selectedDish.getCookingProcess());
+            divideCookingProcess(selectedDish);
             favoriteCheckBox.setSelected(selectedDish.isFavorite());
         }
     }
 
     /**
-     * Разделяет процесс приготовления на отдельные шаги и отображает в текстовом поле.
+     * Отображает процесс приготовления, разделенный на шаги. Границы предложений и шагов
+     * берутся из сохраненного блюда: текст заново не разбирается, модель шагов не вызывается.
      *
-     * @param cookingProcess Полный текст процесса приготовления.
+     * @param dish Блюдо, процесс приготовления которого нужно отобразить.
      */
-    private void divideCookingProcess(String cookingProcess) {
-        List<String> steps = TextDivider.splitTextIntoSteps(cookingProcess);
-        StringBuilder dividedText = new StringBuilder();
-
-        for (int i = 0; i < steps.size(); i++) {
-            String[] sentences = steps.get(i).split("\\.\\s*");
-            dividedText.append("Шаг ").append(i + 1).append(":\n");
-
-            for (String sentence : sentences) {
-                dividedText.append(sentence).append(".\n");
-            }
-
-            dividedText.append("\n");
-        }
-
-        cookingProcessTextArea.setText(dividedText.toString());
+    private void divideCookingProcess(Dish dish) {
+        displayedCookingProcess = TextDivider.formatSteps(
+                Segmentation.decode(dish.getCookingProcess(), dish.getSentenceBounds()));
+        cookingProcessTextArea.setText(displayedCookingProcess);
     }
 
     /**
@@ -103,12 +94,13 @@ public class DishDetailsController {
             selectedDish.setName(nameTextArea.getText());
             selectedDish.setCookingTime(cookingTimeTextArea.getText());
             selectedDish.setIngredients(ingredientsTextArea.getText());
-            selectedDish.setCookingProcess(saveChangesWithoutSteps());
+            String cookingProcess = cookingProcessTextArea.getText();
+            if (!cookingProcess.equals(displayedCookingProcess)) {
+                selectedDish.setCookingProcess(TextDivider.removeStepHeaders(cookingProcess));
+            }
             selectedDish.setFavorite(favoriteCheckBox.isSelected());
 
-            dishDAO.updateDish(selectedDish);
-
-            closeWindow();
+            onFxThread(dishDAO.updateDish(selectedDish), ignored -> closeWindow());
         }
     }
 
@@ -119,14 +111,4 @@ public class DishDetailsController {
     private void closeWindow() {
         nameTextArea.getScene().getWindow().hide();
     }
-
-    /**
-     * Удаляет префиксы "Шаг N:" из текста процесса приготовления перед сохранением.
-     *
-     * @return Текст процесса приготовления без префиксов "Шаг N:".
-     */
-    private String saveChangesWithoutSteps() {
-        String fullText = cookingProcessTextArea.getText();
-        return fullText.replaceAll("Шаг \\d+:\\n", "");
-    }
 }
\ No newline at end of file
@@ -1,10 +1,17 @@
 package com.example.cookingbook.controller;
-import com.example.cookingbook.database.DatabaseManager;
+import com.example.cookingbook.database.AsyncDishDAO;
+import com.example.cookingbook.database.DishChangeEvent;
 import com.example.cookingbook.database.DishDAO;
-import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.database.DishDAOProvider;
+import com.example.cookingbook.metrics.FxStallWatchdog;
 import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+import javafx.animation.PauseTransition;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -12,13 +19,26 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import static com.example.cookingbook.util.FxFutures.FX_EXECUTOR;
+import static com.example.cookingbook.util.FxFutures.onFxThread;
 
 /**
  * Контроллер для работы с главной сценой приложения.
  * Управляет таблицей блюд, полем поиска и выпадающим списком сортировки.
+ * Изменения блюд, сделанные в любом окне, приходят от DAO событиями и применяются
+ * к строкам таблицы по одной, без повторной загрузки списка.
+ * Обработчики событий отмечают себя для {@link FxStallWatchdog}, чтобы зависание
+ * потока JavaFX можно было связать с действием пользователя.
  *
  * @autor Комов Степан
  * @version 1.0
@@ -26,14 +46,39 @@ import java.util.List;
  */
 public class HelloController {
 
+    private static final int PAGE_SIZE = 200;
+    private static final int QUICK_DISH_MINUTES = 30;
+    private static final double PREFETCH_THRESHOLD = 0.9;
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(250);
+
+    private static final Comparator<DishSummary> BY_ID = Comparator.comparingInt(DishSummary::getId);
+    private static final Comparator<DishSummary> BY_NAME = Comparator
+            .comparing(DishSummary::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparingInt(DishSummary::getId);
+    private static final Comparator<DishSummary> BY_COOKING_TIME = Comparator
+            .comparingInt(DishSummary::getCookingMinutes)
+            .thenComparingInt(DishSummary::getId);
+
+    private static final View ALL_BY_ID = new View(dish -> true, BY_ID);
+    private static final View SEARCH_RESULTS = new View(dish -> true, null);
+
+    /**
+     * Представление таблицы: какие блюда в него входят и в каком порядке показаны.
+     * По нему изменения блюд применяются к таблице без запроса к базе данных.
+     * Порядок совпадает с сортировкой соответствующего запроса DAO; если он равен
+     * {@code null} (результаты поиска), изменяются и удаляются только уже показанные блюда.
+     */
+    private record View(Predicate<DishSummary> filter, Comparator<DishSummary> order) {
+    }
+
     @FXML
-    private TableView<Dish> dishesTable;
+    private TableView<DishSummary> dishesTable;
 
     @FXML
-    private TableColumn<Dish, String> nameColumn, timeColumn, ingredientsColumn;
+    private TableColumn<DishSummary, String> nameColumn, timeColumn, ingredientsColumn;
 
     @FXML
-    private TableColumn<Dish, Boolean> favoriteColumn;
+    private TableColumn<DishSummary, Boolean> favoriteColumn;
 
     @FXML
     private TextField searchField;
@@ -41,14 +86,41 @@ public class HelloController {
     @FXML
     private ChoiceBox<String> sortChoiceBox;
 
-    private final DishDAO dishDAO;
+    @FXML
+    private Label searchStatusLabel;
+
+    private final AsyncDishDAO dishDAO;
+
+    /**
+     * Источник страниц текущего представления таблицы. Выполняется в фоновом потоке:
+     * получает DAO и последнее загруженное блюдо (или {@code null} для первой страницы)
+     * и возвращает следующую страницу. Равен {@code null}, если таблица показывает список целиком.
+     */
+    private BiFunction<DishDAO, DishSummary, List<DishSummary>> pageLoader;
+    private boolean lastPageLoaded;
+    private boolean pageLoading;
+    /**
+     * Показывает ли таблица блюда из снимка для быстрого запуска вместо первой страницы.
+     */
+    private boolean showingSnapshot;
+    private View view = ALL_BY_ID;
+
+    /**
+     * Номер текущего представления таблицы. Увеличивается при каждой смене представления,
+     * чтобы результаты запросов, отправленных для прежнего представления, отбрасывались.
+     */
+    private int viewGeneration;
+
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+    private CompletableFuture<List<DishSummary>> searchFuture;
 
     /**
      * Конструктор класса HelloController.
-     * Инициализирует DAO для работы с базой данных.
+     * Инициализирует DAO для работы с базой данных. Все запросы к базе данных выполняются
+     * в фоновых потоках, поток JavaFX только применяет их результаты.
      */
     public HelloController() {
-        this.dishDAO = new DishDAOImpl(new DatabaseManager());
+        this.dishDAO = DishDAOProvider.getAsyncDishDAO();
     }
 
     /**
@@ -59,41 +131,50 @@ public class HelloController {
     public void initialize() {
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
         timeColumn.setCellValueFactory(new PropertyValueFactory<>("cookingTime"));
-        ingredientsColumn.setCellValueFactory(new PropertyValueFactory<>("ingredients"));
+        ingredientsColumn.setCellValueFactory(new PropertyValueFactory<>("ingredientsPreview"));
         favoriteColumn.setCellValueFactory(new PropertyValueFactory<>("favorite"));
 
-        List<Dish> allDishes = dishDAO.getAllDishes();
-        dishesTable.getItems().addAll(allDishes);
+        dishesTable.skinProperty().addListener((observable, oldSkin, newSkin) -> attachScrollListener());
+        DishDAOProvider.getChangeNotifier().subscribe(FX_EXECUTOR, this::applyChanges);
+        showPagedDishes(HelloController::loadPageById, ALL_BY_ID);
+        showStartupSnapshot();
 
+        searchDebounce.setOnFinished(event ->
+                FxStallWatchdog.run("searchDishes", () -> searchDishes(searchField.getText().trim())));
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            searchDishes(newValue.trim());
+            searchDebounce.playFromStart();
         });
 
-        sortChoiceBox.getItems().addAll("По умолчанию", "Понравившиеся", "Последние добавленные", "По алфавиту");
+        sortChoiceBox.getItems().addAll("По умолчанию", "Понравившиеся", "Последние добавленные", "По алфавиту",
+                "По времени приготовления", "Быстрые блюда");
         sortChoiceBox.setValue("По умолчанию");
 
         sortChoiceBox.setOnAction(event -> {
-            String selectedSortType = sortChoiceBox.getValue();
-            List<Dish> sortedDishes = null;
-            switch (selectedSortType) {
-                case "По умолчанию":
-                    sortedDishes = dishDAO.getAllDishes();
-                    break;
-                case "Понравившиеся":
-                    sortedDishes = dishDAO.getFavoriteDishes();
-                    break;
-                case "Последние добавленные":
-                    sortedDishes = dishDAO.getRecentlyAddedDishes();
-                    break;
-                case "По алфавиту":
-                    sortedDishes = dishDAO.getAlphabeticallySortedDishes();
-                    break;
-            }
-
-            if (sortedDishes != null) {
-                dishesTable.getItems().clear();
-                dishesTable.getItems().addAll(sortedDishes);
-            }
+            FxStallWatchdog.run("sortChoiceBox", () -> {
+                String selectedSortType = sortChoiceBox.getValue();
+                switch (selectedSortType) {
+                    case "По умолчанию":
+                        showPagedDishes(HelloController::loadPageById, ALL_BY_ID);
+                        break;
+                    case "Понравившиеся":
+                        showDishes(dishDAO.getFavoriteSummaries(), new View(DishSummary::isFavorite, BY_ID));
+                        break;
+                    case "Последние добавленные":
+                        showDishes(dishDAO.getRecentSummaries(), new View(dish -> true, BY_ID.reversed()));
+                        break;
+                    case "По алфавиту":
+                        showPagedDishes(HelloController::loadPageByName, new View(dish -> true, BY_NAME));
+                        break;
+                    case "По времени приготовления":
+                        showPagedDishes((dao, lastDish) -> loadPageByCookingTime(dao, lastDish, Integer.MAX_VALUE),
+                                cookingTimeView(Integer.MAX_VALUE));
+                        break;
+                    case "Быстрые блюда":
+                        showPagedDishes((dao, lastDish) -> loadPageByCookingTime(dao, lastDish, QUICK_DISH_MINUTES),
+                                cookingTimeView(QUICK_DISH_MINUTES));
+                        break;
+                }
+            });
         });
     }
 
@@ -106,40 +187,245 @@ public class HelloController {
     @FXML
     private void handleTableClick(MouseEvent event) {
         if (event.getButton().equals(MouseButton.PRIMARY) && event.getClickCount() == 2) {
-            Dish selectedDish = dishesTable.getSelectionModel().getSelectedItem();
-            openDishDetails(selectedDish);
+            DishSummary selectedDish = dishesTable.getSelectionModel().getSelectedItem();
+            if (selectedDish != null) {
+                openDishDetails(selectedDish);
+            }
         }
     }
 
     /**
      * Обновляет таблицу блюд.
-     * Загружает все блюда из базы данных и отображает их в таблице.
+     * Загружает первую страницу блюд из базы данных, остальные подгружаются при прокрутке.
      */
     @FXML
     private void refreshTable() {
+        showPagedDishes(HelloController::loadPageById, ALL_BY_ID);
+    }
+
+    /**
+     * Переключает таблицу на постраничное отображение и загружает первую страницу.
+     *
+     * @param loader  Источник страниц.
+     * @param newView Состав и порядок блюд, которые возвращает источник.
+     */
+    private void showPagedDishes(BiFunction<DishDAO, DishSummary, List<DishSummary>> loader, View newView) {
+        viewGeneration++;
+        showingSnapshot = false;
+        view = newView;
+        pageLoader = loader;
+        lastPageLoaded = false;
+        pageLoading = false;
         dishesTable.getItems().clear();
-        List<Dish> allDishes = dishDAO.getAllDishes();
-        dishesTable.getItems().addAll(allDishes);
+        loadNextPage();
+    }
+
+    /**
+     * Переключает таблицу на отображение списка целиком. Список появится в таблице,
+     * когда запрос завершится, если к этому времени представление не сменится.
+     *
+     * @param dishes  Будущий список блюд.
+     * @param newView Состав и порядок блюд в списке.
+     */
+    private void showDishes(CompletableFuture<List<DishSummary>> dishes, View newView) {
+        int generation = ++viewGeneration;
+        showingSnapshot = false;
+        view = newView;
+        pageLoader = null;
+        onFxThread(dishes, result -> {
+            FxStallWatchdog.run("showDishes", () -> {
+                if (generation == viewGeneration) {
+                    dishesTable.getItems().setAll(result);
+                }
+            });
+        });
+    }
+
+    /**
+     * Показывает блюда из снимка для быстрого запуска, пока первая страница загружается
+     * из базы данных. Когда страница придет, она заменит строки снимка.
+     */
+    private void showStartupSnapshot() {
+        List<DishSummary> snapshot = DishDAOProvider.getStartupSnapshot().read();
+        if (!snapshot.isEmpty() && pageLoading && dishesTable.getItems().isEmpty()) {
+            dishesTable.getItems().setAll(snapshot);
+            showingSnapshot = true;
+        }
+    }
+
+    /**
+     * Запрашивает следующую страницу текущего представления и добавляет ее в конец таблицы.
+     * Пока страница загружается, повторные запросы игнорируются.
+     */
+    private void loadNextPage() {
+        if (pageLoader == null || lastPageLoaded || pageLoading) {
+            return;
+        }
+        List<DishSummary> items = dishesTable.getItems();
+        DishSummary lastDish = items.isEmpty() ? null : items.get(items.size() - 1);
+        BiFunction<DishDAO, DishSummary, List<DishSummary>> loader = pageLoader;
+        int generation = viewGeneration;
+        pageLoading = true;
+        onFxThread(dishDAO.submit(dao -> loader.apply(dao, lastDish)), page -> {
+            FxStallWatchdog.run("loadNextPage", () -> {
+                if (generation != viewGeneration) {
+                    return;
+                }
+                pageLoading = false;
+                lastPageLoaded = page.size() < PAGE_SIZE;
+                if (showingSnapshot) {
+                    showingSnapshot = false;
+                    dishesTable.getItems().setAll(page);
+                } else {
+                    dishesTable.getItems().addAll(page);
+                }
+            });
+        }, error -> {
+            if (generation == viewGeneration) {
+                pageLoading = false;
+            }
+            error.printStackTrace();
+        });
+    }
+
+    private static List<DishSummary> loadPageById(DishDAO dishDAO, DishSummary lastDish) {
+        return dishDAO.getSummariesAfterId(lastDish == null ? 0 : lastDish.getId(), PAGE_SIZE);
+    }
+
+    private static List<DishSummary> loadPageByName(DishDAO dishDAO, DishSummary lastDish) {
+        return lastDish == null
+                ? dishDAO.getSummariesAfterName(null, 0, PAGE_SIZE)
+                : dishDAO.getSummariesAfterName(lastDish.getName(), lastDish.getId(), PAGE_SIZE);
+    }
+
+    private static List<DishSummary> loadPageByCookingTime(DishDAO dishDAO, DishSummary lastDish, int maxMinutes) {
+        return lastDish == null
+                ? dishDAO.getSummariesByCookingTime(0, maxMinutes, 0, 0, PAGE_SIZE)
+                : dishDAO.getSummariesByCookingTime(0, maxMinutes, lastDish.getCookingMinutes(), lastDish.getId(), PAGE_SIZE);
+    }
+
+    private static View cookingTimeView(int maxMinutes) {
+        return new View(dish -> dish.getCookingMinutes() >= 0 && dish.getCookingMinutes() <= maxMinutes,
+                BY_COOKING_TIME);
     }
 
     /**
-     * Удаляет выбранное блюдо из таблицы и базы данных.
+     * Применяет изменения блюд к строкам таблицы. Измененное блюдо заменяется на месте,
+     * если его позиция в порядке представления не изменилась, иначе переносится; блюдо,
+     * которое больше не подходит представлению, удаляется. Новое блюдо вставляется на свое
+     * место, если оно попадает в уже загруженную часть списка; блюда после последней
+     * загруженной строки появятся со следующей страницей.
+     *
+     * @param events Изменения одной операции записи.
+     */
+    private void applyChanges(List<DishChangeEvent> events) {
+        FxStallWatchdog.run("applyChanges", () -> {
+            ObservableList<DishSummary> items = dishesTable.getItems();
+            for (DishChangeEvent event : events) {
+                DishSummary summary = event.summary();
+                if (event.type() == DishChangeEvent.Type.ADDED && view.order() != null) {
+                    if (view.filter().test(summary)) {
+                        insertSorted(items, summary);
+                    }
+                    continue;
+                }
+                int index = indexOfDish(items, event.id());
+                if (index < 0) {
+                    if (event.type() == DishChangeEvent.Type.UPDATED && view.order() != null
+                            && view.filter().test(summary)) {
+                        insertSorted(items, summary);
+                    }
+                } else if (summary == null || !view.filter().test(summary)) {
+                    items.remove(index);
+                } else if (view.order() == null || staysInPlace(items, index, summary)) {
+                    items.set(index, summary);
+                } else {
+                    items.remove(index);
+                    insertSorted(items, summary);
+                }
+            }
+        });
+    }
+
+    private void insertSorted(ObservableList<DishSummary> items, DishSummary summary) {
+        int position = Collections.binarySearch(items, summary, view.order());
+        if (position >= 0) {
+            items.set(position, summary);
+            return;
+        }
+        position = -position - 1;
+        if (position == items.size() && pageLoader != null && !lastPageLoaded) {
+            return;
+        }
+        items.add(position, summary);
+    }
+
+    private boolean staysInPlace(List<DishSummary> items, int index, DishSummary summary) {
+        Comparator<DishSummary> order = view.order();
+        return (index == 0 || order.compare(items.get(index - 1), summary) < 0)
+                && (index == items.size() - 1 || order.compare(summary, items.get(index + 1)) < 0);
+    }
+
+    private static int indexOfDish(List<DishSummary> items, int id) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getId() == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Подписывается на вертикальную полосу прокрутки таблицы, чтобы подгружать
+     * следующую страницу при приближении к концу списка.
+     */
+    private void attachScrollListener() {
+        for (Node node : dishesTable.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar scrollBar && scrollBar.getOrientation() == Orientation.VERTICAL) {
+                scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= scrollBar.getMax() * PREFETCH_THRESHOLD) {
+                        loadNextPage();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Удаляет выбранное блюдо из базы данных. Строка исчезнет из таблицы,
+     * когда придет событие об удалении.
      */
     @FXML
     private void deleteSelectedDish() {
-        Dish selectedDish = dishesTable.getSelectionModel().getSelectedItem();
+        DishSummary selectedDish = dishesTable.getSelectionModel().getSelectedItem();
         if (selectedDish != null) {
-            dishDAO.deleteDish(selectedDish.getId());
-            dishesTable.getItems().remove(selectedDish);
+            onFxThread(dishDAO.deleteDish(selectedDish.getId()), ignored -> {
+            });
         }
     }
 
     /**
      * Открывает окно с деталями выбранного блюда.
+     * Полный текст рецепта загружается в фоновом потоке только в этот момент.
+     *
+     * @param summary Блюдо, детали которого нужно отобразить.
+     */
+    private void openDishDetails(DishSummary summary) {
+        onFxThread(dishDAO.getDishById(summary.getId()), dish -> {
+            FxStallWatchdog.run("openDishDetails", () -> {
+                if (dish != null) {
+                    showDishDetails(dish);
+                }
+            });
+        });
+    }
+
+    /**
+     * Показывает окно с деталями загруженного блюда.
      *
      * @param dish Блюдо, детали которого нужно отобразить.
      */
-    private void openDishDetails(Dish dish) {
+    private void showDishDetails(Dish dish) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/cookingbook/DishDetails.fxml"));
             Parent root = loader.load();
@@ -172,19 +458,50 @@ public class HelloController {
 
     /**
      * Выполняет поиск блюд по введенному тексту.
+     * Запрос выполняется в фоновом потоке, а в таблицу попадает только результат последнего
+     * запроса, если пользователь тем временем не выбрал другое представление.
+     * Отмена предыдущего запроса только пропускает его, если он еще ждет свободного потока
+     * в очереди {@link AsyncDishDAO}; уже выполняющийся запрос SQLite не прерывается
+     * и доходит до конца, а его результат отбрасывается.
      *
      * @param searchText Текст для поиска.
      */
     private void searchDishes(String searchText) {
-        dishesTable.getItems().clear();
+        if (searchFuture != null) {
+            // Снимает запрос из очереди; выполняющийся запрос не прерывается.
+            searchFuture.cancel(false);
+            searchFuture = null;
+        }
 
         if (searchText.isEmpty()) {
-            List<Dish> allDishes = dishDAO.getAllDishes();
-            dishesTable.getItems().addAll(allDishes);
+            searchStatusLabel.setText("");
+            showPagedDishes(HelloController::loadPageById, ALL_BY_ID);
             return;
         }
 
-        List<Dish> foundDishes = dishDAO.searchDishes(searchText);
-        dishesTable.getItems().addAll(foundDishes);
+        long startTime = System.nanoTime();
+        int generation = viewGeneration;
+        CompletableFuture<List<DishSummary>> future = dishDAO.searchSummaries(searchText);
+        searchFuture = future;
+        onFxThread(future, foundDishes -> {
+            FxStallWatchdog.run("searchDishes", () -> {
+                if (future != searchFuture || generation != viewGeneration) {
+                    return;
+                }
+                searchFuture = null;
+                long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+                viewGeneration++;
+                view = SEARCH_RESULTS;
+                pageLoader = null;
+                dishesTable.getItems().setAll(foundDishes);
+                searchStatusLabel.setText("Найдено: " + foundDishes.size() + " (" + elapsedMillis + " мс)");
+            });
+        }, error -> {
+            if (future == searchFuture) {
+                searchFuture = null;
+                searchStatusLabel.setText("Ошибка поиска");
+            }
+            error.printStackTrace();
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный доступ к DishDAO. Операции выполняются в небольшом фиксированном пуле
+ * обычных потоков и возвращают {@link CompletableFuture}; операции сверх размера пула
+ * ждут своей очереди. Виртуальные потоки здесь не используются: драйвер SQLite выполняет
+ * вызовы JNI внутри {@code synchronized}, и виртуальный поток занимал бы поток-носитель
+ * на все время запроса.
+ * <p>
+ * Если будущий результат отменен до того, как операция начала выполняться,
+ * запрос к базе данных не выполняется.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class AsyncDishDAO {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final Supplier<DishDAO> dishDAOSupplier;
+    private final ExecutorService executor;
+
+    /**
+     * Конструктор для инициализации асинхронного DAO.
+     *
+     * @param dishDAOSupplier Источник DAO. Вызывается в фоновом потоке при первой операции,
+     *                        поэтому открытие базы данных тоже не блокирует вызывающий поток.
+     * @param threads         Количество потоков, то есть одновременных операций; больше, чем
+     *                        соединений с базой данных, не нужно.
+     */
+    public AsyncDishDAO(Supplier<DishDAO> dishDAOSupplier, int threads) {
+        this.dishDAOSupplier = dishDAOSupplier;
+        AtomicInteger number = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "dish-dao-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Выполняет операцию над DAO в фоновом потоке.
+     *
+     * @param operation Операция.
+     * @param <T>       Тип результата.
+     * @return Будущий результат операции; после {@link #shutdown()} завершается
+     * с {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> submit(Function<DishDAO, T> operation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(operation.apply(dishDAOSupplier.get()));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Выполняет операцию без результата над DAO в фоновом потоке.
+     *
+     * @param operation Операция.
+     * @return Будущее завершение операции.
+     */
+    public CompletableFuture<Void> run(Consumer<DishDAO> operation) {
+        return submit(dishDAO -> {
+            operation.accept(dishDAO);
+            return null;
+        });
+    }
+
+    /**
+     * Асинхронно получает страницу кратких представлений блюд, упорядоченных по идентификатору.
+     *
+     * @see DishDAO#getSummariesAfterId(int, int)
+     */
+    public CompletableFuture<List<DishSummary>> getSummariesAfterId(int afterId, int limit) {
+        return submit(dishDAO -> dishDAO.getSummariesAfterId(afterId, limit));
+    }
+
+    /**
+     * Асинхронно получает страницу кратких представлений блюд, упорядоченных по названию.
+     *
+     * @see DishDAO#getSummariesAfterName(String, int, int)
+     */
+    public CompletableFuture<List<DishSummary>> getSummariesAfterName(String afterName, int afterId, int limit) {
+        return submit(dishDAO -> dishDAO.getSummariesAfterName(afterName, afterId, limit));
+    }
+
+    /**
+     * Асинхронно получает страницу кратких представлений блюд, упорядоченных по времени приготовления.
+     *
+     * @see DishDAO#getSummariesByCookingTime(int, int, int, int, int)
+     */
+    public CompletableFuture<List<DishSummary>> getSummariesByCookingTime(int minMinutes, int maxMinutes,
+                                                                          int afterMinutes, int afterId, int limit) {
+        return submit(dishDAO -> dishDAO.getSummariesByCookingTime(minMinutes, maxMinutes, afterMinutes, afterId, limit));
+    }
+
+    /**
+     * Асинхронно получает краткие представления избранных блюд.
+     *
+     * @see DishDAO#getFavoriteSummaries()
+     */
+    public CompletableFuture<List<DishSummary>> getFavoriteSummaries() {
+        return submit(DishDAO::getFavoriteSummaries);
+    }
+
+    /**
+     * Асинхронно получает краткие представления недавно добавленных блюд.
+     *
+     * @see DishDAO#getRecentSummaries()
+     */
+    public CompletableFuture<List<DishSummary>> getRecentSummaries() {
+        return submit(DishDAO::getRecentSummaries);
+    }
+
+    /**
+     * Асинхронно выполняет поиск блюд.
+     *
+     * @see DishDAO#searchSummaries(String)
+     */
+    public CompletableFuture<List<DishSummary>> searchSummaries(String searchText) {
+        return submit(dishDAO -> dishDAO.searchSummaries(searchText));
+    }
+
+    /**
+     * Асинхронно получает блюдо целиком.
+     *
+     * @see DishDAO#getDishById(int)
+     */
+    public CompletableFuture<Dish> getDishById(int id) {
+        return submit(dishDAO -> dishDAO.getDishById(id));
+    }
+
+    /**
+     * Асинхронно добавляет блюдо.
+     *
+     * @see DishDAO#addDish(Dish)
+     */
+    public CompletableFuture<Void> addDish(Dish dish) {
+        return run(dishDAO -> dishDAO.addDish(dish));
+    }
+
+    /**
+     * Асинхронно обновляет блюдо.
+     *
+     * @see DishDAO#updateDish(Dish)
+     */
+    public CompletableFuture<Boolean> updateDish(Dish dish) {
+        return submit(dishDAO -> dishDAO.updateDish(dish));
+    }
+
+    /**
+     * Асинхронно удаляет блюдо.
+     *
+     * @see DishDAO#deleteDish(int)
+     */
+    public CompletableFuture<Boolean> deleteDish(int id) {
+        return submit(dishDAO -> dishDAO.deleteDish(id));
+    }
+
+    /**
+     * Прекращает прием новых операций и ждет завершения уже принятых, чтобы после этого
+     * можно было закрыть базу данных. Вызывается при завершении работы приложения.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Dish operations did not finish in " + SHUTDOWN_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.cookingbook.database;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Итог резервного копирования базы данных.
+ *
+ * @param file    Файл резервной копии.
+ * @param dishes  Количество блюд в копии.
+ * @param bytes   Размер файла копии.
+ * @param elapsed Время копирования вместе с проверкой копии.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record BackupReport(Path file, long dishes, long bytes, Duration elapsed) {
+
+    @Override
+    public String toString() {
+        return String.format("Backed up %d dishes to %s (%d KB) in %d ms",
+                dishes, file, bytes / 1024, elapsed.toMillis());
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.cookingbook.database;
+
+/**
+ * Статистика обращений к кэшу блюд.
+ *
+ * @param hits   Количество запросов, обслуженных из памяти.
+ * @param misses Количество запросов, потребовавших обращения к базе данных.
+ * @param size   Количество блюд в кэше.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record CacheStatistics(long hits, long misses, int size) {
+
+    /**
+     * Доля запросов, обслуженных из памяти.
+     *
+     * @return Значение от 0 до 1.
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,519 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+import com.example.cookingbook.model.IngredientMatch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Кэширующая обертка над DishDAO. При первом обращении загружает краткие представления
+ * всех блюд в память и дальше обслуживает списки и страницы без запросов к базе данных.
+ * Полные блюда с ингредиентами и процессом приготовления кэшируются отдельно: хранятся
+ * только несколько недавно открытых. Записи сначала выполняются в базе данных, затем
+ * применяются к кэшу, после чего изменения рассылаются подписчикам {@link DishChangeNotifier}.
+ * Запись, которую база данных не приняла ({@link DataAccessException}) или которая ничего
+ * не изменила (блюда с таким идентификатором уже нет), не меняет кэш и не рассылается.
+ * Поэтому подписчики - окна, снимок для быстрого запуска - получают только зафиксированные изменения. Записи выполняются по одной, вместе с применением к кэшу, поэтому
+ * кэш и подписчики видят изменения в том же порядке, в каком их зафиксировала база данных.
+ * <p>
+ * Кэш хранит краткие представления по идентификатору, упорядоченные по названию, упорядоченные
+ * по времени приготовления (только блюда с распознанным временем) и отдельный индекс избранных
+ * блюд. Если блюд больше, чем {@code maxEntries}, кэш списков отключается
+ * и все запросы уходят в базу данных. Полнотекстовый поиск и запросы, возвращающие полные
+ * блюда списком, всегда выполняются базой данных.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class CachingDishDAO implements DishDAO {
+
+    private static final int RECENT_DISHES_COUNT = 10;
+    private static final Comparator<NameKey> NAME_ORDER = Comparator
+            .comparing(NameKey::name, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparingInt(NameKey::id);
+    private static final Comparator<TimeKey> TIME_ORDER = Comparator
+            .comparingInt(TimeKey::minutes)
+            .thenComparingInt(TimeKey::id);
+
+    private final DishDAO delegate;
+    private final int maxEntries;
+    private final DishChangeNotifier changeNotifier;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final NavigableMap<Integer, DishSummary> summariesById = new TreeMap<>();
+    private final NavigableMap<NameKey, DishSummary> summariesByName = new TreeMap<>(NAME_ORDER);
+    private final Map<Integer, NameKey> nameKeys = new HashMap<>();
+    private final NavigableMap<TimeKey, DishSummary> summariesByTime = new TreeMap<>(TIME_ORDER);
+    private final NavigableSet<Integer> favoriteIds = new TreeSet<>();
+    private final Map<Integer, Dish> recentBodies;
+    private long bodiesVersion;
+    private boolean loaded;
+    private boolean overflowed;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Конструктор для инициализации кэша.
+     *
+     * @param delegate   DAO, обращающийся к базе данных.
+     * @param maxEntries Максимальное количество блюд, которое кэш держит в памяти.
+     * @param maxBodies  Количество недавно открытых полных блюд, которое хранит кэш.
+     */
+    public CachingDishDAO(DishDAO delegate, int maxEntries, int maxBodies) {
+        this(delegate, maxEntries, maxBodies, new DishChangeNotifier());
+    }
+
+    /**
+     * Конструктор для инициализации кэша, рассылающего изменения блюд.
+     *
+     * @param delegate       DAO, обращающийся к базе данных.
+     * @param maxEntries     Максимальное количество блюд, которое кэш держит в памяти.
+     * @param maxBodies      Количество недавно открытых полных блюд, которое хранит кэш.
+     * @param changeNotifier Получатель изменений, записанных через этот DAO.
+     */
+    public CachingDishDAO(DishDAO delegate, int maxEntries, int maxBodies, DishChangeNotifier changeNotifier) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.changeNotifier = changeNotifier;
+        this.recentBodies = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Dish> eldest) {
+                return size() > maxBodies;
+            }
+        };
+    }
+
+    @Override
+    public List<Dish> getAllDishes() {
+        return delegate.getAllDishes();
+    }
+
+    @Override
+    public List<Dish> getDishesAfterId(int afterId, int limit) {
+        return delegate.getDishesAfterId(afterId, limit);
+    }
+
+    @Override
+    public List<Dish> getDishesAfterName(String afterName, int afterId, int limit) {
+        return delegate.getDishesAfterName(afterName, afterId, limit);
+    }
+
+    @Override
+    public void forEachDish(Consumer<Dish> action) {
+        delegate.forEachDish(action);
+    }
+
+    @Override
+    public void addDish(Dish dish) {
+        writeLock.lock();
+        try {
+            delegate.addDish(dish);
+            DishSummary summary = DishSummary.of(dish);
+            synchronized (this) {
+                if (loaded) {
+                    index(summary);
+                    if (summariesById.size() > maxEntries) {
+                        overflow();
+                    }
+                }
+                changeNotifier.publish(List.of(DishChangeEvent.added(summary)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void addDishes(Collection<Dish> dishes) {
+        addAll(dishes, () -> delegate.addDishes(dishes));
+    }
+
+    @Override
+    public void addImportedDishes(Collection<Dish> dishes, String source, long importedBefore) {
+        addAll(dishes, () -> delegate.addImportedDishes(dishes, source, importedBefore));
+    }
+
+    @Override
+    public long getImportProgress(String source) {
+        return delegate.getImportProgress(source);
+    }
+
+    @Override
+    public void clearImportProgress(String source) {
+        delegate.clearImportProgress(source);
+    }
+
+    /**
+     * Записывает блюда под блокировкой записи и применяет к кэшу те из них, которые база данных приняла.
+     */
+    private void addAll(Collection<Dish> dishes, Runnable insert) {
+        writeLock.lock();
+        try {
+            insert.run();
+        } finally {
+            // Блюда из зафиксированных частей получили идентификаторы, даже если следующая часть
+            // не записалась; они применяются к кэшу, а ошибка передается вызывающему.
+            try {
+                applyAdded(dishes);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean updateDish(Dish dish) {
+        writeLock.lock();
+        try {
+            if (!delegate.updateDish(dish)) {
+                return false;
+            }
+            DishSummary summary = DishSummary.of(dish);
+            synchronized (this) {
+                recentBodies.remove(dish.getId());
+                bodiesVersion++;
+                if (loaded) {
+                    unindex(dish.getId());
+                    index(summary);
+                }
+                changeNotifier.publish(List.of(DishChangeEvent.updated(summary)));
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteDish(int id) {
+        writeLock.lock();
+        try {
+            if (!delegate.deleteDish(id)) {
+                return false;
+            }
+            synchronized (this) {
+                recentBodies.remove(id);
+                bodiesVersion++;
+                if (loaded) {
+                    unindex(id);
+                }
+                changeNotifier.publish(List.of(DishChangeEvent.deleted(id)));
+            }
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Dish> searchDishes(String searchText) {
+        return delegate.searchDishes(searchText);
+    }
+
+    @Override
+    public List<IngredientMatch> findDishesByIngredients(Collection<String> availableIngredients, int maxMissing, int limit) {
+        return delegate.findDishesByIngredients(availableIngredients, maxMissing, limit);
+    }
+
+    @Override
+    public List<Dish> getFavoriteDishes() {
+        return delegate.getFavoriteDishes();
+    }
+
+    @Override
+    public List<Dish> getRecentlyAddedDishes() {
+        return delegate.getRecentlyAddedDishes();
+    }
+
+    @Override
+    public List<Dish> getAlphabeticallySortedDishes() {
+        return delegate.getAlphabeticallySortedDishes();
+    }
+
+    @Override
+    public List<Dish> getDishesByCookingTime(int minMinutes, int maxMinutes) {
+        return delegate.getDishesByCookingTime(minMinutes, maxMinutes);
+    }
+
+    /**
+     * Получает блюдо целиком. Недавно открытые блюда возвращаются из памяти.
+     * Возвращается копия, поэтому изменения блюда до сохранения не попадают в кэш.
+     * Блюдо, прочитанное из базы данных, не кэшируется, если во время чтения какое-либо
+     * блюдо изменилось или было удалено: прочитанная версия может оказаться устаревшей.
+     *
+     * @param id Идентификатор блюда.
+     * @return Блюдо или {@code null}, если блюда с таким идентификатором нет.
+     */
+    @Override
+    public Dish getDishById(int id) {
+        Dish dish;
+        long version;
+        synchronized (this) {
+            dish = recentBodies.get(id);
+            version = bodiesVersion;
+        }
+        if (dish != null) {
+            hits.incrementAndGet();
+            return copy(dish);
+        }
+        misses.incrementAndGet();
+        dish = delegate.getDishById(id);
+        if (dish != null) {
+            synchronized (this) {
+                if (version == bodiesVersion) {
+                    recentBodies.put(id, copy(dish));
+                }
+            }
+        }
+        return dish;
+    }
+
+    @Override
+    public List<DishSummary> getSummariesAfterId(int afterId, int limit) {
+        synchronized (this) {
+            if (ensureLoaded()) {
+                return firstValues(summariesById.tailMap(afterId, false).values().iterator(), limit);
+            }
+        }
+        return delegate.getSummariesAfterId(afterId, limit);
+    }
+
+    @Override
+    public List<DishSummary> getSummariesAfterName(String afterName, int afterId, int limit) {
+        synchronized (this) {
+            if (ensureLoaded()) {
+                NavigableMap<NameKey, DishSummary> tail = afterName == null
+                        ? summariesByName
+                        : summariesByName.tailMap(new NameKey(afterName, afterId), false);
+                return firstValues(tail.values().iterator(), limit);
+            }
+        }
+        return delegate.getSummariesAfterName(afterName, afterId, limit);
+    }
+
+    @Override
+    public List<DishSummary> getSummariesByCookingTime(int minMinutes, int maxMinutes, int afterMinutes, int afterId,
+                                                       int limit) {
+        synchronized (this) {
+            if (ensureLoaded()) {
+                if (minMinutes > maxMinutes) {
+                    return new ArrayList<>();
+                }
+                TimeKey after = new TimeKey(afterMinutes, afterId);
+                TimeKey start = new TimeKey(minMinutes, Integer.MIN_VALUE);
+                boolean afterStart = TIME_ORDER.compare(after, start) >= 0;
+                TimeKey from = afterStart ? after : start;
+                TimeKey end = new TimeKey(maxMinutes, Integer.MAX_VALUE);
+                if (TIME_ORDER.compare(from, end) >= 0) {
+                    return new ArrayList<>();
+                }
+                NavigableMap<TimeKey, DishSummary> range = summariesByTime.subMap(from, !afterStart, end, true);
+                return firstValues(range.values().iterator(), limit);
+            }
+        }
+        return delegate.getSummariesByCookingTime(minMinutes, maxMinutes, afterMinutes, afterId, limit);
+    }
+
+    @Override
+    public List<DishSummary> getFavoriteSummaries() {
+        synchronized (this) {
+            if (ensureLoaded()) {
+                List<DishSummary> favoriteSummaries = new ArrayList<>(favoriteIds.size());
+                for (Integer id : favoriteIds) {
+                    favoriteSummaries.add(summariesById.get(id));
+                }
+                return favoriteSummaries;
+            }
+        }
+        return delegate.getFavoriteSummaries();
+    }
+
+    @Override
+    public List<DishSummary> getRecentSummaries() {
+        synchronized (this) {
+            if (ensureLoaded()) {
+                return firstValues(summariesById.descendingMap().values().iterator(), RECENT_DISHES_COUNT);
+            }
+        }
+        return delegate.getRecentSummaries();
+    }
+
+    @Override
+    public List<DishSummary> searchSummaries(String searchText) {
+        return delegate.searchSummaries(searchText);
+    }
+
+    /**
+     * Сбрасывает кэш. Следующее обращение заново загрузит блюда из базы данных.
+     */
+    public synchronized void invalidate() {
+        clear();
+        recentBodies.clear();
+        bodiesVersion++;
+        loaded = false;
+        overflowed = false;
+    }
+
+    /**
+     * Возвращает статистику обращений к кэшу.
+     *
+     * @return Статистика кэша.
+     */
+    public synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.get(), misses.get(), summariesById.size());
+    }
+
+    /**
+     * Загружает краткие представления в память, если это еще не сделано,
+     * и учитывает обращение в статистике. Если загрузка не удалась, частично загруженные
+     * блюда отбрасываются, и следующее обращение начинает загрузку заново.
+     *
+     * @return {@code true}, если запрос можно обслужить из кэша.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    private boolean ensureLoaded() {
+        if (loaded) {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        if (overflowed) {
+            return false;
+        }
+        int lastId = 0;
+        List<DishSummary> page;
+        do {
+            try {
+                page = delegate.getSummariesAfterId(lastId, maxEntries + 1 - summariesById.size());
+            } catch (DataAccessException e) {
+                clear();
+                throw e;
+            }
+            for (DishSummary summary : page) {
+                index(summary);
+                lastId = summary.getId();
+            }
+            if (summariesById.size() > maxEntries) {
+                overflow();
+                return false;
+            }
+        } while (!page.isEmpty());
+        loaded = true;
+        return true;
+    }
+
+    /**
+     * Применяет к кэшу и рассылает блюда, которым база данных присвоила идентификаторы.
+     */
+    private void applyAdded(Collection<Dish> dishes) {
+        List<DishChangeEvent> events = new ArrayList<>(dishes.size());
+        for (Dish dish : dishes) {
+            if (dish.getId() > 0) {
+                events.add(DishChangeEvent.added(DishSummary.of(dish)));
+            }
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                for (DishChangeEvent event : events) {
+                    index(event.summary());
+                }
+                if (summariesById.size() > maxEntries) {
+                    overflow();
+                }
+            }
+            changeNotifier.publish(events);
+        }
+    }
+
+    private void index(DishSummary summary) {
+        NameKey key = new NameKey(summary.getName(), summary.getId());
+        summariesById.put(summary.getId(), summary);
+        summariesByName.put(key, summary);
+        nameKeys.put(summary.getId(), key);
+        if (summary.getCookingMinutes() >= 0) {
+            summariesByTime.put(new TimeKey(summary.getCookingMinutes(), summary.getId()), summary);
+        }
+        if (summary.isFavorite()) {
+            favoriteIds.add(summary.getId());
+        }
+    }
+
+    /**
+     * Удаляет блюдо из всех индексов. Ключ упорядочивания по названию берется из
+     * сохраненной копии, так как название блюда могло измениться.
+     */
+    private void unindex(int id) {
+        DishSummary summary = summariesById.remove(id);
+        if (summary != null && summary.getCookingMinutes() >= 0) {
+            summariesByTime.remove(new TimeKey(summary.getCookingMinutes(), id));
+        }
+        NameKey key = nameKeys.remove(id);
+        if (key != null) {
+            summariesByName.remove(key);
+        }
+        favoriteIds.remove(id);
+    }
+
+    private void overflow() {
+        System.err.println("Dish cache disabled: more than " + maxEntries + " dishes");
+        clear();
+        loaded = false;
+        overflowed = true;
+    }
+
+    private void clear() {
+        summariesById.clear();
+        summariesByName.clear();
+        nameKeys.clear();
+        summariesByTime.clear();
+        favoriteIds.clear();
+    }
+
+    private static Dish copy(Dish dish) {
+        Dish copy = new Dish(dish.getName(), dish.getCookingTime(), dish.getIngredients(),
+                dish.getCookingProcess(), dish.isFavorite());
+        copy.setId(dish.getId());
+        copy.setSentenceBounds(dish.getSentenceBounds());
+        return copy;
+    }
+
+    private static <T> List<T> firstValues(Iterator<T> iterator, int limit) {
+        List<T> values = new ArrayList<>(Math.min(limit, 256));
+        while (iterator.hasNext() && values.size() < limit) {
+            values.add(iterator.next());
+        }
+        return values;
+    }
+
+    /**
+     * Ключ упорядочивания блюд по названию, совпадающий с {@code ORDER BY name, id}.
+     */
+    private record NameKey(String name, int id) {
+    }
+
+    /**
+     * Ключ упорядочивания блюд по времени приготовления, совпадающий с {@code ORDER BY cooking_minutes, id}.
+     */
+    private record TimeKey(int minutes, int id) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.cookingbook.database;
+
+import java.sql.SQLException;
+
+/**
+ * Ошибка записи в базу данных или чтения, результат которого нельзя заменить пустым.
+ * Транзакция записи, во время которой она произошла, отменена, поэтому изменение
+ * не сохранено и не должно попасть в кэш и в рассылку изменений.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class DataAccessException extends RuntimeException {
+
+    /**
+     * Конструктор исключения.
+     *
+     * @param message Описание операции, которая не выполнена.
+     * @param cause   Ошибка SQLite.
+     */
+    public DataAccessException(String message, SQLException cause) {
+        super(message + ": " + cause.getMessage(), cause);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.cookingbook.database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Резервное копирование открытой базы данных без остановки приложения.
+ * <p>
+ * Копия создается командой {@code VACUUM INTO} через отдельное соединение, поэтому пул
+ * соединений для чтения остается свободным. Для исходной базы в режиме журнала WAL
+ * это обычная транзакция чтения: запись в базу во время копирования не
+ * блокируется, а в копию попадает согласованное состояние на момент начала транзакции.
+ * Копия пишется во временный файл рядом с целевым, проверяется ({@code PRAGMA quick_check})
+ * и только потом заменяет целевой файл, поэтому прерванное копирование не портит
+ * предыдущую копию.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class DatabaseBackup {
+
+    private final DatabaseManager databaseManager;
+
+    /**
+     * Конструктор для инициализации резервного копирования.
+     *
+     * @param databaseManager Менеджер копируемой базы данных.
+     */
+    public DatabaseBackup(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Запускает копирование в фоновом потоке.
+     *
+     * @param target Файл резервной копии; существующий файл заменяется.
+     * @return Будущий итог копирования.
+     */
+    public CompletableFuture<BackupReport> start(Path target) {
+        CompletableFuture<BackupReport> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(backup(target));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, "database-backup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return result;
+    }
+
+    /**
+     * Создает резервную копию в текущем потоке.
+     *
+     * @param target Файл резервной копии; существующий файл заменяется.
+     * @return Итог копирования.
+     * @throws IOException  Если файл копии не удалось записать.
+     * @throws SQLException Если копирование не удалось или копия не прошла проверку.
+     */
+    public BackupReport backup(Path target) throws IOException, SQLException {
+        long startTime = System.nanoTime();
+        Path file = target.toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".part");
+        try {
+            Files.deleteIfExists(temporary);
+            try (Connection connection = databaseManager.openDedicatedConnection();
+                 PreparedStatement statement = connection.prepareStatement("VACUUM INTO ?")) {
+                statement.setString(1, temporary.toString());
+                statement.execute();
+            }
+            long dishes = verify(temporary);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new BackupReport(file, dishes, Files.size(file),
+                    Duration.ofNanos(System.nanoTime() - startTime));
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Проверяет целостность копии.
+     *
+     * @return Количество блюд в копии.
+     */
+    static long verify(Path copy) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + copy);
+             Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("PRAGMA quick_check")) {
+                String status = resultSet.next() ? resultSet.getString(1) : null;
+                if (!"ok".equals(status)) {
+                    throw new SQLException("Backup " + copy + " failed integrity check: " + status);
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM dishes")) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+}
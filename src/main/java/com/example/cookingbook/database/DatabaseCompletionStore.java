@@ -0,0 +1,99 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.openAI.CompletionStore;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Хранит ответы API OpenAI в таблице {@code completion_cache} базы данных приложения.
+ * Чтение идет через пул соединений для чтения, запись - через общее соединение для записи.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class DatabaseCompletionStore implements CompletionStore {
+
+    private static final String SELECT_QUERY =
+            "SELECT response, created_at FROM completion_cache WHERE key = ?";
+    private static final String TOUCH_QUERY =
+            "UPDATE completion_cache SET accessed_at = ? WHERE key = ?";
+    private static final String INSERT_QUERY =
+            "INSERT OR REPLACE INTO completion_cache (key, response, created_at, accessed_at) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_EXPIRED_QUERY =
+            "DELETE FROM completion_cache WHERE created_at < ?";
+    private static final String TRIM_QUERY =
+            "DELETE FROM completion_cache WHERE key IN " +
+                    "(SELECT key FROM completion_cache ORDER BY accessed_at DESC LIMIT -1 OFFSET ?)";
+
+    private final DatabaseManager databaseManager;
+
+    /**
+     * Конструктор хранилища.
+     *
+     * @param databaseManager Менеджер базы данных приложения.
+     */
+    public DatabaseCompletionStore(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    @Override
+    public StoredCompletion load(String key) throws SQLException {
+        Connection connection = databaseManager.acquireReadConnection();
+        try {
+            PreparedStatement select = databaseManager.prepareCached(connection, SELECT_QUERY);
+            select.setString(1, key);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? new StoredCompletion(resultSet.getString(1), resultSet.getLong(2)) : null;
+            }
+        } finally {
+            databaseManager.releaseReadConnection(connection);
+        }
+    }
+
+    @Override
+    public void save(String key, String response, long createdAt) throws SQLException {
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement insert = databaseManager.prepareCached(connection, INSERT_QUERY);
+            insert.setString(1, key);
+            insert.setString(2, response);
+            insert.setLong(3, createdAt);
+            insert.setLong(4, createdAt);
+            insert.executeUpdate();
+        } finally {
+            databaseManager.releaseWriteConnection(connection);
+        }
+    }
+
+    @Override
+    public void touch(String key, long accessedAt) throws SQLException {
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement update = databaseManager.prepareCached(connection, TOUCH_QUERY);
+            update.setLong(1, accessedAt);
+            update.setString(2, key);
+            update.executeUpdate();
+        } finally {
+            databaseManager.releaseWriteConnection(connection);
+        }
+    }
+
+    @Override
+    public void trim(long expiredBefore, int maxEntries) throws SQLException {
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement deleteExpired = databaseManager.prepareCached(connection, DELETE_EXPIRED_QUERY);
+            deleteExpired.setLong(1, expiredBefore);
+            deleteExpired.executeUpdate();
+            PreparedStatement trim = databaseManager.prepareCached(connection, TRIM_QUERY);
+            trim.setInt(1, maxEntries);
+            trim.executeUpdate();
+        } finally {
+            databaseManager.releaseWriteConnection(connection);
+        }
+    }
+}
@@ -1,12 +1,32 @@
 package com.example.cookingbook.database;
 
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.metrics.Operation;
+import com.example.cookingbook.metrics.OperationEvent;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Менеджер базы данных для управления подключением к SQLite базе данных.
- * Предоставляет методы для установления и закрытия соединения с базой данных.
+ * Менеджер базы данных для управления подключениями к SQLite базе данных.
+ * Держит одно соединение для записи и небольшой пул соединений только для чтения,
+ * общий для всего приложения. База работает в режиме журнала WAL, поэтому чтение
+ * не блокируется записью. Для каждого соединения ведется кэш подготовленных запросов.
+ * <p>
+ * Путь к базе данных задается системным свойством {@code cookingbook.db.path},
+ * размер пула чтения - свойством {@code cookingbook.db.readPoolSize}.
+ * Открытие базы данных и ожидание соединений измеряются через {@link Metrics}.
  *
  * @autor Комов Степан
  * @version 1.0
@@ -14,23 +34,136 @@ import java.sql.SQLException;
  */
 public class DatabaseManager {
 
-    private static final String DATABASE_URL = "jdbc:sqlite:C:/Program Files/SQLiteStudio/storage/cookingbook";
+    private static final String DATABASE_PATH_PROPERTY = "cookingbook.db.path";
+    private static final String READ_POOL_SIZE_PROPERTY = "cookingbook.db.readPoolSize";
+    private static final String DEFAULT_DATABASE_PATH = "C:/Program Files/SQLiteStudio/storage/cookingbook";
+    private static final int DEFAULT_READ_POOL_SIZE = 4;
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private static final Operation OPEN = Metrics.operation("DatabaseManager", "open");
+    private static final Operation ACQUIRE_READ = Metrics.operation("DatabaseManager", "acquireReadConnection");
+    private static final Operation ACQUIRE_WRITE = Metrics.operation("DatabaseManager", "acquireWriteConnection");
+
+    private static DatabaseManager instance;
+
+    private final String databasePath;
+    private final String databaseUrl;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final List<Connection> readConnections = new ArrayList<>();
+    private final BlockingQueue<Connection> idleReadConnections;
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
     private Connection connection;
+    private boolean fullTextSearchAvailable;
+
+    /**
+     * Возвращает общий для приложения менеджер базы данных, создавая его при первом обращении.
+     *
+     * @return Менеджер базы данных.
+     */
+    public static synchronized DatabaseManager getInstance() {
+        if (instance == null) {
+            String databasePath = getDatabasePath();
+            instance = new DatabaseManager(databasePath, getReadPoolSize());
+        }
+        return instance;
+    }
 
     /**
-     * Конструктор класса. Устанавливает соединение с базой данных.
+     * Возвращает путь к файлу общей базы данных. База данных при этом не открывается.
+     *
+     * @return Путь из свойства {@code cookingbook.db.path} или путь по умолчанию.
      */
-    public DatabaseManager() {
+    public static String getDatabasePath() {
+        return System.getProperty(DATABASE_PATH_PROPERTY, DEFAULT_DATABASE_PATH);
+    }
+
+    /**
+     * Возвращает размер пула чтения общего менеджера. База данных при этом не открывается.
+     *
+     * @return Количество соединений только для чтения из свойства {@code cookingbook.db.readPoolSize}.
+     */
+    public static int getReadPoolSize() {
+        return Math.max(1, Integer.getInteger(READ_POOL_SIZE_PROPERTY, DEFAULT_READ_POOL_SIZE));
+    }
+
+    /**
+     * Закрывает общий менеджер базы данных, если он был создан.
+     * Вызывается при завершении работы приложения.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.closeConnection();
+            instance = null;
+        }
+    }
+
+    /**
+     * Конструктор класса. Открывает соединение для записи и пул соединений для чтения.
+     * Если база данных не открылась, уже открытые соединения закрываются.
+     *
+     * @param databasePath Путь к файлу базы данных.
+     * @param readPoolSize Количество соединений только для чтения.
+     * @throws DataAccessException Если базу данных не удалось открыть или обновить ее схему.
+     */
+    public DatabaseManager(String databasePath, int readPoolSize) {
+        this.databasePath = databasePath;
+        this.databaseUrl = "jdbc:sqlite:" + databasePath;
+        this.idleReadConnections = new ArrayBlockingQueue<>(Math.max(1, readPoolSize));
+        OperationEvent event = OPEN.start();
         try {
-            connection = DriverManager.getConnection(DATABASE_URL);
-            System.out.println("Connected to the database");
+            connection = DriverManager.getConnection(databaseUrl);
+            applyWritePragmas(connection);
+            statementCaches.put(connection, new StatementCache(connection, STATEMENT_CACHE_SIZE));
+            DatabaseSchema.install(connection);
+            fullTextSearchAvailable = FullTextSearch.isInstalled(connection);
+
+            for (int i = 0; i < Math.max(1, readPoolSize); i++) {
+                Connection readConnection = DriverManager.getConnection(databaseUrl);
+                readConnections.add(readConnection);
+                applyReadPragmas(readConnection);
+                statementCaches.put(readConnection, new StatementCache(readConnection, STATEMENT_CACHE_SIZE));
+                idleReadConnections.add(readConnection);
+            }
+            OPEN.stop(event, readConnections.size() + 1);
+            System.out.println("Database " + databasePath + " opened with " + readConnections.size()
+                    + " read connections");
         } catch (SQLException e) {
-            System.err.println("Error connecting to the database: " + e.getMessage());
+            OPEN.fail(event);
+            closeOpened(e);
+            throw new DataAccessException("Database " + databasePath + " was not opened", e);
         }
     }
 
     /**
-     * Получает текущее соединение с базой данных.
+     * Закрывает соединения, открытые конструктором до ошибки.
+     *
+     * @param failure Ошибка открытия; ошибки закрытия добавляются к ней.
+     */
+    private void closeOpened(SQLException failure) {
+        for (StatementCache statementCache : statementCaches.values()) {
+            statementCache.close();
+        }
+        statementCaches.clear();
+        idleReadConnections.clear();
+        List<Connection> opened = new ArrayList<>(readConnections);
+        if (connection != null) {
+            opened.add(connection);
+        }
+        for (Connection openedConnection : opened) {
+            try {
+                openedConnection.close();
+            } catch (SQLException e) {
+                failure.addSuppressed(e);
+            }
+        }
+        readConnections.clear();
+        connection = null;
+    }
+
+    /**
+     * Получает соединение с базой данных, через которое выполняется запись.
      *
      * @return Соединение с базой данных.
      */
@@ -39,16 +172,197 @@ public class DatabaseManager {
     }
 
     /**
-     * Закрывает соединение с базой данных.
+     * Проверяет, доступен ли полнотекстовый индекс блюд.
+     *
+     * @return {@code true}, если поиск может использовать индекс FTS5.
      */
-    public void closeConnection() {
+    public boolean isFullTextSearchAvailable() {
+        return fullTextSearchAvailable;
+    }
+
+    /**
+     * Захватывает соединение для записи. Одновременно писать может только один поток.
+     * Соединение нужно вернуть через {@link #releaseWriteConnection(Connection)}.
+     *
+     * @return Соединение для записи.
+     */
+    public Connection acquireWriteConnection() {
+        OperationEvent event = ACQUIRE_WRITE.start();
+        writeLock.lock();
+        ACQUIRE_WRITE.stop(event, 1);
+        return connection;
+    }
+
+    /**
+     * Освобождает соединение для записи.
+     *
+     * @param writeConnection Соединение, полученное из {@link #acquireWriteConnection()}.
+     */
+    public void releaseWriteConnection(Connection writeConnection) {
+        if (writeConnection != null && writeLock.isHeldByCurrentThread()) {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Берет из пула соединение только для чтения.
+     * Соединение нужно вернуть через {@link #releaseReadConnection(Connection)}.
+     *
+     * @return Соединение для чтения.
+     * @throws SQLException Если свободное соединение не появилось за отведенное время.
+     */
+    public Connection acquireReadConnection() throws SQLException {
+        OperationEvent event = ACQUIRE_READ.start();
         try {
-            if (connection != null) {
-                connection.close();
-                System.out.println("Connection closed");
+            Connection readConnection = idleReadConnections.poll(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (readConnection == null) {
+                ACQUIRE_READ.fail(event);
+                throw new SQLException("Timed out waiting for a read connection");
             }
+            ACQUIRE_READ.stop(event, 1);
+            return readConnection;
+        } catch (InterruptedException e) {
+            ACQUIRE_READ.fail(event);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+    }
+
+    /**
+     * Возвращает соединение для чтения в пул.
+     *
+     * @param readConnection Соединение, полученное из {@link #acquireReadConnection()}.
+     */
+    public void releaseReadConnection(Connection readConnection) {
+        if (readConnection != null) {
+            idleReadConnections.offer(readConnection);
+        }
+    }
+
+    /**
+     * Открывает отдельное соединение вне пула для долгих служебных операций,
+     * которые не должны занимать соединения пула (например, резервного копирования).
+     * Соединение закрывает вызывающий.
+     *
+     * @return Новое соединение с базой данных.
+     * @throws SQLException Если соединение не удалось открыть.
+     */
+    public Connection openDedicatedConnection() throws SQLException {
+        Connection dedicatedConnection = DriverManager.getConnection(databaseUrl);
+        try (Statement statement = dedicatedConnection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = 5000");
         } catch (SQLException e) {
-            System.err.println("Error closing connection: " + e.getMessage());
+            dedicatedConnection.close();
+            throw e;
+        }
+        return dedicatedConnection;
+    }
+
+    /**
+     * Возвращает подготовленный запрос из кэша соединения, компилируя его при первом обращении.
+     * Запрос можно использовать, пока соединение захвачено текущим потоком. Закрывать запрос
+     * нельзя, а результат его выполнения нужно закрыть до возврата соединения.
+     *
+     * @param owner Соединение, полученное из пула или захваченное для записи.
+     * @param sql   Текст запроса.
+     * @return Подготовленный запрос.
+     * @throws SQLException Если запрос не удалось подготовить.
+     */
+    public PreparedStatement prepareCached(Connection owner, String sql) throws SQLException {
+        StatementCache statementCache = statementCaches.get(owner);
+        if (statementCache == null) {
+            throw new SQLException("Connection is not managed by this DatabaseManager");
+        }
+        return statementCache.prepare(sql);
+    }
+
+    /**
+     * Возвращает количество подготовленных запросов в кэше соединения.
+     *
+     * @param owner Соединение, полученное из пула или захваченное для записи.
+     * @return Количество запросов; 0 для соединения, которым не управляет этот менеджер.
+     */
+    int cachedStatementCount(Connection owner) {
+        StatementCache statementCache = statementCaches.get(owner);
+        return statementCache == null ? 0 : statementCache.size();
+    }
+
+    /**
+     * Закрывает все подготовленные запросы и соединения с базой данных. Сначала захватывает
+     * соединение для записи и ждет возврата соединений для чтения в пул, чтобы не закрыть
+     * соединение посреди запроса. Фоновые задачи, использующие базу данных, должны быть
+     * остановлены до вызова.
+     */
+    public void closeConnection() {
+        writeLock.lock();
+        try {
+            awaitReadConnections();
+            for (StatementCache statementCache : statementCaches.values()) {
+                statementCache.close();
+            }
+            statementCaches.clear();
+            try {
+                for (Connection readConnection : readConnections) {
+                    readConnection.close();
+                }
+                readConnections.clear();
+                idleReadConnections.clear();
+                if (connection != null) {
+                    connection.close();
+                    System.out.println("Database " + databasePath + " closed");
+                }
+            } catch (SQLException e) {
+                System.err.println("Error closing connection: " + e.getMessage());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Забирает из пула все соединения для чтения, дожидаясь тех, что еще заняты.
+     * Соединения, не вернувшиеся за {@value #CLOSE_TIMEOUT_SECONDS} с, закрываются как есть.
+     */
+    private void awaitReadConnections() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+        int returned = 0;
+        try {
+            while (returned < readConnections.size()) {
+                if (idleReadConnections.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS) == null) {
+                    System.err.println("Closing database while " + (readConnections.size() - returned)
+                            + " read connections are still in use");
+                    return;
+                }
+                returned++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Настраивает соединение для записи. Режим WAL сохраняется в файле базы,
+     * остальные параметры действуют до закрытия соединения.
+     */
+    private static void applyWritePragmas(Connection writeConnection) throws SQLException {
+        try (Statement statement = writeConnection.createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL");
+            statement.execute("PRAGMA synchronous = NORMAL");
+            statement.execute("PRAGMA busy_timeout = 5000");
+            statement.execute("PRAGMA temp_store = MEMORY");
+            statement.execute("PRAGMA cache_size = -16000");
+        }
+    }
+
+    /**
+     * Настраивает соединение для чтения и запрещает через него любые изменения.
+     */
+    private static void applyReadPragmas(Connection readConnection) throws SQLException {
+        try (Statement statement = readConnection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = 5000");
+            statement.execute("PRAGMA temp_store = MEMORY");
+            statement.execute("PRAGMA cache_size = -8000");
+            statement.execute("PRAGMA query_only = ON");
         }
     }
-}
\ No newline at end of file
+}
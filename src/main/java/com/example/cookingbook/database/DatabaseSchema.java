@@ -0,0 +1,283 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.DishSummary;
+import com.example.cookingbook.search.CookingTimeParser;
+import com.example.cookingbook.search.IngredientNormalizer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Создает и обновляет структуру базы данных.
+ * <p>
+ * Структура описывается упорядоченным списком миграций; номер последней примененной
+ * миграции хранится в заголовке файла базы данных ({@code PRAGMA user_version}).
+ * При открытии базы применяются только миграции с большими номерами, каждая в своей
+ * транзакции вместе с новым номером версии, поэтому прерванное обновление не оставляет
+ * базу в промежуточном состоянии. Новая миграция добавляется в конец списка; уже выпущенные
+ * миграции не изменяются.
+ * <p>
+ * Базы данных, созданные до появления версий, имеют версию 0 и могут уже содержать часть
+ * таблиц и столбцов, поэтому первые миграции проверяют, что объект еще не создан.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class DatabaseSchema {
+
+    /**
+     * Шаг обновления структуры базы данных. Выполняется внутри транзакции.
+     */
+    @FunctionalInterface
+    private interface Migration {
+        void apply(Connection connection, Statement statement) throws SQLException;
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            DatabaseSchema::createDishesTable,
+            DatabaseSchema::addSentenceBoundsColumn,
+            DatabaseSchema::addCookingMinutesColumn,
+            DatabaseSchema::createIngredientsTable,
+            DatabaseSchema::createCompletionCacheTable,
+            DatabaseSchema::createListIndexes,
+            DatabaseSchema::createImportProgressTable,
+            DatabaseSchema::createFullTextIndex,
+            DatabaseSchema::reparseCookingMinutes);
+
+    /**
+     * Версия структуры, которую ожидает приложение.
+     */
+    static final int VERSION = MIGRATIONS.size();
+
+    private DatabaseSchema() {
+    }
+
+    /**
+     * Применяет миграции, которые еще не были применены к базе данных.
+     *
+     * @param connection Соединение для записи.
+     * @throws SQLException Если миграцию не удалось применить; предыдущие миграции остаются примененными.
+     */
+    static void install(Connection connection) throws SQLException {
+        int version = userVersion(connection);
+        if (version > VERSION) {
+            System.err.println("Database schema version " + version + " is newer than supported version " + VERSION);
+            return;
+        }
+        if (version == VERSION) {
+            return;
+        }
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            for (int next = version + 1; next <= VERSION; next++) {
+                try {
+                    MIGRATIONS.get(next - 1).apply(connection, statement);
+                    statement.execute("PRAGMA user_version = " + next);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        System.out.println("Database schema migrated from version " + version + " to " + VERSION);
+    }
+
+    /**
+     * Возвращает версию структуры базы данных.
+     *
+     * @param connection Соединение с базой данных.
+     * @return Номер последней примененной миграции; 0 для новой базы и баз без версии.
+     * @throws SQLException Если версию не удалось прочитать.
+     */
+    static int userVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Версия 1: таблица блюд в исходном виде.
+     */
+    private static void createDishesTable(Connection connection, Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS dishes (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "name TEXT NOT NULL, " +
+                "cooking_time TEXT, " +
+                "ingredients TEXT, " +
+                "cooking_process TEXT, " +
+                "favorite BOOLEAN NOT NULL DEFAULT 0)");
+    }
+
+    /**
+     * Версия 2: границы предложений процесса приготовления. Значения для существующих блюд
+     * заполняет SentenceBoundsBackfill.
+     */
+    private static void addSentenceBoundsColumn(Connection connection, Statement statement) throws SQLException {
+        if (!columnExists(statement, "dishes", "sentence_bounds")) {
+            statement.execute("ALTER TABLE dishes ADD COLUMN sentence_bounds BLOB");
+        }
+    }
+
+    /**
+     * Версия 3: время приготовления в минутах, заполненное для уже существующих блюд.
+     * Читаются только короткие строки времени, поэтому заполнение выполняется сразу, в транзакции миграции.
+     */
+    private static void addCookingMinutesColumn(Connection connection, Statement statement) throws SQLException {
+        if (columnExists(statement, "dishes", "cooking_minutes")) {
+            return;
+        }
+        statement.execute("ALTER TABLE dishes ADD COLUMN cooking_minutes INTEGER");
+        int dishes = parseCookingMinutes(connection);
+        System.out.println("Cooking time parsed for " + dishes + " dishes");
+    }
+
+    /**
+     * Версия 4: таблица нормализованных ингредиентов, заполненная для уже существующих блюд.
+     */
+    private static void createIngredientsTable(Connection connection, Statement statement) throws SQLException {
+        if (tableExists(statement, "dish_ingredients")) {
+            return;
+        }
+        statement.execute("CREATE TABLE dish_ingredients (" +
+                "ingredient TEXT NOT NULL, " +
+                "dish_id INTEGER NOT NULL, " +
+                "PRIMARY KEY (ingredient, dish_id)) WITHOUT ROWID");
+        statement.execute("CREATE INDEX idx_dish_ingredients_dish ON dish_ingredients (dish_id)");
+        int dishes = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet resultSet = select.executeQuery("SELECT id, ingredients FROM dishes");
+             PreparedStatement insert = connection.prepareStatement(DishDAOImpl.INSERT_INGREDIENT_QUERY)) {
+            while (resultSet.next()) {
+                DishDAOImpl.insertIngredients(insert, resultSet.getInt(1),
+                        IngredientNormalizer.normalize(resultSet.getString(2)));
+                dishes++;
+            }
+        }
+        System.out.println("Ingredient index built for " + dishes + " dishes");
+    }
+
+    /**
+     * Версия 5: кэш ответов OpenAI.
+     */
+    private static void createCompletionCacheTable(Connection connection, Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS completion_cache (" +
+                "key TEXT PRIMARY KEY, " +
+                "response TEXT NOT NULL, " +
+                "created_at INTEGER NOT NULL, " +
+                "accessed_at INTEGER NOT NULL) WITHOUT ROWID");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_completion_cache_accessed ON completion_cache (accessed_at)");
+    }
+
+    /**
+     * Версия 6: индексы для списков блюд.
+     * <p>
+     * Начало списка ингредиентов хранится в отдельном столбце {@code ingredients_preview},
+     * который заполняет DAO при записи, поэтому краткие представления блюд читаются целиком
+     * из покрывающих индексов, без обращения к строкам таблицы с длинным процессом приготовления.
+     * Вычисляемый столбец для этого не подходит: SQLite не читает его значения из индекса.
+     * Индексы повторяют порядок сортировки запросов: по названию (двоичное сравнение,
+     * как в {@code ORDER BY name} и в кэше DAO) и по времени приготовления; частичный индекс
+     * содержит только избранные блюда. Для порядка по идентификатору SQLite и так читает
+     * таблицу по первичному ключу, и отдельный индекс не ускоряет выборку.
+     */
+    private static void createListIndexes(Connection connection, Statement statement) throws SQLException {
+        statement.execute("ALTER TABLE dishes ADD COLUMN ingredients_preview TEXT");
+        statement.execute("UPDATE dishes SET ingredients_preview = substr(ingredients, 1, " +
+                DishSummary.INGREDIENTS_PREVIEW_LENGTH + ")");
+        statement.execute("DROP INDEX IF EXISTS idx_dishes_cooking_minutes");
+        statement.execute("CREATE INDEX idx_dishes_name ON dishes " +
+                "(name COLLATE BINARY, id, cooking_time, ingredients_preview, favorite, cooking_minutes)");
+        statement.execute("CREATE INDEX idx_dishes_cooking_minutes ON dishes " +
+                "(cooking_minutes, id, name, cooking_time, ingredients_preview, favorite)");
+        statement.execute("CREATE INDEX idx_dishes_favorite ON dishes " +
+                "(id, name, cooking_time, ingredients_preview, favorite, cooking_minutes) WHERE favorite = 1");
+    }
+
+    /**
+     * Версия 7: прогресс импорта блюд. DAO обновляет его в транзакции каждой записанной части,
+     * поэтому прерванный импорт продолжается ровно с первого незаписанного блюда.
+     */
+    private static void createImportProgressTable(Connection connection, Statement statement) throws SQLException {
+        statement.execute("CREATE TABLE import_progress (" +
+                "source TEXT PRIMARY KEY, " +
+                "imported INTEGER NOT NULL) WITHOUT ROWID");
+    }
+
+    /**
+     * Версия 8: полнотекстовый индекс блюд FTS5 и поддерживающие его триггеры.
+     * Индекс, созданный раньше при открытии базы, создается заново с текущими настройками.
+     */
+    private static void createFullTextIndex(Connection connection, Statement statement) throws SQLException {
+        FullTextSearch.install(statement);
+    }
+
+    /**
+     * Версия 9: время приготовления в минутах, вычисленное заново. Прежний разбор принимал
+     * за единицы измерения слова, лишь начинающиеся как единица ("часто", "дно").
+     */
+    private static void reparseCookingMinutes(Connection connection, Statement statement) throws SQLException {
+        int dishes = parseCookingMinutes(connection);
+        System.out.println("Cooking time parsed again for " + dishes + " dishes");
+    }
+
+    /**
+     * Записывает в {@code cooking_minutes} время приготовления всех блюд в минутах;
+     * нераспознанное время записывается как NULL.
+     *
+     * @return Количество блюд с распознанным временем.
+     */
+    private static int parseCookingMinutes(Connection connection) throws SQLException {
+        int dishes = 0;
+        int batched = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet resultSet = select.executeQuery("SELECT id, cooking_time FROM dishes");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE dishes SET cooking_minutes = ? WHERE id = ?")) {
+            while (resultSet.next()) {
+                int minutes = CookingTimeParser.parseMinutes(resultSet.getString(2));
+                if (minutes == CookingTimeParser.UNKNOWN) {
+                    update.setNull(1, Types.INTEGER);
+                } else {
+                    update.setInt(1, minutes);
+                    dishes++;
+                }
+                update.setInt(2, resultSet.getInt(1));
+                update.addBatch();
+                if (++batched % 1000 == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        }
+        return dishes;
+    }
+
+    private static boolean columnExists(Statement statement, String table, String column) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (resultSet.next()) {
+                if (column.equalsIgnoreCase(resultSet.getString("name"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean tableExists(Statement statement, String table) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + table + "'")) {
+            return resultSet.next();
+        }
+    }
+}
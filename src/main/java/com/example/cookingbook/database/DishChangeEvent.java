@@ -0,0 +1,64 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.DishSummary;
+
+/**
+ * Изменение блюда, записанное в базу данных.
+ *
+ * @param type    Вид изменения.
+ * @param id      Идентификатор блюда.
+ * @param summary Краткое представление блюда после изменения; {@code null} для удаленного блюда.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record DishChangeEvent(Type type, int id, DishSummary summary) {
+
+    /**
+     * Вид изменения.
+     */
+    public enum Type {
+        /**
+         * Блюдо добавлено.
+         */
+        ADDED,
+        /**
+         * Блюдо изменено.
+         */
+        UPDATED,
+        /**
+         * Блюдо удалено.
+         */
+        DELETED
+    }
+
+    /**
+     * Создает событие добавления блюда.
+     *
+     * @param summary Краткое представление добавленного блюда.
+     * @return Событие.
+     */
+    public static DishChangeEvent added(DishSummary summary) {
+        return new DishChangeEvent(Type.ADDED, summary.getId(), summary);
+    }
+
+    /**
+     * Создает событие изменения блюда.
+     *
+     * @param summary Краткое представление блюда после изменения.
+     * @return Событие.
+     */
+    public static DishChangeEvent updated(DishSummary summary) {
+        return new DishChangeEvent(Type.UPDATED, summary.getId(), summary);
+    }
+
+    /**
+     * Создает событие удаления блюда.
+     *
+     * @param id Идентификатор удаленного блюда.
+     * @return Событие.
+     */
+    public static DishChangeEvent deleted(int id) {
+        return new DishChangeEvent(Type.DELETED, id, null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.cookingbook.database;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Рассылает подписчикам изменения блюд. События одной операции записи (например,
+ * импорта многих блюд) передаются одним списком, чтобы подписчик применил их за один раз.
+ * <p>
+ * Каждый подписчик получает события через свой исполнитель, в том порядке, в котором
+ * они были опубликованы; окна приложения подписываются с исполнителем потока JavaFX.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class DishChangeNotifier {
+
+    private record Subscription(Executor executor, Consumer<? super List<DishChangeEvent>> listener) {
+    }
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Подписывает обработчик на изменения блюд.
+     *
+     * @param executor Исполнитель, в котором вызывается обработчик.
+     * @param listener Обработчик списка изменений.
+     * @return Действие, отменяющее подписку.
+     */
+    public Runnable subscribe(Executor executor, Consumer<? super List<DishChangeEvent>> listener) {
+        Subscription subscription = new Subscription(executor, listener);
+        subscriptions.add(subscription);
+        return () -> subscriptions.remove(subscription);
+    }
+
+    /**
+     * Рассылает изменения всем подписчикам. Ошибка обработчика выводится в стандартный
+     * поток ошибок и не мешает остальным подписчикам.
+     *
+     * @param events Изменения одной операции записи.
+     */
+    void publish(List<DishChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<DishChangeEvent> snapshot = List.copyOf(events);
+        for (Subscription subscription : subscriptions) {
+            subscription.executor().execute(() -> {
+                try {
+                    subscription.listener().accept(snapshot);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.cookingbook.database;
 
 import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+import com.example.cookingbook.model.IngredientMatch;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Интерфейс, определяющий методы для работы с базой данных блюд.
@@ -19,35 +23,124 @@ public interface DishDAO {
      */
     List<Dish> getAllDishes();
 
+    /**
+     * Получает страницу блюд, упорядоченных по идентификатору.
+     * Страница начинается сразу после блюда с идентификатором {@code afterId}.
+     *
+     * @param afterId Идентификатор последнего блюда предыдущей страницы (0 для первой страницы).
+     * @param limit   Максимальное количество блюд на странице.
+     * @return Страница блюд.
+     */
+    List<Dish> getDishesAfterId(int afterId, int limit);
+
+    /**
+     * Получает страницу блюд, упорядоченных по названию, а при совпадении названий - по идентификатору.
+     * Страница начинается сразу после блюда с названием {@code afterName} и идентификатором {@code afterId}.
+     *
+     * @param afterName Название последнего блюда предыдущей страницы ({@code null} для первой страницы).
+     * @param afterId   Идентификатор последнего блюда предыдущей страницы.
+     * @param limit     Максимальное количество блюд на странице.
+     * @return Страница блюд.
+     */
+    List<Dish> getDishesAfterName(String afterName, int afterId, int limit);
+
+    /**
+     * Последовательно передает все блюда в обработчик, не загружая таблицу в память целиком.
+     * Блюда читаются через открытый курсор в порядке идентификаторов.
+     *
+     * @param action Обработчик блюда.
+     * @throws DataAccessException Если блюда не удалось дочитать; часть блюд уже передана в обработчик.
+     */
+    void forEachDish(Consumer<Dish> action);
+
     /**
      * Добавляет новое блюдо в базу данных.
      *
      * @param dish Новое блюдо.
+     * @throws DataAccessException Если блюдо не удалось записать.
      */
     void addDish(Dish dish);
 
+    /**
+     * Добавляет несколько блюд пакетными запросами. Блюда записываются частями,
+     * каждая часть - в отдельной транзакции. После записи части блюдам присваиваются
+     * сгенерированные идентификаторы; у блюд из незаписанной части идентификатор остается 0.
+     *
+     * @param dishes Новые блюда.
+     * @throws DataAccessException Если часть блюд не удалось записать; ранее записанные части остаются в базе.
+     */
+    void addDishes(Collection<Dish> dishes);
+
+    /**
+     * Добавляет блюда из источника импорта так же, как {@link #addDishes}, и вместе с каждой
+     * записанной частью сохраняет, сколько блюд источника уже импортировано. Блюда и прогресс
+     * фиксируются одной транзакцией, поэтому импорт, продолженный после сбоя, не добавляет
+     * блюда второй раз.
+     *
+     * @param dishes         Новые блюда.
+     * @param source         Ключ источника импорта.
+     * @param importedBefore Количество блюд источника, импортированных до этих блюд.
+     * @throws DataAccessException Если часть блюд не удалось записать; ранее записанные части остаются в базе.
+     */
+    void addImportedDishes(Collection<Dish> dishes, String source, long importedBefore);
+
+    /**
+     * Получает количество блюд, уже импортированных из источника.
+     *
+     * @param source Ключ источника импорта.
+     * @return Количество блюд; 0, если импорт источника не начинался или был завершен.
+     * @throws DataAccessException Если прогресс не удалось прочитать.
+     */
+    long getImportProgress(String source);
+
+    /**
+     * Удаляет прогресс завершенного импорта источника.
+     *
+     * @param source Ключ источника импорта.
+     * @throws DataAccessException Если прогресс не удалось удалить.
+     */
+    void clearImportProgress(String source);
+
     /**
      * Обновляет информацию о блюде в базе данных.
      *
      * @param dish Блюдо для обновления.
+     * @return {@code true}, если блюдо обновлено; {@code false}, если блюда с таким идентификатором нет.
+     * @throws DataAccessException Если блюдо не удалось записать.
      */
-    void updateDish(Dish dish);
+    boolean updateDish(Dish dish);
 
     /**
      * Удаляет блюдо из базы данных по его идентификатору.
      *
      * @param id Идентификатор удаляемого блюда.
+     * @return {@code true}, если блюдо удалено; {@code false}, если блюда с таким идентификатором нет.
+     * @throws DataAccessException Если блюдо не удалось удалить.
      */
-    void deleteDish(int id);
+    boolean deleteDish(int id);
 
     /**
      * Выполняет поиск блюд по заданному текстовому запросу.
+     * Ищет в названиях, ингредиентах и процессе приготовления, самые релевантные блюда идут первыми.
+     * Если точных совпадений нет, возвращает блюда, похожие на запрос: с учетом опечаток
+     * и текста, набранного в неверной раскладке клавиатуры.
      *
      * @param searchText Текст запроса для поиска.
      * @return Список найденных блюд.
      */
     List<Dish> searchDishes(String searchText);
 
+    /**
+     * Находит блюда, которые можно приготовить из доступных ингредиентов полностью
+     * или почти полностью.
+     *
+     * @param availableIngredients Доступные ингредиенты.
+     * @param maxMissing           Максимальное количество недостающих ингредиентов.
+     * @param limit                Максимальное количество результатов.
+     * @return Найденные блюда по возрастанию числа недостающих ингредиентов.
+     */
+    List<IngredientMatch> findDishesByIngredients(Collection<String> availableIngredients, int maxMissing, int limit);
+
     /**
      * Получает список избранных блюд из базы данных.
      *
@@ -68,4 +161,85 @@ public interface DishDAO {
      * @return Список блюд, отсортированных по алфавиту.
      */
     List<Dish> getAlphabeticallySortedDishes();
-}
\ No newline at end of file
+
+    /**
+     * Получает блюда, время приготовления которых лежит в заданных пределах,
+     * по возрастанию времени приготовления. Блюда с нераспознанным временем не включаются.
+     *
+     * @param minMinutes Минимальное время приготовления в минутах.
+     * @param maxMinutes Максимальное время приготовления в минутах.
+     * @return Список блюд.
+     */
+    List<Dish> getDishesByCookingTime(int minMinutes, int maxMinutes);
+
+    /**
+     * Получает блюдо целиком по его идентификатору.
+     *
+     * @param id Идентификатор блюда.
+     * @return Блюдо или {@code null}, если блюда с таким идентификатором нет.
+     */
+    Dish getDishById(int id);
+
+    /**
+     * Получает страницу кратких представлений блюд, упорядоченных по идентификатору.
+     *
+     * @param afterId Идентификатор последнего блюда предыдущей страницы (0 для первой страницы).
+     * @param limit   Максимальное количество блюд на странице.
+     * @return Страница кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    List<DishSummary> getSummariesAfterId(int afterId, int limit);
+
+    /**
+     * Получает страницу кратких представлений блюд, упорядоченных по названию и идентификатору.
+     *
+     * @param afterName Название последнего блюда предыдущей страницы ({@code null} для первой страницы).
+     * @param afterId   Идентификатор последнего блюда предыдущей страницы.
+     * @param limit     Максимальное количество блюд на странице.
+     * @return Страница кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    List<DishSummary> getSummariesAfterName(String afterName, int afterId, int limit);
+
+    /**
+     * Получает страницу кратких представлений блюд со временем приготовления в заданных пределах,
+     * упорядоченных по времени приготовления, а при равном времени - по идентификатору.
+     * Страница начинается сразу после блюда со временем {@code afterMinutes} и идентификатором
+     * {@code afterId}; для первой страницы передается {@code afterMinutes = minMinutes, afterId = 0}.
+     * Блюда с нераспознанным временем не включаются.
+     *
+     * @param minMinutes   Минимальное время приготовления в минутах.
+     * @param maxMinutes   Максимальное время приготовления в минутах.
+     * @param afterMinutes Время приготовления последнего блюда предыдущей страницы.
+     * @param afterId      Идентификатор последнего блюда предыдущей страницы.
+     * @param limit        Максимальное количество блюд на странице.
+     * @return Страница кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    List<DishSummary> getSummariesByCookingTime(int minMinutes, int maxMinutes, int afterMinutes, int afterId, int limit);
+
+    /**
+     * Получает краткие представления избранных блюд.
+     *
+     * @return Список кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    List<DishSummary> getFavoriteSummaries();
+
+    /**
+     * Получает краткие представления недавно добавленных блюд.
+     *
+     * @return Список кратких представлений, начиная с самого нового блюда.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    List<DishSummary> getRecentSummaries();
+
+    /**
+     * Выполняет поиск блюд и возвращает краткие представления найденных блюд.
+     * Находит те же блюда, что и {@link #searchDishes(String)}.
+     *
+     * @param searchText Текст запроса для поиска.
+     * @return Список кратких представлений, самые релевантные блюда идут первыми.
+     */
+    List<DishSummary> searchSummaries(String searchText);
+}
@@ -1,20 +1,100 @@
 package com.example.cookingbook.database;
 
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.metrics.Operation;
 import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+import com.example.cookingbook.model.IngredientMatch;
+import com.example.cookingbook.neuralNetwork.Segmentation;
+import com.example.cookingbook.neuralNetwork.TextDivider;
+import com.example.cookingbook.search.CookingTimeParser;
+import com.example.cookingbook.search.FuzzyDishSearch;
+import com.example.cookingbook.search.IngredientIndex;
+import com.example.cookingbook.search.IngredientNormalizer;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Types;
 /**
  * Реализация интерфейса DishDAO для работы с базой данных блюд.
+ * При записи блюда вычисляет разбиение процесса приготовления на предложения и шаги
+ * и сохраняет его вместе с блюдом, чтобы окно рецепта не разбирало текст и не вызывало модель шагов.
+ * Время приготовления также сохраняется в минутах в индексированном столбце cooking_minutes,
+ * по которому выполняются выборки и сортировка по длительности.
  * @autor Комов Степан
  * @version 1.0
  * @since 2024-05-20
  */
 public class DishDAOImpl implements DishDAO{
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int SEARCH_LIMIT = 1000;
+    private static final int FUZZY_SEARCH_LIMIT = 100;
+    private static final int INSERT_BATCH_SIZE = 1000;
+    private static final int RECENT_DISHES_COUNT = 10;
+    private static final String DISH_COLUMNS = "id, name, cooking_time, ingredients, cooking_process, favorite, sentence_bounds";
+    private static final String SUMMARY_COLUMNS = "id, name, cooking_time, ingredients_preview, favorite, cooking_minutes";
+    private static final String INSERT_DISH_QUERY =
+            "INSERT INTO dishes (name, cooking_time, ingredients, cooking_process, favorite, sentence_bounds, " +
+            "cooking_minutes, ingredients_preview) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String SUMMARIES_BY_NAME_QUERY =
+            "SELECT " + SUMMARY_COLUMNS + " FROM dishes ORDER BY name, id LIMIT ?";
+    static final String SUMMARIES_AFTER_NAME_QUERY =
+            "SELECT " + SUMMARY_COLUMNS + " FROM dishes WHERE (name, id) > (?, ?) ORDER BY name, id LIMIT ?";
+    static final String SUMMARIES_BY_COOKING_TIME_QUERY =
+            "SELECT " + SUMMARY_COLUMNS + " FROM dishes WHERE cooking_minutes BETWEEN ? AND ? " +
+            "AND (cooking_minutes, id) > (?, ?) ORDER BY cooking_minutes, id LIMIT ?";
+    static final String FAVORITE_SUMMARIES_QUERY =
+            "SELECT " + SUMMARY_COLUMNS + " FROM dishes WHERE favorite = 1 ORDER BY id";
+    private static final String LAST_INSERT_ID_QUERY = "SELECT last_insert_rowid()";
+    private static final String SAVE_IMPORT_PROGRESS_QUERY =
+            "INSERT OR REPLACE INTO import_progress (source, imported) VALUES (?, ?)";
+    static final String INSERT_INGREDIENT_QUERY =
+            "INSERT OR IGNORE INTO dish_ingredients (ingredient, dish_id) VALUES (?, ?)";
+    private static final Operation SQL_ERRORS = Metrics.operation("Database", "sqlException");
     private final DatabaseManager databaseManager;
+    private final Object searchIndexLock = new Object();
+    /**
+     * Индексы поиска в памяти; {@code null}, пока построение не начато. Завершается значением
+     * {@code null}, если индексы не удалось загрузить из базы данных.
+     */
+    private CompletableFuture<SearchIndexes> searchIndexes;
+    /**
+     * Изменения блюд, зафиксированные во время построения индексов; {@code null} вне построения.
+     */
+    private List<IndexChange> changesDuringBuild;
+
+    /**
+     * Индекс ингредиентов и индекс нечеткого поиска, построенные вместе.
+     */
+    private record SearchIndexes(IngredientIndex ingredients, FuzzyDishSearch fuzzy) {
+    }
+
+    /**
+     * Изменение блюда для индексов поиска. Применение повторяемо: сначала удаляется старое
+     * состояние, затем добавляется новое, поэтому изменение, уже попавшее в прочитанные
+     * из базы данных строки, можно применить еще раз.
+     */
+    private record IndexChange(int dishId, String oldName, List<String> oldIngredients,
+                               String newName, List<String> newIngredients) {
+
+        void applyTo(SearchIndexes indexes) {
+            indexes.ingredients().remove(dishId, oldIngredients);
+            indexes.ingredients().add(dishId, newIngredients);
+            indexes.fuzzy().remove(dishId, oldName);
+            indexes.fuzzy().add(dishId, newName, newIngredients);
+        }
+    }
+
     /**
      * Конструктор для инициализации объекта DishDAOImpl.
      *
@@ -23,6 +103,19 @@ public class DishDAOImpl implements DishDAO{
     public DishDAOImpl(DatabaseManager databaseManager) {
         this.databaseManager = databaseManager;
     }
+    /**
+     * Запускает построение индексов поиска в памяти (ингредиентов и нечеткого поиска)
+     * в фоновом потоке, чтобы первый поиск не ждал их загрузки из базы данных.
+     *
+     * @return Поток, строящий индексы.
+     */
+    public Thread startSearchIndexBuild() {
+        Thread thread = new Thread(this::getSearchIndexes, "search-index");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return thread;
+    }
     /**
      * Получает список всех блюд из базы данных.
      *
@@ -30,153 +123,355 @@ public class DishDAOImpl implements DishDAO{
      */
     @Override
     public List<Dish> getAllDishes() {
-        List<Dish> dishes = new ArrayList<>();
+        return queryList("SELECT " + DISH_COLUMNS + " FROM dishes", RowMapper::dish);
+    }
+    /**
+     * Получает страницу блюд, упорядоченных по идентификатору.
+     *
+     * @param afterId Идентификатор последнего блюда предыдущей страницы (0 для первой страницы).
+     * @param limit   Максимальное количество блюд на странице.
+     * @return Страница блюд.
+     */
+    @Override
+    public List<Dish> getDishesAfterId(int afterId, int limit) {
+        return queryList("SELECT " + DISH_COLUMNS + " FROM dishes WHERE id > ? ORDER BY id LIMIT ?",
+                RowMapper::dish, afterId, limit);
+    }
+    /**
+     * Получает страницу блюд, упорядоченных по названию и идентификатору.
+     *
+     * @param afterName Название последнего блюда предыдущей страницы ({@code null} для первой страницы).
+     * @param afterId   Идентификатор последнего блюда предыдущей страницы.
+     * @param limit     Максимальное количество блюд на странице.
+     * @return Страница блюд.
+     */
+    @Override
+    public List<Dish> getDishesAfterName(String afterName, int afterId, int limit) {
+        if (afterName == null) {
+            return queryList("SELECT " + DISH_COLUMNS + " FROM dishes ORDER BY name, id LIMIT ?",
+                    RowMapper::dish, limit);
+        }
+        return queryList("SELECT " + DISH_COLUMNS + " FROM dishes WHERE (name, id) > (?, ?) ORDER BY name, id LIMIT ?",
+                RowMapper::dish, afterName, afterId, limit);
+    }
+    /**
+     * Последовательно передает все блюда в обработчик через открытый курсор.
+     * Соединение для чтения занято до окончания обхода.
+     *
+     * @param action Обработчик блюда.
+     * @throws DataAccessException Если блюда не удалось дочитать; часть блюд уже передана в обработчик.
+     */
+    @Override
+    public void forEachDish(Consumer<Dish> action) {
         try {
-            String query = "SELECT id, name, cooking_time, ingredients, cooking_process, favorite FROM dishes";
-            PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query);
-            ResultSet resultSet = preparedStatement.executeQuery();
-
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                String cookingTime = resultSet.getString("cooking_time");
-                String ingredients = resultSet.getString("ingredients");
-                String cookingProcess = resultSet.getString("cooking_process");
-                boolean favorite = resultSet.getBoolean("favorite");
-                Dish dish = new Dish(name, cookingTime, ingredients, cookingProcess, favorite);
-                dish.setId(id);
-                dishes.add(dish);
-            }
+            readRows("SELECT " + DISH_COLUMNS + " FROM dishes ORDER BY id", RowMapper::dish, action);
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw readFailed("Dishes were not read to the end", e);
         }
-        return dishes;
     }
     /**
      * Добавляет новое блюдо в базу данных.
      *
      * @param dish Новое блюдо для добавления.
+     * @throws DataAccessException Если блюдо не удалось записать; транзакция отменена.
      */
-
-
     @Override
     public void addDish(Dish dish) {
-        String query = "INSERT INTO dishes (name, cooking_time, ingredients, cooking_process, favorite) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setString(1, dish.getName());
-            preparedStatement.setString(2, dish.getCookingTime());
-            preparedStatement.setString(3, dish.getIngredients());
-            preparedStatement.setString(4, dish.getCookingProcess());
-            preparedStatement.setBoolean(5, dish.isFavorite());
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement preparedStatement = databaseManager.prepareCached(connection, INSERT_DISH_QUERY);
+            bindDish(preparedStatement, dish);
+            connection.setAutoCommit(false);
             preparedStatement.executeUpdate();
 
-            ResultSet rs = preparedStatement.getGeneratedKeys();
-            if (rs.next()) {
-                int generatedId = rs.getInt(1);
-                dish.setId(generatedId);
+            int generatedId = lastInsertId(connection);
+            List<String> ingredients = IngredientNormalizer.normalize(dish.getIngredients());
+            insertIngredients(databaseManager.prepareCached(connection, INSERT_INGREDIENT_QUERY), generatedId, ingredients);
+            connection.commit();
+            dish.setId(generatedId);
+            indexDish(generatedId, null, List.of(), dish.getName(), ingredients);
+        } catch (SQLException e) {
+            rollback(connection);
+            throw writeFailed("Dish was not added", e);
+        } finally {
+            restoreAutoCommit(connection);
+            databaseManager.releaseWriteConnection(connection);
+        }
+    }
+    /**
+     * Добавляет несколько блюд пакетными запросами в транзакциях по {@value #INSERT_BATCH_SIZE} блюд.
+     * Пока транзакция открыта, писать в базу может только этот поток, поэтому идентификаторы
+     * части идут подряд и вычисляются по последнему выданному идентификатору.
+     *
+     * @param dishes Новые блюда для добавления.
+     * @throws DataAccessException Если часть блюд не удалось записать; транзакция этой части отменена,
+     *                             ранее записанные части остаются в базе.
+     */
+    @Override
+    public void addDishes(Collection<Dish> dishes) {
+        insertDishes(dishes, null, 0);
+    }
+    /**
+     * Добавляет блюда из источника импорта, как {@link #addDishes}, и в транзакции каждой части
+     * записывает в таблицу import_progress, сколько блюд источника уже импортировано.
+     *
+     * @param dishes         Новые блюда для добавления.
+     * @param source         Ключ источника импорта.
+     * @param importedBefore Количество блюд источника, импортированных до этих блюд.
+     * @throws DataAccessException Если часть блюд не удалось записать; прогресс остается на последней записанной части.
+     */
+    @Override
+    public void addImportedDishes(Collection<Dish> dishes, String source, long importedBefore) {
+        insertDishes(dishes, source, importedBefore);
+    }
+    /**
+     * Получает количество блюд, импортированных из источника.
+     *
+     * @param source Ключ источника импорта.
+     * @return Количество блюд; 0, если импорт источника не начинался или был завершен.
+     * @throws DataAccessException Если прогресс не удалось прочитать.
+     */
+    @Override
+    public long getImportProgress(String source) {
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement select = databaseManager.prepareCached(connection,
+                    "SELECT imported FROM import_progress WHERE source = ?");
+            select.setString(1, source);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw writeFailed("Import progress was not read", e);
+        } finally {
+            databaseManager.releaseWriteConnection(connection);
+        }
+    }
+    /**
+     * Удаляет прогресс завершенного импорта.
+     *
+     * @param source Ключ источника импорта.
+     * @throws DataAccessException Если прогресс не удалось удалить.
+     */
+    @Override
+    public void clearImportProgress(String source) {
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement delete = databaseManager.prepareCached(connection,
+                    "DELETE FROM import_progress WHERE source = ?");
+            delete.setString(1, source);
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            throw writeFailed("Import progress was not cleared", e);
+        } finally {
+            databaseManager.releaseWriteConnection(connection);
+        }
+    }
+    /**
+     * Записывает блюда частями. Если источник импорта задан, количество импортированных блюд
+     * обновляется в той же транзакции, что и часть, поэтому после сбоя оно не расходится с базой.
+     */
+    private void insertDishes(Collection<Dish> dishes, String source, long importedBefore) {
+        Connection connection = databaseManager.acquireWriteConnection();
+        PreparedStatement preparedStatement = null;
+        long committed = 0;
+        try {
+            preparedStatement = databaseManager.prepareCached(connection, INSERT_DISH_QUERY);
+            PreparedStatement insertIngredient = databaseManager.prepareCached(connection, INSERT_INGREDIENT_QUERY);
+            PreparedStatement saveProgress = source == null ? null
+                    : databaseManager.prepareCached(connection, SAVE_IMPORT_PROGRESS_QUERY);
+            connection.setAutoCommit(false);
+            Iterator<Dish> iterator = dishes.iterator();
+            List<Dish> chunk = new ArrayList<>(Math.min(dishes.size(), INSERT_BATCH_SIZE));
+            while (iterator.hasNext()) {
+                chunk.clear();
+                while (iterator.hasNext() && chunk.size() < INSERT_BATCH_SIZE) {
+                    Dish dish = iterator.next();
+                    bindDish(preparedStatement, dish);
+                    preparedStatement.addBatch();
+                    chunk.add(dish);
+                }
+                preparedStatement.executeBatch();
+                int firstId = lastInsertId(connection) - chunk.size() + 1;
+                List<List<String>> chunkIngredients = new ArrayList<>(chunk.size());
+                for (int i = 0; i < chunk.size(); i++) {
+                    List<String> ingredients = IngredientNormalizer.normalize(chunk.get(i).getIngredients());
+                    insertIngredients(insertIngredient, firstId + i, ingredients);
+                    chunkIngredients.add(ingredients);
+                }
+                if (saveProgress != null) {
+                    saveProgress.setString(1, source);
+                    saveProgress.setLong(2, importedBefore + committed + chunk.size());
+                    saveProgress.executeUpdate();
+                }
+                connection.commit();
+                committed += chunk.size();
+                for (int i = 0; i < chunk.size(); i++) {
+                    chunk.get(i).setId(firstId + i);
+                    indexDish(firstId + i, null, List.of(), chunk.get(i).getName(), chunkIngredients.get(i));
+                }
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            clearBatch(preparedStatement);
+            rollback(connection);
+            throw writeFailed("Batch insert stopped after " + committed + " of " + dishes.size() + " dishes", e);
+        } finally {
+            restoreAutoCommit(connection);
+            databaseManager.releaseWriteConnection(connection);
         }
     }
     /**
      * Обновляет информацию о блюде в базе данных.
      *
      * @param dish Объект блюда с обновленными данными.
+     * @return {@code true}, если блюдо обновлено; {@code false}, если блюда с таким идентификатором нет.
+     * @throws DataAccessException Если блюдо не удалось записать; транзакция отменена.
      */
     @Override
-    public void updateDish(Dish dish) {
-        String query = "UPDATE dishes SET name = ?, cooking_time = ?, ingredients = ?, cooking_process = ?, favorite = ? WHERE id = ?";
-        try (PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query)) {
-            preparedStatement.setString(1, dish.getName());
-            preparedStatement.setString(2, dish.getCookingTime());
-            preparedStatement.setString(3, dish.getIngredients());
-            preparedStatement.setString(4, dish.getCookingProcess());
-            preparedStatement.setBoolean(5, dish.isFavorite());
-            preparedStatement.setInt(6, dish.getId());
-            preparedStatement.executeUpdate();
+    public boolean updateDish(Dish dish) {
+        String query = "UPDATE dishes SET name = ?, cooking_time = ?, ingredients = ?, cooking_process = ?, favorite = ?, " +
+                "sentence_bounds = ?, cooking_minutes = ?, ingredients_preview = ? WHERE id = ?";
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement preparedStatement = databaseManager.prepareCached(connection, query);
+            bindDish(preparedStatement, dish);
+            preparedStatement.setInt(9, dish.getId());
+            connection.setAutoCommit(false);
+            String oldName = selectName(connection, dish.getId());
+            if (preparedStatement.executeUpdate() == 0) {
+                connection.rollback();
+                return false;
+            }
+
+            List<String> oldIngredients = deleteIngredients(connection, dish.getId());
+            List<String> ingredients = IngredientNormalizer.normalize(dish.getIngredients());
+            insertIngredients(databaseManager.prepareCached(connection, INSERT_INGREDIENT_QUERY), dish.getId(), ingredients);
+            connection.commit();
+            indexDish(dish.getId(), oldName, oldIngredients, dish.getName(), ingredients);
+            return true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            rollback(connection);
+            throw writeFailed("Dish " + dish.getId() + " was not updated", e);
+        } finally {
+            restoreAutoCommit(connection);
+            databaseManager.releaseWriteConnection(connection);
         }
     }
     /**
      * Удаляет блюдо из базы данных по его ID.
      *
      * @param id ID блюда для удаления.
+     * @return {@code true}, если блюдо удалено; {@code false}, если блюда с таким идентификатором нет.
+     * @throws DataAccessException Если блюдо не удалось удалить; транзакция отменена.
      */
     @Override
-    public void deleteDish(int id) {
-        String query = "DELETE FROM dishes WHERE id = ?";
-        try (PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query)) {
+    public boolean deleteDish(int id) {
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement preparedStatement = databaseManager.prepareCached(connection, "DELETE FROM dishes WHERE id = ?");
             preparedStatement.setInt(1, id);
-            preparedStatement.executeUpdate();
+            connection.setAutoCommit(false);
+            String oldName = selectName(connection, id);
+            if (preparedStatement.executeUpdate() == 0) {
+                connection.rollback();
+                return false;
+            }
+
+            List<String> oldIngredients = deleteIngredients(connection, id);
+            connection.commit();
+            indexDish(id, oldName, oldIngredients, null, List.of());
+            return true;
         } catch (SQLException e) {
-            e.printStackTrace();
+            rollback(connection);
+            throw writeFailed("Dish " + id + " was not deleted", e);
+        } finally {
+            restoreAutoCommit(connection);
+            databaseManager.releaseWriteConnection(connection);
         }
     }
     /**
      * Ищет блюда в базе данных по заданному тексту.
+     * Поиск выполняется по полнотекстовому индексу названий, ингредиентов и процесса
+     * приготовления; каждое слово запроса ищется как префикс, результаты упорядочены по релевантности.
+     * Если индекс недоступен или в запросе нет ни одного слова, ищется вхождение текста в название.
+     * Если так ничего не найдено, выполняется нечеткий поиск по триграммам названий и ингредиентов
+     * (см. {@link FuzzyDishSearch}): он находит блюда по запросу с опечаткой или в неверной раскладке.
      *
-     * @param searchText Текст для поиска в названиях блюд.
+     * @param searchText Текст для поиска.
      * @return Список найденных блюд.
      */
     @Override
     public List<Dish> searchDishes(String searchText) {
-        List<Dish> foundDishes = new ArrayList<>();
-        try {
-            String query = "SELECT id, name, cooking_time, ingredients, cooking_process, favorite " +
-                    "FROM dishes " +
-                    "WHERE name LIKE ?";
-            PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query);
-            preparedStatement.setString(1, "%" + searchText + "%"); // Используем параметр для поиска совпадений внутри строки
-            ResultSet resultSet = preparedStatement.executeQuery();
+        String matchQuery = FullTextSearch.toMatchQuery(searchText);
+        List<Dish> dishes;
+        if (!databaseManager.isFullTextSearchAvailable() || matchQuery == null) {
+            dishes = queryList("SELECT " + DISH_COLUMNS + " FROM dishes WHERE name LIKE ?",
+                    RowMapper::dish, "%" + searchText + "%");
+        } else {
+            dishes = queryList("SELECT d.id, d.name, d.cooking_time, d.ingredients, d.cooking_process, d.favorite, d.sentence_bounds " +
+                            "FROM dishes_fts JOIN dishes d ON d.id = dishes_fts.rowid " +
+                            "WHERE dishes_fts MATCH ? ORDER BY " + FullTextSearch.RANK + " LIMIT ?",
+                    RowMapper::dish, matchQuery, SEARCH_LIMIT);
+        }
+        return dishes.isEmpty() ? searchSimilar(searchText, DISH_COLUMNS, RowMapper::dish, Dish::getId) : dishes;
+    }
 
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                String cookingTime = resultSet.getString("cooking_time");
-                String ingredients = resultSet.getString("ingredients");
-                String cookingProcess = resultSet.getString("cooking_process");
-                boolean favorite = resultSet.getBoolean("favorite");
-                Dish dish = new Dish(name, cookingTime, ingredients, cookingProcess, favorite);
-                dish.setId(id);
-                foundDishes.add(dish);
+    /**
+     * Находит блюда, которые можно приготовить из доступных ингредиентов.
+     * Поиск выполняется по инвертированному индексу ингредиентов в памяти, который строится
+     * при первом обращении; из базы данных читаются только найденные блюда.
+     *
+     * @param availableIngredients Доступные ингредиенты в свободной форме.
+     * @param maxMissing           Максимальное количество недостающих ингредиентов.
+     * @param limit                Максимальное количество результатов.
+     * @return Найденные блюда по возрастанию числа недостающих ингредиентов.
+     */
+    @Override
+    public List<IngredientMatch> findDishesByIngredients(Collection<String> availableIngredients, int maxMissing, int limit) {
+        List<String> normalized = new ArrayList<>();
+        for (String ingredient : availableIngredients) {
+            String name = IngredientNormalizer.normalizeName(ingredient);
+            if (!name.isEmpty()) {
+                normalized.add(name);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return foundDishes;
+        SearchIndexes indexes = getSearchIndexes();
+        if (indexes == null) {
+            return new ArrayList<>();
+        }
+        List<IngredientIndex.Match> matches = indexes.ingredients().findCovered(normalized, maxMissing, limit);
+        List<IngredientMatch> result = new ArrayList<>(matches.size());
+        if (matches.isEmpty()) {
+            return result;
+        }
+
+        int[] ids = new int[matches.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = matches.get(i).dishId();
+        }
+        Map<Integer, Dish> dishesById = new HashMap<>();
+        forEachRow("SELECT " + DISH_COLUMNS + " FROM dishes WHERE id IN (SELECT value FROM json_each(?))",
+                RowMapper::dish, dish -> dishesById.put(dish.getId(), dish), jsonArray(ids));
+
+        for (IngredientIndex.Match match : matches) {
+            Dish dish = dishesById.get(match.dishId());
+            if (dish != null) {
+                result.add(new IngredientMatch(dish, match.missingCount()));
+            }
+        }
+        return result;
     }
 
     /**
      * Получает список избранных блюд из базы данных.
+     * Условие записано константой, а не параметром: только так SQLite выбирает
+     * частичный индекс избранных блюд.
      *
      * @return Список избранных блюд.
      */
     @Override
     public List<Dish> getFavoriteDishes() {
-        List<Dish> favoriteDishes = new ArrayList<>();
-        try {
-            String query = "SELECT id, name, cooking_time, ingredients, cooking_process, favorite FROM dishes WHERE favorite = ?";
-            PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query);
-            preparedStatement.setBoolean(1, true);
-            ResultSet resultSet = preparedStatement.executeQuery();
-
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                String cookingTime = resultSet.getString("cooking_time");
-                String ingredients = resultSet.getString("ingredients");
-                String cookingProcess = resultSet.getString("cooking_process");
-                boolean favorite = resultSet.getBoolean("favorite");
-                Dish dish = new Dish(name, cookingTime, ingredients, cookingProcess, favorite);
-                dish.setId(id);
-                favoriteDishes.add(dish);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return favoriteDishes;
+        return queryList("SELECT " + DISH_COLUMNS + " FROM dishes WHERE favorite = 1", RowMapper::dish);
     }
     /**
      * Получает список недавно добавленных блюд из базы данных.
@@ -185,55 +480,574 @@ public class DishDAOImpl implements DishDAO{
      */
     @Override
     public List<Dish> getRecentlyAddedDishes() {
-        List<Dish> recentlyAddedDishes = new ArrayList<>();
+        return queryList("SELECT " + DISH_COLUMNS + " FROM dishes ORDER BY id DESC LIMIT ?",
+                RowMapper::dish, RECENT_DISHES_COUNT);
+    }
+    /**
+     * Получает список блюд из базы данных, отсортированных по алфавиту.
+     *
+     * @return Список блюд, отсортированных по алфавиту.
+     */
+    @Override
+    public List<Dish> getAlphabeticallySortedDishes() {
+        return queryList("SELECT " + DISH_COLUMNS + " FROM dishes ORDER BY name", RowMapper::dish);
+    }
+
+    /**
+     * Получает блюда со временем приготовления в заданных пределах по возрастанию времени.
+     * Выборка выполняется по индексу столбца cooking_minutes.
+     *
+     * @param minMinutes Минимальное время приготовления в минутах.
+     * @param maxMinutes Максимальное время приготовления в минутах.
+     * @return Список блюд.
+     */
+    @Override
+    public List<Dish> getDishesByCookingTime(int minMinutes, int maxMinutes) {
+        return queryList("SELECT " + DISH_COLUMNS + " FROM dishes WHERE cooking_minutes BETWEEN ? AND ? " +
+                "ORDER BY cooking_minutes, id", RowMapper::dish, minMinutes, maxMinutes);
+    }
+
+    /**
+     * Получает блюдо целиком по его идентификатору.
+     *
+     * @param id Идентификатор блюда.
+     * @return Блюдо или {@code null}, если блюда с таким идентификатором нет.
+     */
+    @Override
+    public Dish getDishById(int id) {
+        List<Dish> dishes = queryList("SELECT " + DISH_COLUMNS + " FROM dishes WHERE id = ?", RowMapper::dish, id);
+        return dishes.isEmpty() ? null : dishes.get(0);
+    }
+
+    /**
+     * Получает страницу кратких представлений, упорядоченных по идентификатору. Страница
+     * начинается по ключу ({@code id > afterId}), а не по смещению, поэтому SQLite сразу
+     * переходит к нужному месту первичного ключа и дальние страницы читаются так же быстро,
+     * как первая.
+     *
+     * @param afterId Идентификатор последнего блюда предыдущей страницы (0 для первой страницы).
+     * @param limit   Максимальное количество блюд на странице.
+     * @return Страница кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    @Override
+    public List<DishSummary> getSummariesAfterId(int afterId, int limit) {
+        return readList("Dish summaries were not read",
+                "SELECT " + SUMMARY_COLUMNS + " FROM dishes WHERE id > ? ORDER BY id LIMIT ?",
+                RowMapper::summary, afterId, limit);
+    }
+
+    /**
+     * Получает страницу кратких представлений, упорядоченных по названию и идентификатору.
+     * Страница начинается по ключу {@code (name, id) > (afterName, afterId)}; идентификатор
+     * различает блюда с одинаковым названием. Запрос читается из покрывающего индекса
+     * {@code idx_dishes_name} без обращения к строкам таблицы.
+     *
+     * @param afterName Название последнего блюда предыдущей страницы ({@code null} для первой страницы).
+     * @param afterId   Идентификатор последнего блюда предыдущей страницы.
+     * @param limit     Максимальное количество блюд на странице.
+     * @return Страница кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    @Override
+    public List<DishSummary> getSummariesAfterName(String afterName, int afterId, int limit) {
+        if (afterName == null) {
+            return readList("Dish summaries were not read", SUMMARIES_BY_NAME_QUERY, RowMapper::summary, limit);
+        }
+        return readList("Dish summaries were not read", SUMMARIES_AFTER_NAME_QUERY, RowMapper::summary,
+                afterName, afterId, limit);
+    }
+
+    /**
+     * Получает страницу кратких представлений со временем приготовления в заданных пределах,
+     * упорядоченных по времени и идентификатору. Страница начинается по ключу
+     * {@code (cooking_minutes, id) > (afterMinutes, afterId)} и читается из покрывающего
+     * индекса {@code idx_dishes_cooking_minutes}. Блюда с нераспознанным временем
+     * ({@code cooking_minutes IS NULL}) в выборку не попадают.
+     *
+     * @param minMinutes   Минимальное время приготовления в минутах.
+     * @param maxMinutes   Максимальное время приготовления в минутах.
+     * @param afterMinutes Время приготовления последнего блюда предыдущей страницы.
+     * @param afterId      Идентификатор последнего блюда предыдущей страницы.
+     * @param limit        Максимальное количество блюд на странице.
+     * @return Страница кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    @Override
+    public List<DishSummary> getSummariesByCookingTime(int minMinutes, int maxMinutes, int afterMinutes, int afterId,
+                                                       int limit) {
+        return readList("Dish summaries were not read", SUMMARIES_BY_COOKING_TIME_QUERY, RowMapper::summary,
+                minMinutes, maxMinutes, afterMinutes, afterId, limit);
+    }
+
+    /**
+     * Получает краткие представления избранных блюд в порядке идентификаторов. Условие
+     * {@code favorite = 1} совпадает с условием частичного индекса {@code idx_dishes_favorite},
+     * поэтому SQLite читает только избранные блюда из этого индекса, не просматривая таблицу.
+     *
+     * @return Список кратких представлений.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    @Override
+    public List<DishSummary> getFavoriteSummaries() {
+        return readList("Favorite dish summaries were not read", FAVORITE_SUMMARIES_QUERY, RowMapper::summary);
+    }
+
+    /**
+     * Получает краткие представления последних добавленных блюд: первичный ключ читается
+     * с конца, поэтому запрос не сортирует таблицу.
+     *
+     * @return Список кратких представлений, начиная с самого нового блюда.
+     * @throws DataAccessException Если блюда не удалось прочитать.
+     */
+    @Override
+    public List<DishSummary> getRecentSummaries() {
+        return readList("Recent dish summaries were not read",
+                "SELECT " + SUMMARY_COLUMNS + " FROM dishes ORDER BY id DESC LIMIT ?",
+                RowMapper::summary, RECENT_DISHES_COUNT);
+    }
+
+    /**
+     * Выполняет поиск так же, как {@link #searchDishes(String)}, но читает только столбцы
+     * краткого представления: через индекс FTS5 с ранжированием, а без него - по подстроке
+     * названия. Если ничего не найдено, выполняется нечеткий поиск по индексу триграмм.
+     * Ошибка чтения не пробрасывается: выводится, и результат считается пустым.
+     *
+     * @param searchText Текст запроса для поиска.
+     * @return Краткие представления найденных блюд.
+     */
+    @Override
+    public List<DishSummary> searchSummaries(String searchText) {
+        String matchQuery = FullTextSearch.toMatchQuery(searchText);
+        List<DishSummary> summaries;
+        if (!databaseManager.isFullTextSearchAvailable() || matchQuery == null) {
+            summaries = queryList("SELECT " + SUMMARY_COLUMNS + " FROM dishes WHERE name LIKE ?",
+                    RowMapper::summary, "%" + searchText + "%");
+        } else {
+            summaries = queryList("SELECT d.id, d.name, d.cooking_time, d.ingredients_preview, d.favorite, d.cooking_minutes " +
+                            "FROM dishes_fts JOIN dishes d ON d.id = dishes_fts.rowid " +
+                            "WHERE dishes_fts MATCH ? ORDER BY " + FullTextSearch.RANK + " LIMIT ?",
+                    RowMapper::summary, matchQuery, SEARCH_LIMIT);
+        }
+        return summaries.isEmpty()
+                ? searchSimilar(searchText, SUMMARY_COLUMNS, RowMapper::summary, DishSummary::getId)
+                : summaries;
+    }
+
+    /**
+     * Нечеткий поиск: находит похожие блюда в индексе триграмм и читает их из базы данных
+     * в порядке убывания сходства.
+     *
+     * @param searchText    Текст запроса.
+     * @param columns       Читаемые столбцы таблицы dishes.
+     * @param mapperFactory Преобразование строк результата.
+     * @param idOf          Идентификатор блюда прочитанного объекта.
+     * @return Найденные блюда.
+     */
+    private <T> List<T> searchSimilar(String searchText, String columns, RowMapper.Factory<T> mapperFactory,
+                                      ToIntFunction<T> idOf) {
+        SearchIndexes indexes = getSearchIndexes();
+        if (indexes == null) {
+            return new ArrayList<>();
+        }
+        List<FuzzyDishSearch.Match> matches = indexes.fuzzy().find(searchText, FUZZY_SEARCH_LIMIT);
+        List<T> result = new ArrayList<>(matches.size());
+        if (matches.isEmpty()) {
+            return result;
+        }
+        int[] ids = new int[matches.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = matches.get(i).dishId();
+        }
+        Map<Integer, T> rowsById = new HashMap<>();
+        forEachRow("SELECT " + columns + " FROM dishes WHERE id IN (SELECT value FROM json_each(?))",
+                mapperFactory, row -> rowsById.put(idOf.applyAsInt(row), row), jsonArray(ids));
+        for (int id : ids) {
+            T row = rowsById.get(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Записывает идентификаторы массивом JSON для условия {@code id IN (SELECT value FROM json_each(?))}.
+     * Идентификаторы передаются одним параметром, чтобы текст запроса не зависел от их количества
+     * и подготовленный запрос брался из кэша.
+     */
+    private static String jsonArray(int[] ids) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ids.length; i++) {
+            json.append(i == 0 ? "" : ",").append(ids[i]);
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Выполняет запрос на чтение и собирает все строки результата в список.
+     *
+     * @param query         Текст запроса.
+     * @param mapperFactory Преобразование строк результата.
+     * @param parameters    Значения параметров запроса.
+     * @return Объекты, созданные из строк результата.
+     */
+    private <T> List<T> queryList(String query, RowMapper.Factory<T> mapperFactory, Object... parameters) {
+        List<T> rows = new ArrayList<>();
+        forEachRow(query, mapperFactory, rows::add, parameters);
+        return rows;
+    }
+
+    /**
+     * Выполняет запрос на чтение и собирает все строки результата в список. В отличие
+     * от {@link #queryList}, ошибка не заменяется пустым списком.
+     *
+     * @param failure       Описание операции для исключения.
+     * @param query         Текст запроса.
+     * @param mapperFactory Преобразование строк результата.
+     * @param parameters    Значения параметров запроса.
+     * @return Объекты, созданные из строк результата.
+     * @throws DataAccessException Если запрос не удалось выполнить.
+     */
+    private <T> List<T> readList(String failure, String query, RowMapper.Factory<T> mapperFactory,
+                                 Object... parameters) {
+        List<T> rows = new ArrayList<>();
         try {
-            String query = "SELECT id, name, cooking_time, ingredients, cooking_process, favorite FROM dishes ORDER BY id DESC LIMIT 10";
-            PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query);
-            ResultSet resultSet = preparedStatement.executeQuery();
+            readRows(query, mapperFactory, rows::add, parameters);
+        } catch (SQLException e) {
+            throw readFailed(failure, e);
+        }
+        return rows;
+    }
 
-            while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                String cookingTime = resultSet.getString("cooking_time");
-                String ingredients = resultSet.getString("ingredients");
-                String cookingProcess = resultSet.getString("cooking_process");
-                boolean favorite = resultSet.getBoolean("favorite");
-                Dish dish = new Dish(name, cookingTime, ingredients, cookingProcess, favorite);
-                dish.setId(id);
-                recentlyAddedDishes.add(dish);
+    /**
+     * Выполняет запрос на чтение через подготовленный запрос из кэша соединения и передает
+     * строки результата в обработчик. Результат закрывается до возврата соединения в пул,
+     * в том числе если обработчик бросил исключение.
+     *
+     * @param query         Текст запроса.
+     * @param mapperFactory Преобразование строк результата.
+     * @param action        Обработчик объектов, созданных из строк.
+     * @param parameters    Значения параметров запроса.
+     */
+    private <T> void forEachRow(String query, RowMapper.Factory<T> mapperFactory, Consumer<? super T> action,
+                                Object... parameters) {
+        try {
+            readRows(query, mapperFactory, action, parameters);
+        } catch (SQLException e) {
+            reportError(e);
+        }
+    }
+
+    /**
+     * То же, что {@link #forEachRow}, но ошибка чтения пробрасывается вызывающему: часть строк
+     * к этому моменту уже может быть передана в обработчик.
+     *
+     * @throws SQLException Если запрос не удалось выполнить или дочитать.
+     */
+    private <T> void readRows(String query, RowMapper.Factory<T> mapperFactory, Consumer<? super T> action,
+                              Object... parameters) throws SQLException {
+        Connection connection = databaseManager.acquireReadConnection();
+        try {
+            PreparedStatement preparedStatement = databaseManager.prepareCached(connection, query);
+            try {
+                for (int i = 0; i < parameters.length; i++) {
+                    preparedStatement.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    // Драйвер SQLite закрывает пустой результат сразу, поэтому номера столбцов
+                    // ищутся только после получения первой строки.
+                    RowMapper<T> mapper = null;
+                    while (resultSet.next()) {
+                        if (mapper == null) {
+                            mapper = mapperFactory.forResultSet(resultSet);
+                        }
+                        action.accept(mapper.mapRow(resultSet));
+                    }
+                }
+            } catch (SQLException e) {
+                // После ошибки выполнения драйвер может освободить скомпилированный запрос,
+                // не закрыв объект; закрытый запрос кэш подготовит заново.
+                preparedStatement.close();
+                throw e;
             }
+        } finally {
+            databaseManager.releaseReadConnection(connection);
+        }
+    }
+
+    /**
+     * Заполняет первые восемь параметров запроса полями блюда. Если разбиение процесса
+     * приготовления на предложения и шаги еще не вычислено или вычислено для другого текста,
+     * вычисляет его и сохраняет в блюде.
+     * Время приготовления переводится в минуты; нераспознанное время записывается как NULL.
+     * Начало ингредиентов записывается отдельно, чтобы списки блюд читались из покрывающих индексов.
+     */
+    private static void bindDish(PreparedStatement preparedStatement, Dish dish) throws SQLException {
+        if (!Segmentation.isCurrent(dish.getCookingProcess(), dish.getSentenceBounds())) {
+            dish.setSentenceBounds(TextDivider.divide(dish.getCookingProcess()).encode());
+        }
+        preparedStatement.setString(1, dish.getName());
+        preparedStatement.setString(2, dish.getCookingTime());
+        preparedStatement.setString(3, dish.getIngredients());
+        preparedStatement.setString(4, dish.getCookingProcess());
+        preparedStatement.setBoolean(5, dish.isFavorite());
+        preparedStatement.setBytes(6, dish.getSentenceBounds());
+        int cookingMinutes = CookingTimeParser.parseMinutes(dish.getCookingTime());
+        if (cookingMinutes == CookingTimeParser.UNKNOWN) {
+            preparedStatement.setNull(7, Types.INTEGER);
+        } else {
+            preparedStatement.setInt(7, cookingMinutes);
+        }
+        preparedStatement.setString(8, DishSummary.previewOf(dish.getIngredients()));
+    }
+
+    /**
+     * Выводит ошибку базы данных и учитывает ее в статистике: методы DAO не пробрасывают
+     * SQLException, поэтому иначе такие ошибки не видны в метриках.
+     */
+    private static void reportError(SQLException e) {
+        SQL_ERRORS.recordError();
+        e.printStackTrace();
+    }
+
+    /**
+     * Учитывает ошибку записи или чтения прогресса импорта и оборачивает ее для вызывающего.
+     * Транзакция к этому моменту отменена.
+     */
+    private static DataAccessException writeFailed(String message, SQLException e) {
+        SQL_ERRORS.recordError();
+        return new DataAccessException(message, e);
+    }
+
+    /**
+     * Учитывает ошибку чтения, которую вызывающий не должен принять за пустой результат,
+     * и оборачивает ее для вызывающего.
+     */
+    private static DataAccessException readFailed(String message, SQLException e) {
+        SQL_ERRORS.recordError();
+        return new DataAccessException(message, e);
+    }
+
+    /**
+     * Возвращает идентификатор последнего блюда, добавленного через соединение для записи.
+     */
+    private int lastInsertId(Connection connection) throws SQLException {
+        try (ResultSet resultSet = databaseManager.prepareCached(connection, LAST_INSERT_ID_QUERY).executeQuery()) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * Возвращает индексы поиска в памяти. Первый вызов строит их, остальные ждут окончания
+     * построения. Построение не держит {@code searchIndexLock}, поэтому запись блюд не ждет
+     * полного чтения таблиц: изменения, сделанные за это время, запоминаются и применяются
+     * к построенным индексам перед их публикацией.
+     *
+     * @return Индексы или {@code null}, если их не удалось загрузить из базы данных.
+     */
+    private SearchIndexes getSearchIndexes() {
+        CompletableFuture<SearchIndexes> build;
+        boolean builder;
+        synchronized (searchIndexLock) {
+            builder = searchIndexes == null;
+            if (builder) {
+                searchIndexes = new CompletableFuture<>();
+                changesDuringBuild = new ArrayList<>();
+            }
+            build = searchIndexes;
+        }
+        if (builder) {
+            buildSearchIndexes(build);
+        }
+        return build.join();
+    }
+
+    /**
+     * Загружает индекс ингредиентов из таблицы dish_ingredients и индекс нечеткого поиска
+     * из названий блюд, затем под блокировкой применяет изменения, сделанные во время загрузки,
+     * и публикует индексы. Ошибка базы данных сообщается один раз: поиск по индексам
+     * после нее возвращает пустой результат.
+     */
+    private void buildSearchIndexes(CompletableFuture<SearchIndexes> build) {
+        SearchIndexes indexes;
+        try {
+            IngredientIndex ingredients = loadIngredientIndex();
+            FuzzyDishSearch fuzzy = new FuzzyDishSearch(ingredients);
+            loadDishNames(fuzzy);
+            indexes = new SearchIndexes(ingredients, fuzzy);
         } catch (SQLException e) {
-            e.printStackTrace();
+            reportError(e);
+            indexes = null;
+        } catch (RuntimeException | Error e) {
+            synchronized (searchIndexLock) {
+                searchIndexes = null;
+                changesDuringBuild = null;
+            }
+            build.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (searchIndexLock) {
+            if (indexes != null) {
+                for (IndexChange change : changesDuringBuild) {
+                    change.applyTo(indexes);
+                }
+            }
+            changesDuringBuild = null;
+            build.complete(indexes);
+        }
+    }
+
+    private IngredientIndex loadIngredientIndex() throws SQLException {
+        IngredientIndex index = new IngredientIndex();
+        String query = "SELECT dish_id, ingredient FROM dish_ingredients ORDER BY dish_id";
+        Connection connection = databaseManager.acquireReadConnection();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setFetchSize(STREAM_FETCH_SIZE);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                int currentDishId = -1;
+                List<String> ingredients = new ArrayList<>();
+                while (resultSet.next()) {
+                    int dishId = resultSet.getInt(1);
+                    if (dishId != currentDishId && !ingredients.isEmpty()) {
+                        index.add(currentDishId, ingredients);
+                        ingredients.clear();
+                    }
+                    currentDishId = dishId;
+                    ingredients.add(resultSet.getString(2));
+                }
+                if (!ingredients.isEmpty()) {
+                    index.add(currentDishId, ingredients);
+                }
+            }
+        } finally {
+            databaseManager.releaseReadConnection(connection);
+        }
+        index.optimize();
+        return index;
+    }
+
+    private void loadDishNames(FuzzyDishSearch search) throws SQLException {
+        Connection connection = databaseManager.acquireReadConnection();
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT id, name FROM dishes ORDER BY id")) {
+            preparedStatement.setFetchSize(STREAM_FETCH_SIZE);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    search.add(resultSet.getInt(1), resultSet.getString(2), List.of());
+                }
+            }
+        } finally {
+            databaseManager.releaseReadConnection(connection);
         }
-        return recentlyAddedDishes;
+        search.optimize();
     }
+
     /**
-     * Получает список блюд из базы данных, отсортированных по алфавиту.
+     * Применяет изменение блюда к индексам поиска в памяти, если они уже загружены,
+     * или запоминает его, если индексы строятся. Вызывается после фиксации транзакции.
      *
-     * @return Список блюд, отсортированных по алфавиту.
+     * @param oldName Название блюда до изменения ({@code null} для нового блюда).
+     * @param newName Название блюда после изменения ({@code null} для удаленного блюда).
      */
-    @Override
-    public List<Dish> getAlphabeticallySortedDishes() {
-        List<Dish> alphabeticallySortedDishes = new ArrayList<>();
+    private void indexDish(int dishId, String oldName, List<String> oldIngredients,
+                           String newName, List<String> newIngredients) {
+        IndexChange change = new IndexChange(dishId, oldName, oldIngredients, newName, newIngredients);
+        synchronized (searchIndexLock) {
+            if (changesDuringBuild != null) {
+                changesDuringBuild.add(change);
+                return;
+            }
+            SearchIndexes indexes = searchIndexes == null ? null : searchIndexes.getNow(null);
+            if (indexes != null) {
+                change.applyTo(indexes);
+            }
+        }
+    }
+
+    /**
+     * Записывает нормализованные ингредиенты блюда в таблицу dish_ingredients.
+     *
+     * @param insert Подготовленный запрос {@link #INSERT_INGREDIENT_QUERY}.
+     */
+    static void insertIngredients(PreparedStatement insert, int dishId, List<String> ingredients) throws SQLException {
+        if (ingredients.isEmpty()) {
+            return;
+        }
         try {
-            String query = "SELECT id, name, cooking_time, ingredients, cooking_process, favorite FROM dishes ORDER BY name";
-            PreparedStatement preparedStatement = databaseManager.getConnection().prepareStatement(query);
-            ResultSet resultSet = preparedStatement.executeQuery();
+            for (String ingredient : ingredients) {
+                insert.setString(1, ingredient);
+                insert.setInt(2, dishId);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        } catch (SQLException e) {
+            clearBatch(insert);
+            throw e;
+        }
+    }
 
+    /**
+     * Читает текущее название блюда, чтобы убрать его из индекса нечеткого поиска.
+     *
+     * @return Название или {@code null}, если блюда нет.
+     */
+    private String selectName(Connection connection, int dishId) throws SQLException {
+        PreparedStatement select = databaseManager.prepareCached(connection, "SELECT name FROM dishes WHERE id = ?");
+        select.setInt(1, dishId);
+        try (ResultSet resultSet = select.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    /**
+     * Удаляет ингредиенты блюда из таблицы dish_ingredients.
+     *
+     * @return Удаленные ингредиенты.
+     */
+    private List<String> deleteIngredients(Connection connection, int dishId) throws SQLException {
+        List<String> ingredients = new ArrayList<>();
+        PreparedStatement select = databaseManager.prepareCached(connection,
+                "SELECT ingredient FROM dish_ingredients WHERE dish_id = ?");
+        select.setInt(1, dishId);
+        try (ResultSet resultSet = select.executeQuery()) {
             while (resultSet.next()) {
-                int id = resultSet.getInt("id");
-                String name = resultSet.getString("name");
-                String cookingTime = resultSet.getString("cooking_time");
-                String ingredients = resultSet.getString("ingredients");
-                String cookingProcess = resultSet.getString("cooking_process");
-                boolean favorite = resultSet.getBoolean("favorite");
-                Dish dish = new Dish(name, cookingTime, ingredients, cookingProcess, favorite);
-                dish.setId(id);
-                alphabeticallySortedDishes.add(dish);
+                ingredients.add(resultSet.getString(1));
+            }
+        }
+        PreparedStatement delete = databaseManager.prepareCached(connection,
+                "DELETE FROM dish_ingredients WHERE dish_id = ?");
+        delete.setInt(1, dishId);
+        delete.executeUpdate();
+        return ingredients;
+    }
+
+    private static void clearBatch(PreparedStatement preparedStatement) {
+        if (preparedStatement == null) {
+            return;
+        }
+        try {
+            preparedStatement.clearBatch();
+        } catch (SQLException e) {
+            reportError(e);
+        }
+    }
+
+    private static void rollback(Connection connection) {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            reportError(e);
+        }
+    }
+
+    private static void restoreAutoCommit(Connection connection) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            reportError(e);
         }
-        return alphabeticallySortedDishes;
     }
-}
\ No newline at end of file
+}
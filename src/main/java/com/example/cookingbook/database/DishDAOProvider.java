@@ -0,0 +1,154 @@
+package com.example.cookingbook.database;
+
+/**
+ * Предоставляет общий для всех окон приложения экземпляр DishDAO.
+ * Все контроллеры работают через один кэш, поэтому изменение, сделанное в одном окне,
+ * сразу видно в остальных, а окна узнают о нем через общий {@link DishChangeNotifier}.
+ * <p>
+ * Размер кэша задается системным свойством {@code cookingbook.cache.maxEntries},
+ * количество недавно открытых рецептов в кэше - свойством {@code cookingbook.cache.recentDishes},
+ * количество блюд в снимке для быстрого запуска - свойством {@code cookingbook.snapshot.rows}.
+ * Асинхронных операций одновременно выполняется не больше, чем соединений с базой данных.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class DishDAOProvider {
+
+    private static final String CACHE_SIZE_PROPERTY = "cookingbook.cache.maxEntries";
+    private static final int DEFAULT_CACHE_SIZE = 200_000;
+    private static final String RECENT_DISHES_PROPERTY = "cookingbook.cache.recentDishes";
+    private static final int DEFAULT_RECENT_DISHES = 32;
+    private static final String SNAPSHOT_ROWS_PROPERTY = "cookingbook.snapshot.rows";
+    private static final int DEFAULT_SNAPSHOT_ROWS = 200;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private static final DishChangeNotifier CHANGE_NOTIFIER = new DishChangeNotifier();
+
+    private static CachingDishDAO cachingDishDAO;
+    private static DishDAO dishDAO;
+    private static AsyncDishDAO asyncDishDAO;
+    private static StartupSnapshot startupSnapshot;
+    private static Thread backfillThread;
+    private static Thread searchIndexThread;
+
+    private DishDAOProvider() {
+    }
+
+    /**
+     * Возвращает общий DAO, создавая его при первом обращении.
+     * При создании запускает фоновое заполнение границ предложений для старых блюд
+     * и фоновое построение индексов поиска в памяти.
+     * Вызовы измеряются дважды: компонент {@code DishDAO} - то, что видят окна приложения
+     * (с учетом кэша), компонент {@code Database} - запросы, дошедшие до базы данных.
+     *
+     * @return DAO для работы с блюдами.
+     */
+    public static synchronized DishDAO getDishDAO() {
+        if (dishDAO == null) {
+            int maxEntries = Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE);
+            int maxBodies = Integer.getInteger(RECENT_DISHES_PROPERTY, DEFAULT_RECENT_DISHES);
+            DatabaseManager databaseManager = DatabaseManager.getInstance();
+            DishDAOImpl dishDAOImpl = new DishDAOImpl(databaseManager);
+            DishDAO database = new InstrumentedDishDAO(dishDAOImpl, "Database");
+            cachingDishDAO = new CachingDishDAO(database, maxEntries, maxBodies, CHANGE_NOTIFIER);
+            dishDAO = new InstrumentedDishDAO(cachingDishDAO, "DishDAO");
+            backfillThread = new SentenceBoundsBackfill(databaseManager).start();
+            searchIndexThread = dishDAOImpl.startSearchIndexBuild();
+            getStartupSnapshot().keepUpdated(dishDAO, CHANGE_NOTIFIER);
+        }
+        return dishDAO;
+    }
+
+    /**
+     * Возвращает снимок первой страницы блюд для быстрого запуска. База данных при этом
+     * не открывается; после открытия базы снимок обновляется при изменениях блюд.
+     *
+     * @return Снимок первой страницы блюд.
+     */
+    public static synchronized StartupSnapshot getStartupSnapshot() {
+        if (startupSnapshot == null) {
+            int rows = Integer.getInteger(SNAPSHOT_ROWS_PROPERTY, DEFAULT_SNAPSHOT_ROWS);
+            startupSnapshot = new StartupSnapshot(StartupSnapshot.fileFor(DatabaseManager.getDatabasePath()), rows);
+        }
+        return startupSnapshot;
+    }
+
+    /**
+     * Записывает снимок первой страницы блюд, если база данных была открыта.
+     * Вызывается при завершении работы приложения до закрытия базы данных.
+     */
+    public static synchronized void saveStartupSnapshot() {
+        if (dishDAO != null) {
+            getStartupSnapshot().saveAndClose(dishDAO);
+        }
+    }
+
+    /**
+     * Возвращает общий асинхронный DAO. Создание самого DAO и открытие базы данных
+     * происходят в фоновом потоке при первой операции. Потоков столько же, сколько
+     * соединений с базой данных: пул чтения и соединение для записи.
+     *
+     * @return Асинхронный DAO для работы с блюдами.
+     */
+    public static synchronized AsyncDishDAO getAsyncDishDAO() {
+        if (asyncDishDAO == null) {
+            asyncDishDAO = new AsyncDishDAO(DishDAOProvider::getDishDAO, DatabaseManager.getReadPoolSize() + 1);
+        }
+        return asyncDishDAO;
+    }
+
+    /**
+     * Останавливает все, что обращается к базе данных через общий DAO: асинхронный DAO
+     * (с ожиданием начатых операций), фоновое заполнение разбиения на шаги (останавливается
+     * после текущей части) и построение индексов поиска (дожидается его окончания).
+     * Вызывается при завершении работы приложения до закрытия базы данных.
+     */
+    public static synchronized void shutdown() {
+        if (asyncDishDAO != null) {
+            asyncDishDAO.shutdown();
+            asyncDishDAO = null;
+        }
+        if (backfillThread != null) {
+            backfillThread.interrupt();
+        }
+        join(backfillThread);
+        join(searchIndexThread);
+        backfillThread = null;
+        searchIndexThread = null;
+    }
+
+    private static void join(Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            if (thread.isAlive()) {
+                System.err.println("Thread " + thread.getName() + " did not stop in " + SHUTDOWN_TIMEOUT_MILLIS + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Возвращает рассыльщик изменений блюд, записанных через общий DAO. Подписка
+     * не открывает базу данных.
+     *
+     * @return Рассыльщик изменений.
+     */
+    public static DishChangeNotifier getChangeNotifier() {
+        return CHANGE_NOTIFIER;
+    }
+
+    /**
+     * Возвращает статистику общего кэша блюд.
+     *
+     * @return Статистика кэша или {@code null}, если DAO еще не создан.
+     */
+    public static synchronized CacheStatistics getCacheStatistics() {
+        return cachingDishDAO == null ? null : cachingDishDAO.getStatistics();
+    }
+}
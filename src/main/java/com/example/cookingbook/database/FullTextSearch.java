@@ -0,0 +1,130 @@
+package com.example.cookingbook.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Полнотекстовый индекс блюд на основе виртуальной таблицы SQLite FTS5.
+ * Индекс покрывает название, ингредиенты и процесс приготовления и поддерживается
+ * триггерами при добавлении, изменении и удалении блюд. Индекс и триггеры создает
+ * миграция {@link DatabaseSchema}, поэтому версия базы данных описывает и их.
+ * <p>
+ * Таблица индекса не хранит копию текста (contentless): в нее попадает текст,
+ * в котором буква "ё" заменена на "е", поэтому "свекла" находит "свёклу".
+ * Регистр кириллицы приводится токенизатором unicode61. Снятие диакритических знаков
+ * токенизатором отключено ({@code remove_diacritics 0}): оно не должно превращать "й" в "и",
+ * иначе запрос "мой" находил бы "мои". Единственное нужное приведение, "ё" к "е", выполняется
+ * явно и в тексте, и в запросе.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class FullTextSearch {
+
+    /**
+     * Веса столбцов для функции ранжирования bm25: название, ингредиенты, процесс приготовления.
+     */
+    static final String RANK = "bm25(dishes_fts, 10.0, 3.0, 1.0)";
+
+    private static final String TOKENIZER = "unicode61 remove_diacritics 0";
+
+    private FullTextSearch() {
+    }
+
+    /**
+     * Создает индекс и триггеры и заполняет индекс уже существующими блюдами. Индекс,
+     * созданный раньше вне миграций (в том числе с другими настройками токенизатора),
+     * удаляется и создается заново. Вызывается миграцией {@link DatabaseSchema} внутри ее транзакции.
+     *
+     * @param statement Запрос соединения для записи.
+     * @throws SQLException Если индекс не удалось создать.
+     */
+    static void install(Statement statement) throws SQLException {
+        statement.execute("DROP TRIGGER IF EXISTS dishes_fts_insert");
+        statement.execute("DROP TRIGGER IF EXISTS dishes_fts_delete");
+        statement.execute("DROP TRIGGER IF EXISTS dishes_fts_update");
+        statement.execute("DROP TABLE IF EXISTS dishes_fts");
+        statement.execute("CREATE VIRTUAL TABLE dishes_fts USING fts5(" +
+                "name, ingredients, cooking_process, " +
+                "content='', tokenize='" + TOKENIZER + "')");
+        statement.execute("CREATE TRIGGER dishes_fts_insert AFTER INSERT ON dishes BEGIN " +
+                "INSERT INTO dishes_fts(rowid, name, ingredients, cooking_process) VALUES (" +
+                "new.id, " + fold("new.name") + ", " + fold("new.ingredients") + ", " +
+                fold("new.cooking_process") + "); END");
+        statement.execute("CREATE TRIGGER dishes_fts_delete AFTER DELETE ON dishes BEGIN " +
+                deleteRow() + " END");
+        statement.execute("CREATE TRIGGER dishes_fts_update AFTER UPDATE OF name, ingredients, cooking_process ON dishes BEGIN " +
+                deleteRow() +
+                " INSERT INTO dishes_fts(rowid, name, ingredients, cooking_process) VALUES (" +
+                "new.id, " + fold("new.name") + ", " + fold("new.ingredients") + ", " +
+                fold("new.cooking_process") + "); END");
+        int indexed = statement.executeUpdate("INSERT INTO dishes_fts(rowid, name, ingredients, cooking_process) " +
+                "SELECT id, " + fold("name") + ", " + fold("ingredients") + ", " + fold("cooking_process") +
+                " FROM dishes");
+        System.out.println("Full-text index built for " + indexed + " dishes");
+    }
+
+    /**
+     * Проверяет, что индекс создан.
+     *
+     * @param connection Соединение с базой данных.
+     * @return {@code true}, если таблица индекса есть в базе данных.
+     */
+    static boolean isInstalled(Connection connection) {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'dishes_fts'")) {
+            return resultSet.next();
+        } catch (SQLException e) {
+            System.err.println("Full-text search is unavailable: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Преобразует пользовательский запрос в выражение FTS5 MATCH. Каждое слово запроса
+     * ищется как префикс, все слова должны встретиться в блюде.
+     *
+     * @param searchText Текст запроса.
+     * @return Выражение MATCH или {@code null}, если в запросе нет ни одного слова.
+     */
+    static String toMatchQuery(String searchText) {
+        StringBuilder query = new StringBuilder();
+        int length = searchText.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && !Character.isLetterOrDigit(searchText.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(searchText.charAt(i))) {
+                i++;
+            }
+            if (i > start) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append('"');
+                for (int j = start; j < i; j++) {
+                    char c = searchText.charAt(j);
+                    query.append(c == 'ё' ? 'е' : c == 'Ё' ? 'Е' : c);
+                }
+                query.append("\"*");
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    private static String deleteRow() {
+        return "INSERT INTO dishes_fts(dishes_fts, rowid, name, ingredients, cooking_process) VALUES (" +
+                "'delete', old.id, " + fold("old.name") + ", " + fold("old.ingredients") + ", " +
+                fold("old.cooking_process") + ");";
+    }
+
+    private static String fold(String column) {
+        return "replace(replace(coalesce(" + column + ", ''), 'ё', 'е'), 'Ё', 'Е')";
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.metrics.Operation;
+import com.example.cookingbook.metrics.OperationEvent;
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+import com.example.cookingbook.model.IngredientMatch;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Обертка над DishDAO, которая измеряет каждый вызов через {@link Metrics}: количество
+ * вызовов и строк, длительность и события JDK Flight Recorder. Операции называются по
+ * методам DAO и относятся к компоненту, имя которого передается в конструкторе, поэтому
+ * одна и та же реализация может измеряться на разных уровнях (например, кэш и база данных).
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class InstrumentedDishDAO implements DishDAO {
+
+    private final DishDAO delegate;
+    private final Operation getAllDishes;
+    private final Operation getDishesAfterId;
+    private final Operation getDishesAfterName;
+    private final Operation forEachDish;
+    private final Operation addDish;
+    private final Operation addDishes;
+    private final Operation addImportedDishes;
+    private final Operation getImportProgress;
+    private final Operation clearImportProgress;
+    private final Operation updateDish;
+    private final Operation deleteDish;
+    private final Operation searchDishes;
+    private final Operation findDishesByIngredients;
+    private final Operation getFavoriteDishes;
+    private final Operation getRecentlyAddedDishes;
+    private final Operation getAlphabeticallySortedDishes;
+    private final Operation getDishesByCookingTime;
+    private final Operation getDishById;
+    private final Operation getSummariesAfterId;
+    private final Operation getSummariesAfterName;
+    private final Operation getSummariesByCookingTime;
+    private final Operation getFavoriteSummaries;
+    private final Operation getRecentSummaries;
+    private final Operation searchSummaries;
+
+    /**
+     * Конструктор обертки.
+     *
+     * @param delegate  Измеряемый DAO.
+     * @param component Имя компонента в статистике и событиях.
+     */
+    public InstrumentedDishDAO(DishDAO delegate, String component) {
+        this.delegate = delegate;
+        this.getAllDishes = Metrics.operation(component, "getAllDishes");
+        this.getDishesAfterId = Metrics.operation(component, "getDishesAfterId");
+        this.getDishesAfterName = Metrics.operation(component, "getDishesAfterName");
+        this.forEachDish = Metrics.operation(component, "forEachDish");
+        this.addDish = Metrics.operation(component, "addDish");
+        this.addDishes = Metrics.operation(component, "addDishes");
+        this.addImportedDishes = Metrics.operation(component, "addImportedDishes");
+        this.getImportProgress = Metrics.operation(component, "getImportProgress");
+        this.clearImportProgress = Metrics.operation(component, "clearImportProgress");
+        this.updateDish = Metrics.operation(component, "updateDish");
+        this.deleteDish = Metrics.operation(component, "deleteDish");
+        this.searchDishes = Metrics.operation(component, "searchDishes");
+        this.findDishesByIngredients = Metrics.operation(component, "findDishesByIngredients");
+        this.getFavoriteDishes = Metrics.operation(component, "getFavoriteDishes");
+        this.getRecentlyAddedDishes = Metrics.operation(component, "getRecentlyAddedDishes");
+        this.getAlphabeticallySortedDishes = Metrics.operation(component, "getAlphabeticallySortedDishes");
+        this.getDishesByCookingTime = Metrics.operation(component, "getDishesByCookingTime");
+        this.getDishById = Metrics.operation(component, "getDishById");
+        this.getSummariesAfterId = Metrics.operation(component, "getSummariesAfterId");
+        this.getSummariesAfterName = Metrics.operation(component, "getSummariesAfterName");
+        this.getSummariesByCookingTime = Metrics.operation(component, "getSummariesByCookingTime");
+        this.getFavoriteSummaries = Metrics.operation(component, "getFavoriteSummaries");
+        this.getRecentSummaries = Metrics.operation(component, "getRecentSummaries");
+        this.searchSummaries = Metrics.operation(component, "searchSummaries");
+    }
+
+    @Override
+    public List<Dish> getAllDishes() {
+        return getAllDishes.call(delegate::getAllDishes);
+    }
+
+    @Override
+    public List<Dish> getDishesAfterId(int afterId, int limit) {
+        return getDishesAfterId.call(() -> delegate.getDishesAfterId(afterId, limit));
+    }
+
+    @Override
+    public List<Dish> getDishesAfterName(String afterName, int afterId, int limit) {
+        return getDishesAfterName.call(() -> delegate.getDishesAfterName(afterName, afterId, limit));
+    }
+
+    @Override
+    public void forEachDish(Consumer<Dish> action) {
+        long[] rows = new long[1];
+        OperationEvent event = forEachDish.start();
+        try {
+            delegate.forEachDish(dish -> {
+                rows[0]++;
+                action.accept(dish);
+            });
+        } catch (RuntimeException | Error e) {
+            forEachDish.fail(event);
+            throw e;
+        }
+        forEachDish.stop(event, rows[0]);
+    }
+
+    @Override
+    public void addDish(Dish dish) {
+        addDish.run(() -> delegate.addDish(dish), 1);
+    }
+
+    @Override
+    public void addDishes(Collection<Dish> dishes) {
+        addDishes.run(() -> delegate.addDishes(dishes), dishes.size());
+    }
+
+    @Override
+    public void addImportedDishes(Collection<Dish> dishes, String source, long importedBefore) {
+        addImportedDishes.run(() -> delegate.addImportedDishes(dishes, source, importedBefore), dishes.size());
+    }
+
+    @Override
+    public long getImportProgress(String source) {
+        return getImportProgress.call(() -> delegate.getImportProgress(source));
+    }
+
+    @Override
+    public void clearImportProgress(String source) {
+        clearImportProgress.run(() -> delegate.clearImportProgress(source), 1);
+    }
+
+    @Override
+    public boolean updateDish(Dish dish) {
+        return updateDish.call(() -> delegate.updateDish(dish));
+    }
+
+    @Override
+    public boolean deleteDish(int id) {
+        return deleteDish.call(() -> delegate.deleteDish(id));
+    }
+
+    @Override
+    public List<Dish> searchDishes(String searchText) {
+        return searchDishes.call(() -> delegate.searchDishes(searchText));
+    }
+
+    @Override
+    public List<IngredientMatch> findDishesByIngredients(Collection<String> availableIngredients, int maxMissing, int limit) {
+        return findDishesByIngredients.call(() -> delegate.findDishesByIngredients(availableIngredients, maxMissing, limit));
+    }
+
+    @Override
+    public List<Dish> getFavoriteDishes() {
+        return getFavoriteDishes.call(delegate::getFavoriteDishes);
+    }
+
+    @Override
+    public List<Dish> getRecentlyAddedDishes() {
+        return getRecentlyAddedDishes.call(delegate::getRecentlyAddedDishes);
+    }
+
+    @Override
+    public List<Dish> getAlphabeticallySortedDishes() {
+        return getAlphabeticallySortedDishes.call(delegate::getAlphabeticallySortedDishes);
+    }
+
+    @Override
+    public List<Dish> getDishesByCookingTime(int minMinutes, int maxMinutes) {
+        return getDishesByCookingTime.call(() -> delegate.getDishesByCookingTime(minMinutes, maxMinutes));
+    }
+
+    @Override
+    public Dish getDishById(int id) {
+        return getDishById.call(() -> delegate.getDishById(id));
+    }
+
+    @Override
+    public List<DishSummary> getSummariesAfterId(int afterId, int limit) {
+        return getSummariesAfterId.call(() -> delegate.getSummariesAfterId(afterId, limit));
+    }
+
+    @Override
+    public List<DishSummary> getSummariesAfterName(String afterName, int afterId, int limit) {
+        return getSummariesAfterName.call(() -> delegate.getSummariesAfterName(afterName, afterId, limit));
+    }
+
+    @Override
+    public List<DishSummary> getSummariesByCookingTime(int minMinutes, int maxMinutes, int afterMinutes, int afterId,
+                                                       int limit) {
+        return getSummariesByCookingTime.call(
+                () -> delegate.getSummariesByCookingTime(minMinutes, maxMinutes, afterMinutes, afterId, limit));
+    }
+
+    @Override
+    public List<DishSummary> getFavoriteSummaries() {
+        return getFavoriteSummaries.call(delegate::getFavoriteSummaries);
+    }
+
+    @Override
+    public List<DishSummary> getRecentSummaries() {
+        return getRecentSummaries.call(delegate::getRecentSummaries);
+    }
+
+    @Override
+    public List<DishSummary> searchSummaries(String searchText) {
+        return searchSummaries.call(() -> delegate.searchSummaries(searchText));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.DishSummary;
+import com.example.cookingbook.search.CookingTimeParser;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Преобразует текущую строку результата запроса в объект.
+ *
+ * @param <T> Тип объекта.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@FunctionalInterface
+interface RowMapper<T> {
+
+    /**
+     * Создает объект из текущей строки результата запроса.
+     *
+     * @param resultSet Результат запроса, установленный на нужную строку.
+     * @return Объект.
+     * @throws SQLException Если не удалось прочитать значения столбцов.
+     */
+    T mapRow(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Создает RowMapper для конкретного результата запроса. Номера столбцов
+     * определяются один раз, а не для каждой строки.
+     *
+     * @param <T> Тип объекта.
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+
+        RowMapper<T> forResultSet(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * RowMapper для полных блюд. Результат должен содержать столбцы
+     * id, name, cooking_time, ingredients, cooking_process, favorite и sentence_bounds.
+     */
+    static RowMapper<Dish> dish(ResultSet resultSet) throws SQLException {
+        int id = resultSet.findColumn("id");
+        int name = resultSet.findColumn("name");
+        int cookingTime = resultSet.findColumn("cooking_time");
+        int ingredients = resultSet.findColumn("ingredients");
+        int cookingProcess = resultSet.findColumn("cooking_process");
+        int favorite = resultSet.findColumn("favorite");
+        int sentenceBounds = resultSet.findColumn("sentence_bounds");
+        return row -> {
+            Dish dish = new Dish(
+                    row.getString(name),
+                    row.getString(cookingTime),
+                    row.getString(ingredients),
+                    row.getString(cookingProcess),
+                    row.getBoolean(favorite));
+            dish.setId(row.getInt(id));
+            dish.setSentenceBounds(row.getBytes(sentenceBounds));
+            return dish;
+        };
+    }
+
+    /**
+     * RowMapper для кратких представлений блюд. Результат должен содержать столбцы
+     * id, name, cooking_time, ingredients_preview, favorite и cooking_minutes.
+     */
+    static RowMapper<DishSummary> summary(ResultSet resultSet) throws SQLException {
+        int id = resultSet.findColumn("id");
+        int name = resultSet.findColumn("name");
+        int cookingTime = resultSet.findColumn("cooking_time");
+        int ingredientsPreview = resultSet.findColumn("ingredients_preview");
+        int favorite = resultSet.findColumn("favorite");
+        int cookingMinutes = resultSet.findColumn("cooking_minutes");
+        return row -> {
+            int minutes = row.getInt(cookingMinutes);
+            if (row.wasNull()) {
+                minutes = CookingTimeParser.UNKNOWN;
+            }
+            return new DishSummary(
+                    row.getInt(id),
+                    row.getString(name),
+                    row.getString(cookingTime),
+                    row.getString(ingredientsPreview),
+                    row.getBoolean(favorite),
+                    minutes);
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.neuralNetwork.Segmentation;
+import com.example.cookingbook.neuralNetwork.TextDivider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Фоновое заполнение разбиения на предложения и шаги для блюд, сохраненных до появления
+ * столбца sentence_bounds или в прежнем формате разбиения (без границ шагов). Блюда
+ * обрабатываются частями по {@value #BATCH_SIZE}: часть читается через соединение для чтения,
+ * разбивается на предложения и шаги без блокировок и записывается одной короткой транзакцией.
+ * Блюдо, которое успели изменить во время обработки части, не перезаписывается: разбиение
+ * для него уже вычислил DishDAOImpl.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class SentenceBoundsBackfill implements Runnable {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final DatabaseManager databaseManager;
+
+    /**
+     * Конструктор для инициализации задачи заполнения.
+     *
+     * @param databaseManager Менеджер базы данных.
+     */
+    public SentenceBoundsBackfill(DatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Запускает заполнение в фоновом потоке.
+     *
+     * @return Поток, выполняющий заполнение.
+     */
+    public Thread start() {
+        Thread thread = new Thread(this, "sentence-bounds-backfill");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Заполняет разбиение для всех блюд, у которых его нет или оно записано в прежнем формате.
+     * Прерывание потока останавливает заполнение после текущей части.
+     */
+    @Override
+    public void run() {
+        int lastId = 0;
+        int filled = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Pending> batch = readBatch(lastId);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (Pending pending : batch) {
+                    pending.bounds = TextDivider.divide(pending.cookingProcess).encode();
+                }
+                filled += writeBatch(batch);
+                lastId = batch.get(batch.size() - 1).id;
+            }
+            if (filled > 0) {
+                System.out.println("Cooking steps computed for " + filled + " dishes");
+            }
+        } catch (SQLException e) {
+            System.err.println("Sentence bounds backfill stopped: " + e.getMessage());
+        }
+    }
+
+    private List<Pending> readBatch(int afterId) throws SQLException {
+        List<Pending> batch = new ArrayList<>(BATCH_SIZE);
+        Connection connection = databaseManager.acquireReadConnection();
+        try {
+            PreparedStatement select = databaseManager.prepareCached(connection,
+                    "SELECT id, cooking_process, sentence_bounds FROM dishes WHERE id > ? " +
+                    "AND (sentence_bounds IS NULL OR substr(sentence_bounds, 1, 1) <> ?) ORDER BY id LIMIT ?");
+            select.setInt(1, afterId);
+            select.setBytes(2, new byte[]{Segmentation.FORMAT_VERSION});
+            select.setInt(3, BATCH_SIZE);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    batch.add(new Pending(resultSet.getInt(1), resultSet.getString(2), resultSet.getBytes(3)));
+                }
+            }
+        } finally {
+            databaseManager.releaseReadConnection(connection);
+        }
+        return batch;
+    }
+
+    private int writeBatch(List<Pending> batch) throws SQLException {
+        Connection connection = databaseManager.acquireWriteConnection();
+        try {
+            PreparedStatement update = databaseManager.prepareCached(connection,
+                    "UPDATE dishes SET sentence_bounds = ? WHERE id = ? AND sentence_bounds IS ?");
+            connection.setAutoCommit(false);
+            try {
+                for (Pending pending : batch) {
+                    update.setBytes(1, pending.bounds);
+                    update.setInt(2, pending.id);
+                    update.setBytes(3, pending.previousBounds);
+                    update.addBatch();
+                }
+                int written = 0;
+                for (int count : update.executeBatch()) {
+                    written += Math.max(count, 0);
+                }
+                connection.commit();
+                return written;
+            } catch (SQLException e) {
+                update.clearBatch();
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            databaseManager.releaseWriteConnection(connection);
+        }
+    }
+
+    /**
+     * Блюдо, ожидающее вычисления границ.
+     */
+    private static final class Pending {
+        private final int id;
+        private final String cookingProcess;
+        private final byte[] previousBounds;
+        private byte[] bounds;
+
+        private Pending(int id, String cookingProcess, byte[] previousBounds) {
+            this.id = id;
+            this.cookingProcess = cookingProcess;
+            this.previousBounds = previousBounds;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.DishSummary;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Снимок первой страницы блюд (в порядке идентификаторов) для быстрого запуска.
+ * <p>
+ * Снимок хранится в небольшом двоичном файле рядом с базой данных. При запуске он читается
+ * одним вызовом в буфер в куче, поэтому таблицу можно заполнить еще до того, как откроется
+ * база данных; после загрузки первой страницы из базы снимок заменяется настоящими данными.
+ * Отображение файла в память не используется: пока отображение не освобождено сборщиком
+ * мусора, Windows не дает заменить файл при записи снимка.
+ * Файл перезаписывается при завершении приложения и через несколько секунд после изменений
+ * блюд, попадающих в первую страницу.
+ * <p>
+ * Формат файла: число 0x43425353, версия, количество блюд, затем для каждого блюда
+ * идентификатор, время приготовления в минутах, признак избранного и строки названия,
+ * времени приготовления и начала ингредиентов. Строка записывается длиной в байтах
+ * (-1 для {@code null}) и байтами UTF-8; все числа - в порядке big-endian.
+ * Поврежденный или устаревший файл игнорируется.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class StartupSnapshot {
+
+    private static final int MAGIC = 0x43425353;
+    private static final int FORMAT_VERSION = 1;
+    private static final long SAVE_DELAY_SECONDS = 3;
+    private static final long MAX_FILE_BYTES = 16 * 1024 * 1024;
+
+    private final Path file;
+    private final int rows;
+    private ScheduledExecutorService saver;
+    private Runnable unsubscribe;
+    private boolean savePending;
+    private boolean closed;
+    private volatile int lastSavedId = Integer.MAX_VALUE;
+
+    /**
+     * Конструктор снимка.
+     *
+     * @param file Файл снимка.
+     * @param rows Количество блюд в снимке.
+     */
+    public StartupSnapshot(Path file, int rows) {
+        this.file = file;
+        this.rows = rows;
+    }
+
+    /**
+     * Возвращает файл снимка для базы данных.
+     *
+     * @param databasePath Путь к файлу базы данных.
+     * @return Файл снимка рядом с базой данных.
+     */
+    public static Path fileFor(String databasePath) {
+        return Path.of(databasePath + ".snapshot");
+    }
+
+    /**
+     * Читает снимок.
+     *
+     * @return Блюда снимка или пустой список, если файла нет или он поврежден.
+     */
+    public List<DishSummary> read() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_FILE_BYTES) {
+                System.err.println("Ignoring startup snapshot " + file + ": file is too large (" + size + " bytes)");
+                return List.of();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Читаем до конца файла.
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                System.err.println("Ignoring startup snapshot " + file + ": unsupported format");
+                return List.of();
+            }
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining()) {
+                System.err.println("Ignoring startup snapshot " + file + ": invalid size " + count);
+                return List.of();
+            }
+            List<DishSummary> summaries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int id = buffer.getInt();
+                int cookingMinutes = buffer.getInt();
+                boolean favorite = buffer.get() != 0;
+                String name = readString(buffer);
+                String cookingTime = readString(buffer);
+                String ingredientsPreview = readString(buffer);
+                summaries.add(new DishSummary(id, name, cookingTime, ingredientsPreview, favorite, cookingMinutes));
+            }
+            lastSavedId = count < rows ? Integer.MAX_VALUE : summaries.get(count - 1).getId();
+            return summaries;
+        } catch (NoSuchFileException e) {
+            return List.of();
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            System.err.println("Ignoring startup snapshot " + file + ": " + e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Записывает снимок. Файл заменяется целиком, поэтому при сбое во время записи
+     * останется предыдущий снимок.
+     *
+     * @param summaries Блюда снимка; записываются первые {@code rows}.
+     * @throws IOException Если файл не удалось записать.
+     */
+    public void write(List<DishSummary> summaries) throws IOException {
+        List<DishSummary> written = summaries.size() > rows ? summaries.subList(0, rows) : summaries;
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+                data.writeInt(MAGIC);
+                data.writeInt(FORMAT_VERSION);
+                data.writeInt(written.size());
+                for (DishSummary summary : written) {
+                    data.writeInt(summary.getId());
+                    data.writeInt(summary.getCookingMinutes());
+                    data.writeBoolean(summary.isFavorite());
+                    writeString(data, summary.getName());
+                    writeString(data, summary.getCookingTime());
+                    writeString(data, summary.getIngredientsPreview());
+                }
+                data.flush();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        lastSavedId = written.size() < rows ? Integer.MAX_VALUE : written.get(written.size() - 1).getId();
+    }
+
+    /**
+     * Начинает обновлять снимок после изменений блюд. Изменения, которые не затрагивают
+     * сохраненную первую страницу, снимок не перезаписывают; несколько изменений подряд
+     * приводят к одной записи.
+     *
+     * @param dishDAO  DAO, из которого читается первая страница.
+     * @param notifier Рассыльщик изменений блюд.
+     */
+    public synchronized void keepUpdated(DishDAO dishDAO, DishChangeNotifier notifier) {
+        if (closed || saver != null) {
+            return;
+        }
+        saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "startup-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        unsubscribe = notifier.subscribe(saver, events -> {
+            for (DishChangeEvent event : events) {
+                if (event.id() <= lastSavedId) {
+                    scheduleSave(dishDAO);
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Записывает снимок по текущим данным и прекращает его обновление.
+     * Ошибка записи выводится в стандартный поток ошибок.
+     *
+     * @param dishDAO DAO, из которого читается первая страница.
+     */
+    public synchronized void saveAndClose(DishDAO dishDAO) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (unsubscribe != null) {
+            unsubscribe.run();
+            saver.shutdownNow();
+        }
+        save(dishDAO);
+    }
+
+    private synchronized void scheduleSave(DishDAO dishDAO) {
+        if (closed || savePending) {
+            return;
+        }
+        savePending = true;
+        saver.schedule(() -> {
+            synchronized (this) {
+                savePending = false;
+                if (!closed) {
+                    save(dishDAO);
+                }
+            }
+        }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void save(DishDAO dishDAO) {
+        try {
+            write(dishDAO.getSummariesAfterId(0, rows));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing startup snapshot " + file + ": " + e);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("string length " + length + " exceeds file size");
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
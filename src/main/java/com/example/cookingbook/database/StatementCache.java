@@ -0,0 +1,89 @@
+package com.example.cookingbook.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Кэш подготовленных запросов одного соединения. Каждый текст запроса компилируется
+ * один раз, дальше подготовленный запрос используется повторно. Если запросов больше,
+ * чем {@code maxStatements}, давно не использовавшиеся запросы закрываются.
+ * <p>
+ * Кэш не синхронизирован: им пользуется только поток, который в данный момент
+ * владеет соединением.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class StatementCache {
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+
+    /**
+     * Конструктор для инициализации кэша.
+     *
+     * @param connection    Соединение, для которого подготавливаются запросы.
+     * @param maxStatements Максимальное количество открытых подготовленных запросов.
+     */
+    StatementCache(Connection connection, int maxStatements) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxStatements) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Возвращает подготовленный запрос, компилируя его при первом обращении.
+     * Запрос нельзя закрывать; результат его выполнения нужно закрыть до возврата соединения.
+     *
+     * @param sql Текст запроса.
+     * @return Подготовленный запрос.
+     * @throws SQLException Если запрос не удалось подготовить.
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * @return Количество подготовленных запросов в кэше.
+     */
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Закрывает все подготовленные запросы.
+     */
+    void close() {
+        Iterator<PreparedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            closeQuietly(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
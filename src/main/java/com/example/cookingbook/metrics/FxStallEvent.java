@@ -0,0 +1,41 @@
+package com.example.cookingbook.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Событие JDK Flight Recorder о зависании потока JavaFX Application Thread.
+ * <p>
+ * Событие фиксирует поток сторожа уже после зависания, поэтому его собственный стек
+ * не записывается; стек потока JavaFX, снятый во время зависания, хранится в поле {@code fxStackTrace}.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@Name("com.example.cookingbook.FxStall")
+@Label("CookingBook FX Stall")
+@Category("CookingBook")
+@Description("Поток JavaFX не обрабатывал события дольше порога")
+@StackTrace(false)
+final class FxStallEvent extends Event {
+
+    @Label("Action")
+    @Description("Действие интерфейса, во время или после которого поток завис")
+    String action;
+
+    @Label("Action Running")
+    boolean actionRunning;
+
+    @Label("Stall Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long stallDuration;
+
+    @Label("FX Stack Trace")
+    String fxStackTrace;
+}
@@ -0,0 +1,269 @@
+package com.example.cookingbook.metrics;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Сторож потока JavaFX Application Thread.
+ * <p>
+ * Фоновый поток "fx-watchdog" с постоянным интервалом ставит в очередь потока JavaFX
+ * короткую задачу-отклик. Пока отклик не выполнен, новые задачи не ставятся. Если отклик
+ * не выполнен дольше порога, поток JavaFX считается зависшим: сторож, пока зависание еще
+ * продолжается, снимает стек наблюдаемого потока и запоминает действие интерфейса,
+ * во время или после которого это произошло. О зависании сообщается дважды: при обнаружении
+ * (со стеком) и после того, как поток снова начал обрабатывать события (с полной длительностью).
+ * Завершенное зависание учитывается в операции {@code FX.stall} реестра {@link Metrics}
+ * и выпускается событием JFR {@code com.example.cookingbook.FxStall}.
+ * <p>
+ * Действия интерфейса отмечаются методом {@link #run(String, Runnable)} в обработчиках событий,
+ * в том числе в обработчиках, которые получают результат фоновой операции.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class FxStallWatchdog {
+
+    private static final String INTERVAL_PROPERTY = "cookingbook.fx.watchdog.intervalMillis";
+    private static final String THRESHOLD_PROPERTY = "cookingbook.fx.watchdog.thresholdMillis";
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    private static final Operation STALLS = Metrics.operation("FX", "stall");
+
+    private static volatile String currentAction;
+    private static volatile String lastAction;
+
+    /**
+     * Зависание потока JavaFX.
+     *
+     * @param action        Действие интерфейса, во время или после которого поток завис,
+     *                      или {@code null}, если отмеченных действий еще не было.
+     * @param actionRunning Выполнялось ли действие в момент обнаружения зависания.
+     * @param durationNanos Длительность зависания: при обнаружении - на момент обнаружения,
+     *                      после завершения - полная (с точностью до интервала проверки).
+     * @param finished      Завершилось ли зависание.
+     * @param stackTrace    Стек потока JavaFX в момент обнаружения.
+     */
+    public record Stall(String action, boolean actionRunning, long durationNanos, boolean finished,
+                        StackTraceElement[] stackTrace) {
+
+        /**
+         * @return Описание действия для журнала, например "during searchDishes".
+         */
+        public String describeAction() {
+            if (action == null) {
+                return "outside tracked actions";
+            }
+            return (actionRunning ? "during " : "after ") + action;
+        }
+    }
+
+    /**
+     * Отметка действия интерфейса. Закрывается в конце обработчика;
+     * обычно вместо нее используется {@link #run(String, Runnable)}.
+     */
+    public static final class Action implements AutoCloseable {
+        private final String name;
+        private final String previous;
+
+        private Action(String name, String previous) {
+            this.name = name;
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            currentAction = previous;
+            lastAction = name;
+        }
+    }
+
+    private final Executor uiExecutor;
+    private final Thread uiThread;
+    private final long intervalNanos;
+    private final long thresholdNanos;
+    private final Consumer<? super Stall> listener;
+    private final ScheduledExecutorService timer;
+
+    private volatile long answeredPing;
+    private volatile long pongNanos;
+
+    // Состояние ниже изменяется только потоком сторожа.
+    private long ping;
+    private long pingSentNanos;
+    private Stall detected;
+
+    /**
+     * Конструктор сторожа. Проверки начинаются после вызова {@link #start()}.
+     *
+     * @param uiExecutor      Очередь наблюдаемого потока; для JavaFX - {@code Platform::runLater}.
+     * @param uiThread        Наблюдаемый поток, выполняющий задачи {@code uiExecutor}. Известен
+     *                        заранее, чтобы снять стек, даже если поток завис до первого отклика.
+     * @param intervalMillis  Интервал проверки в миллисекундах.
+     * @param thresholdMillis Порог зависания в миллисекундах.
+     * @param listener        Получает сведения о зависаниях в потоке сторожа.
+     */
+    public FxStallWatchdog(Executor uiExecutor, Thread uiThread, long intervalMillis, long thresholdMillis,
+                           Consumer<? super Stall> listener) {
+        if (intervalMillis <= 0 || thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Interval and threshold must be positive");
+        }
+        this.uiExecutor = uiExecutor;
+        this.uiThread = uiThread;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.listener = listener;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fx-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запускает сторожа потока JavaFX с параметрами из системных свойств
+     * {@code cookingbook.fx.watchdog.intervalMillis} (по умолчанию 100) и
+     * {@code cookingbook.fx.watchdog.thresholdMillis} (по умолчанию 500).
+     * Сведения о зависаниях выводятся в стандартный поток ошибок. Вызывается в потоке JavaFX,
+     * например из {@code Application.start}: вызывающий поток и считается наблюдаемым.
+     *
+     * @return Запущенный сторож или {@code null}, если порог не положителен (сторож отключен).
+     */
+    public static FxStallWatchdog startConfigured() {
+        long interval = Long.getLong(INTERVAL_PROPERTY, 100);
+        long threshold = Long.getLong(THRESHOLD_PROPERTY, 500);
+        if (threshold <= 0) {
+            return null;
+        }
+        FxStallWatchdog watchdog = new FxStallWatchdog(Platform::runLater, Thread.currentThread(),
+                Math.max(1, interval), threshold, FxStallWatchdog::log);
+        watchdog.start();
+        return watchdog;
+    }
+
+    /**
+     * Отмечает начало действия интерфейса. Вызывается в потоке JavaFX.
+     *
+     * @param name Имя действия, например имя обработчика.
+     * @return Отметка, которую нужно закрыть по окончании действия.
+     */
+    public static Action action(String name) {
+        Action action = new Action(name, currentAction);
+        currentAction = name;
+        return action;
+    }
+
+    /**
+     * Выполняет обработчик как действие интерфейса. Вызывается в потоке JavaFX.
+     *
+     * @param name    Имя действия, например имя обработчика.
+     * @param handler Обработчик.
+     */
+    public static void run(String name, Runnable handler) {
+        Action action = action(name);
+        try {
+            handler.run();
+        } finally {
+            action.close();
+        }
+    }
+
+    /**
+     * Запускает проверки.
+     */
+    public void start() {
+        timer.scheduleAtFixedRate(this::check, 0, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Останавливает проверки.
+     */
+    public void stop() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Выводит сведения о зависании в стандартный поток ошибок.
+     *
+     * @param stall Зависание.
+     */
+    public static void log(Stall stall) {
+        long millis = stall.durationNanos() / NANOS_PER_MILLI;
+        if (stall.finished()) {
+            System.err.println("FX thread resumed after " + millis + " ms stall " + stall.describeAction());
+            return;
+        }
+        StringBuilder message = new StringBuilder("FX thread stalled for " + millis + " ms "
+                + stall.describeAction() + ":");
+        for (StackTraceElement element : stall.stackTrace()) {
+            message.append(System.lineSeparator()).append("\tat ").append(element);
+        }
+        System.err.println(message);
+    }
+
+    private void check() {
+        try {
+            long now = System.nanoTime();
+            if (answeredPing != ping) {
+                if (detected == null && now - pingSentNanos >= thresholdNanos) {
+                    detected = capture(now - pingSentNanos);
+                    listener.accept(detected);
+                }
+                return;
+            }
+            if (detected != null) {
+                finish(pongNanos - pingSentNanos);
+            }
+            long id = ++ping;
+            // Не now: сообщение о конце зависания могло занять время, и отклик выглядел бы опоздавшим.
+            pingSentNanos = System.nanoTime();
+            uiExecutor.execute(() -> pong(id));
+        } catch (RuntimeException e) {
+            // Исключение остановило бы периодическую задачу; например, очередь JavaFX уже закрыта.
+            e.printStackTrace();
+        }
+    }
+
+    private void pong(long id) {
+        pongNanos = System.nanoTime();
+        answeredPing = id;
+    }
+
+    private Stall capture(long durationNanos) {
+        String running = currentAction;
+        String action = running != null ? running : lastAction;
+        return new Stall(action, running != null, durationNanos, false, uiThread.getStackTrace());
+    }
+
+    private void finish(long durationNanos) {
+        Stall stall = new Stall(detected.action(), detected.actionRunning(), durationNanos, true,
+                detected.stackTrace());
+        detected = null;
+        STALLS.record(durationNanos, 1);
+        FxStallEvent event = new FxStallEvent();
+        if (event.shouldCommit()) {
+            event.action = stall.action();
+            event.actionRunning = stall.actionRunning();
+            event.stallDuration = durationNanos;
+            event.fxStackTrace = stackTraceText(stall.stackTrace());
+            event.commit();
+        }
+        listener.accept(stall);
+    }
+
+    private static String stackTraceText(StackTraceElement[] stackTrace) {
+        StringBuilder text = new StringBuilder();
+        for (StackTraceElement element : stackTrace) {
+            if (!text.isEmpty()) {
+                text.append('\n');
+            }
+            text.append(element);
+        }
+        return text.toString();
+    }
+}
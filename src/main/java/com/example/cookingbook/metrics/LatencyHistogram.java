@@ -0,0 +1,104 @@
+package com.example.cookingbook.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма длительностей в наносекундах с логарифмическими интервалами.
+ * <p>
+ * Каждая степень двойки делится на {@value #SUB_BUCKETS} равных интервалов, поэтому
+ * процентиль определяется с погрешностью не больше 12,5% при любом масштабе: от наносекунд
+ * до часов. Запись - одно атомарное увеличение счетчика без блокировок; гистограмма
+ * занимает несколько килобайт и не растет.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Добавляет длительность в гистограмму.
+     *
+     * @param nanos Длительность в наносекундах.
+     */
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * @return Наибольшая записанная длительность.
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Вычисляет процентили по согласованной копии счетчиков.
+     *
+     * @param fractions Доли от 0 до 1, например 0.5 и 0.99.
+     * @return Верхние границы интервалов, в которые попадают процентили, не больше максимума.
+     */
+    long[] percentiles(double... fractions) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long[] result = new long[fractions.length];
+        if (total == 0) {
+            return result;
+        }
+        long maxValue = max.get();
+        for (int f = 0; f < fractions.length; f++) {
+            long rank = Math.max(1, (long) Math.ceil(fractions[f] * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    result[f] = Math.min(upperBound(i), maxValue);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Номер интервала: значения меньше {@value #SUB_BUCKETS} хранятся точно, остальные -
+     * по старшему биту и следующим за ним {@value #SUB_BUCKET_BITS} битам.
+     */
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) | subBucket;
+    }
+
+    /**
+     * Наибольшее значение, попадающее в интервал.
+     */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int block = index >>> SUB_BUCKET_BITS;
+        long lower = (long) (SUB_BUCKETS | (index & (SUB_BUCKETS - 1))) << (block - 1);
+        return lower + (1L << (block - 1)) - 1;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.cookingbook.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Реестр измеряемых операций приложения.
+ * <p>
+ * Каждая операция ведет счетчики и гистограмму длительностей в памяти процесса и выпускает
+ * события JDK Flight Recorder {@code com.example.cookingbook.Operation}, которые видны
+ * в записи JFR (например, {@code -XX:StartFlightRecording} или {@code jcmd <pid> JFR.start}).
+ * Снимок статистики можно в любой момент получить методом {@link #snapshot()} или записать
+ * в файл методом {@link #writeSnapshot(Path)}. Если задано системное свойство
+ * {@code cookingbook.metrics.file}, снимок записывается в этот файл при завершении приложения.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class Metrics {
+
+    private static final String SNAPSHOT_FILE_PROPERTY = "cookingbook.metrics.file";
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final ConcurrentMap<String, Operation> OPERATIONS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Возвращает операцию, создавая ее при первом обращении.
+     *
+     * @param component Компонент, например {@code DishDAO}.
+     * @param name      Имя операции, обычно имя метода.
+     * @return Операция.
+     */
+    public static Operation operation(String component, String name) {
+        return OPERATIONS.computeIfAbsent(component + '.' + name, key -> new Operation(component, name));
+    }
+
+    /**
+     * Возвращает статистику всех операций, у которых были вызовы или ошибки,
+     * упорядоченную по компоненту и имени.
+     *
+     * @return Снимок статистики.
+     */
+    public static List<OperationStatistics> snapshot() {
+        List<OperationStatistics> statistics = new ArrayList<>();
+        for (Operation operation : OPERATIONS.values()) {
+            OperationStatistics operationStatistics = operation.statistics();
+            if (operationStatistics.count() > 0 || operationStatistics.errors() > 0) {
+                statistics.add(operationStatistics);
+            }
+        }
+        statistics.sort(Comparator.comparing(OperationStatistics::component)
+                .thenComparing(OperationStatistics::operation));
+        return statistics;
+    }
+
+    /**
+     * Записывает снимок статистики в файл в виде таблицы со значениями, разделенными
+     * табуляцией. Файл заменяется целиком, поэтому читатель не увидит его наполовину записанным.
+     *
+     * @param file Файл снимка.
+     * @throws IOException Если файл не удалось записать.
+     */
+    public static void writeSnapshot(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                writer.write("component\toperation\tcount\terrors\trows\ttotal_ms\tmean_us\tp50_us\tp99_us\tmax_us");
+                writer.newLine();
+                for (OperationStatistics statistics : snapshot()) {
+                    writer.write(String.format(Locale.ROOT, "%s\t%s\t%d\t%d\t%d\t%.3f\t%.1f\t%.1f\t%.1f\t%.1f",
+                            statistics.component(), statistics.operation(), statistics.count(), statistics.errors(),
+                            statistics.rows(), statistics.totalNanos() / NANOS_PER_MILLI,
+                            statistics.meanNanos() / NANOS_PER_MICRO, statistics.p50Nanos() / NANOS_PER_MICRO,
+                            statistics.p99Nanos() / NANOS_PER_MICRO, statistics.maxNanos() / NANOS_PER_MICRO));
+                    writer.newLine();
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Записывает снимок статистики в файл из свойства {@code cookingbook.metrics.file},
+     * если оно задано. Ошибка записи выводится в стандартный поток ошибок.
+     */
+    public static void writeConfiguredSnapshot() {
+        String file = System.getProperty(SNAPSHOT_FILE_PROPERTY);
+        if (file == null || file.isBlank()) {
+            return;
+        }
+        try {
+            writeSnapshot(Path.of(file));
+            System.out.println("Metrics written to " + file);
+        } catch (IOException e) {
+            System.err.println("Error writing metrics: " + e.getMessage());
+        }
+    }
+}
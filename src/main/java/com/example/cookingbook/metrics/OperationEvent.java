@@ -0,0 +1,48 @@
+package com.example.cookingbook.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Событие JDK Flight Recorder об одной операции приложения. Длительность события -
+ * время выполнения операции. Стек вызовов не записывается, чтобы событие оставалось дешевым.
+ * <p>
+ * Событие создается методом {@link Operation#start()} и завершается через ту же {@link Operation};
+ * поля заполняются, только если запись событий включена.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+@Name("com.example.cookingbook.Operation")
+@Label("CookingBook Operation")
+@Category("CookingBook")
+@Description("Вызов DAO, разбиение текста или запрос к OpenAI")
+@StackTrace(false)
+public final class OperationEvent extends Event {
+
+    @Label("Component")
+    String component;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    @Description("Количество возвращенных или записанных строк")
+    long rows;
+
+    @Label("Failed")
+    boolean failed;
+
+    /**
+     * Момент начала операции по {@link System#nanoTime()} для гистограммы; в запись JFR не попадает.
+     */
+    transient long startNanos;
+
+    OperationEvent() {
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.cookingbook.metrics;
+
+/**
+ * Накопленная статистика одной операции.
+ *
+ * @param component  Компонент, например {@code DishDAO}.
+ * @param operation  Имя операции, обычно имя метода.
+ * @param count      Количество завершенных вызовов.
+ * @param errors     Количество вызовов, завершившихся ошибкой.
+ * @param rows       Суммарное количество строк.
+ * @param totalNanos Суммарная длительность вызовов.
+ * @param p50Nanos   Медиана длительности.
+ * @param p99Nanos   99-й процентиль длительности.
+ * @param maxNanos   Наибольшая длительность.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record OperationStatistics(String component, String operation, long count, long errors, long rows,
+                                  long totalNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+
+    /**
+     * @return Средняя длительность вызова в наносекундах или 0, если вызовов не было.
+     */
+    public long meanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+}
@@ -12,6 +12,7 @@ public class Dish {
     private String ingredients; // Ингредиенты
     private String cookingProcess; // Процесс приготовления
     private boolean favorite; // Флаг, указывающий на избранность блюда
+    private byte[] sentenceBounds; // Закодированные границы предложений процесса приготовления
     /**
      * Конструктор класса Dish.
      *
@@ -62,8 +63,28 @@ public class Dish {
         return cookingProcess;
     }
 
+    /**
+     * Устанавливает процесс приготовления. Сохраненные границы предложений
+     * при этом сбрасываются, так как относятся к прежнему тексту.
+     *
+     * @param cookingProcess Процесс приготовления блюда.
+     */
     public void setCookingProcess(String cookingProcess) {
         this.cookingProcess = cookingProcess;
+        this.sentenceBounds = null;
+    }
+
+    /**
+     * Возвращает границы предложений и шагов процесса приготовления, вычисленные при сохранении блюда.
+     *
+     * @return Разбиение в формате {@code Segmentation.encode()} или {@code null}, если оно еще не вычислено.
+     */
+    public byte[] getSentenceBounds() {
+        return sentenceBounds;
+    }
+
+    public void setSentenceBounds(byte[] sentenceBounds) {
+        this.sentenceBounds = sentenceBounds;
     }
 
     public boolean isFavorite() {
@@ -0,0 +1,91 @@
+package com.example.cookingbook.model;
+
+import com.example.cookingbook.search.CookingTimeParser;
+
+/**
+ * Краткое представление блюда для списков: без процесса приготовления и с сокращенным
+ * текстом ингредиентов. Полное блюдо загружается отдельно при открытии рецепта.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class DishSummary {
+    /**
+     * Максимальная длина текста ингредиентов в кратком представлении.
+     */
+    public static final int INGREDIENTS_PREVIEW_LENGTH = 120;
+
+    private final int id; // Идентификатор блюда
+    private final String name; // Название блюда
+    private final String cookingTime; // Время приготовления
+    private final String ingredientsPreview; // Начало текста ингредиентов
+    private final boolean favorite; // Флаг, указывающий на избранность блюда
+    private final int cookingMinutes; // Время приготовления в минутах
+    /**
+     * Конструктор класса DishSummary.
+     *
+     * @param id                 Идентификатор блюда.
+     * @param name               Название блюда.
+     * @param cookingTime        Время приготовления блюда.
+     * @param ingredientsPreview Начало текста ингредиентов.
+     * @param favorite           Флаг, указывающий, является ли блюдо избранным.
+     * @param cookingMinutes     Время приготовления в минутах или {@link CookingTimeParser#UNKNOWN}.
+     */
+    public DishSummary(int id, String name, String cookingTime, String ingredientsPreview, boolean favorite,
+                       int cookingMinutes) {
+        this.id = id;
+        this.name = name;
+        this.cookingTime = cookingTime;
+        this.ingredientsPreview = ingredientsPreview;
+        this.favorite = favorite;
+        this.cookingMinutes = cookingMinutes;
+    }
+    /**
+     * Создает краткое представление полного блюда.
+     *
+     * @param dish Блюдо.
+     * @return Краткое представление.
+     */
+    public static DishSummary of(Dish dish) {
+        return new DishSummary(dish.getId(), dish.getName(), dish.getCookingTime(),
+                previewOf(dish.getIngredients()), dish.isFavorite(),
+                CookingTimeParser.parseMinutes(dish.getCookingTime()));
+    }
+
+    /**
+     * Обрезает текст ингредиентов до {@value #INGREDIENTS_PREVIEW_LENGTH} символов.
+     *
+     * @param ingredients Ингредиенты блюда.
+     * @return Начало текста ингредиентов.
+     */
+    public static String previewOf(String ingredients) {
+        if (ingredients != null && ingredients.length() > INGREDIENTS_PREVIEW_LENGTH) {
+            return ingredients.substring(0, INGREDIENTS_PREVIEW_LENGTH);
+        }
+        return ingredients;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCookingTime() {
+        return cookingTime;
+    }
+
+    public String getIngredientsPreview() {
+        return ingredientsPreview;
+    }
+
+    public boolean isFavorite() {
+        return favorite;
+    }
+
+    public int getCookingMinutes() {
+        return cookingMinutes;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.cookingbook.model;
+/**
+ * Блюдо, найденное по доступным ингредиентам.
+ *
+ * @param dish         Найденное блюдо.
+ * @param missingCount Количество ингредиентов блюда, которых не хватает.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record IngredientMatch(Dish dish, int missingCount) {
+}
@@ -0,0 +1,282 @@
+package com.example.cookingbook.neuralNetwork;
+
+/**
+ * Результат разбиения текста на предложения и шаги. Хранит только смещения границ
+ * предложений в исходном тексте. Пока границы шагов не назначены ({@link StepModel}),
+ * шаг состоит из {@value SentenceSegmenter#SENTENCES_PER_STEP} предложений подряд
+ * (последний шаг может быть короче).
+ * <p>
+ * Разбиение вместе с границами шагов можно сохранить в компактном двоичном виде
+ * ({@link #encode()}) и восстановить без повторного разбора текста и без модели шагов
+ * ({@link #decode(CharSequence, byte[])}). Формат: байт версии, хэш текста (4 байта),
+ * затем в кодировке varint количество предложений, количество шагов, номера первых предложений
+ * шагов (разность с предыдущим) и для каждого предложения расстояние от конца предыдущего
+ * предложения до начала текущего и длина текущего предложения. По хэшу проверяется, что
+ * сохраненные границы вычислены для того же текста, а не только для текста той же длины.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class Segmentation {
+
+    /**
+     * Версия двоичного формата, которую записывает {@link #encode()}. Версия 1 не хранила
+     * границы шагов и хэш текста; такие разбиения вычисляются заново.
+     */
+    public static final byte FORMAT_VERSION = 2;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private final CharSequence text;
+    private int[] bounds = new int[32];
+    private int sentenceCount;
+    private int[] stepStarts;
+    private int stepCount;
+
+    Segmentation(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * Восстанавливает разбиение по сохраненным границам. Если границы отсутствуют, записаны
+     * в другом формате или не соответствуют тексту, текст разбивается на предложения заново,
+     * а границы шагов назначаются при форматировании.
+     *
+     * @param text          Текст, для которого были вычислены границы.
+     * @param encodedBounds Границы, полученные из {@link #encode()}, или {@code null}.
+     * @return Разбиение текста.
+     */
+    public static Segmentation decode(CharSequence text, byte[] encodedBounds) {
+        CharSequence source = text == null ? "" : text;
+        Segmentation segmentation = isCurrent(source, encodedBounds) ? read(source, encodedBounds) : null;
+        return segmentation != null ? segmentation : SentenceSegmenter.segment(source);
+    }
+
+    /**
+     * Проверяет, что границы записаны в текущем формате для этого текста.
+     *
+     * @param text          Текст.
+     * @param encodedBounds Сохраненные границы или {@code null}.
+     * @return {@code true}, если границы не нужно вычислять заново.
+     */
+    public static boolean isCurrent(CharSequence text, byte[] encodedBounds) {
+        if (encodedBounds == null || encodedBounds.length < HEADER_LENGTH || encodedBounds[0] != FORMAT_VERSION) {
+            return false;
+        }
+        int hash = (encodedBounds[1] & 0xFF) << 24 | (encodedBounds[2] & 0xFF) << 16
+                | (encodedBounds[3] & 0xFF) << 8 | (encodedBounds[4] & 0xFF);
+        return hash == textHash(text == null ? "" : text);
+    }
+
+    /**
+     * Читает разбиение и проверяет, что границы предложений и шагов согласованы между собой
+     * и с текстом: предложения идут по порядку, не выходят за текст, не начинаются и не
+     * заканчиваются пробелом; шаги начинаются с первого предложения и идут по возрастанию.
+     *
+     * @return Разбиение или {@code null}, если данные повреждены.
+     */
+    private static Segmentation read(CharSequence text, byte[] encodedBounds) {
+        int[] position = {HEADER_LENGTH};
+        int sentences = readVarint(encodedBounds, position);
+        int steps = readVarint(encodedBounds, position);
+        if (sentences < 0 || steps < 0 || steps > sentences || (sentences > 0) != (steps > 0)
+                || sentences > encodedBounds.length) {
+            return null;
+        }
+        int[] starts = new int[Math.max(1, steps)];
+        int previousStart = 0;
+        for (int i = 0; i < steps; i++) {
+            int start = previousStart + readVarint(encodedBounds, position);
+            if (i == 0 ? start != 0 : start <= previousStart || start >= sentences) {
+                return null;
+            }
+            starts[i] = start;
+            previousStart = start;
+        }
+        Segmentation segmentation = new Segmentation(text);
+        int previousEnd = 0;
+        for (int i = 0; i < sentences; i++) {
+            int gap = readVarint(encodedBounds, position);
+            int length = readVarint(encodedBounds, position);
+            int start = previousEnd + gap;
+            int end = start + length;
+            if (gap < 0 || length <= 0 || end > text.length()
+                    || Character.isWhitespace(text.charAt(start)) || Character.isWhitespace(text.charAt(end - 1))) {
+                return null;
+            }
+            segmentation.addSentence(start, end);
+            previousEnd = end;
+        }
+        if (position[0] != encodedBounds.length) {
+            return null;
+        }
+        segmentation.setStepStarts(starts, steps);
+        return segmentation;
+    }
+
+    /**
+     * Кодирует границы предложений и шагов в компактный двоичный вид.
+     *
+     * @return Закодированное разбиение.
+     */
+    public byte[] encode() {
+        int steps = stepCount();
+        byte[] buffer = new byte[HEADER_LENGTH + (2 + steps + sentenceCount * 2) * 5];
+        buffer[0] = FORMAT_VERSION;
+        int hash = textHash(text);
+        buffer[1] = (byte) (hash >>> 24);
+        buffer[2] = (byte) (hash >>> 16);
+        buffer[3] = (byte) (hash >>> 8);
+        buffer[4] = (byte) hash;
+        int length = writeVarint(buffer, HEADER_LENGTH, sentenceCount);
+        length = writeVarint(buffer, length, steps);
+        int previousStart = 0;
+        for (int i = 0; i < steps; i++) {
+            length = writeVarint(buffer, length, stepFirstSentence(i) - previousStart);
+            previousStart = stepFirstSentence(i);
+        }
+        int previousEnd = 0;
+        for (int i = 0; i < sentenceCount; i++) {
+            length = writeVarint(buffer, length, sentenceStart(i) - previousEnd);
+            length = writeVarint(buffer, length, sentenceEnd(i) - sentenceStart(i));
+            previousEnd = sentenceEnd(i);
+        }
+        byte[] encoded = new byte[length];
+        System.arraycopy(buffer, 0, encoded, 0, length);
+        return encoded;
+    }
+
+    /**
+     * Хэш текста по тем же правилам, что и {@link String#hashCode()}, для любой последовательности символов.
+     */
+    private static int textHash(CharSequence text) {
+        int hash = 0;
+        for (int i = 0; i < text.length(); i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int writeVarint(byte[] buffer, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Читает число varint и сдвигает позицию. Для поврежденных данных возвращает -1.
+     */
+    private static int readVarint(byte[] buffer, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32 && position[0] < buffer.length; shift += 7) {
+            byte b = buffer[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    void addSentence(int start, int end) {
+        if (sentenceCount * 2 == bounds.length) {
+            int[] grown = new int[bounds.length * 2];
+            System.arraycopy(bounds, 0, grown, 0, bounds.length);
+            bounds = grown;
+        }
+        bounds[sentenceCount * 2] = start;
+        bounds[sentenceCount * 2 + 1] = end;
+        sentenceCount++;
+    }
+
+    /**
+     * Назначает границы шагов.
+     *
+     * @param starts Номера предложений, с которых начинаются шаги, по возрастанию; первый равен 0.
+     * @param count  Количество шагов.
+     */
+    void setStepStarts(int[] starts, int count) {
+        this.stepStarts = starts;
+        this.stepCount = count;
+    }
+
+    /**
+     * @return {@code true}, если границы шагов назначены моделью или восстановлены из сохраненного разбиения.
+     */
+    public boolean hasSteps() {
+        return stepStarts != null;
+    }
+
+    /**
+     * @return Исходный текст.
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * @return Количество предложений.
+     */
+    public int sentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * @return Смещение первого символа предложения.
+     */
+    public int sentenceStart(int sentence) {
+        return bounds[sentence * 2];
+    }
+
+    /**
+     * @return Смещение за последним символом предложения.
+     */
+    public int sentenceEnd(int sentence) {
+        return bounds[sentence * 2 + 1];
+    }
+
+    /**
+     * @return Количество шагов.
+     */
+    public int stepCount() {
+        if (stepStarts != null) {
+            return stepCount;
+        }
+        return (sentenceCount + SentenceSegmenter.SENTENCES_PER_STEP - 1) / SentenceSegmenter.SENTENCES_PER_STEP;
+    }
+
+    /**
+     * @return Номер первого предложения шага.
+     */
+    public int stepFirstSentence(int step) {
+        if (stepStarts != null) {
+            return stepStarts[step];
+        }
+        return step * SentenceSegmenter.SENTENCES_PER_STEP;
+    }
+
+    /**
+     * @return Номер предложения, следующего за последним предложением шага.
+     */
+    public int stepEndSentence(int step) {
+        if (stepStarts != null) {
+            return step + 1 < stepCount ? stepStarts[step + 1] : sentenceCount;
+        }
+        return Math.min((step + 1) * SentenceSegmenter.SENTENCES_PER_STEP, sentenceCount);
+    }
+
+    /**
+     * Добавляет текст предложения в конец буфера без создания промежуточной строки.
+     *
+     * @param target   Буфер.
+     * @param sentence Номер предложения.
+     * @return Тот же буфер.
+     */
+    public StringBuilder appendSentence(StringBuilder target, int sentence) {
+        return target.append(text, sentenceStart(sentence), sentenceEnd(sentence));
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.cookingbook.neuralNetwork;
+
+/**
+ * Однопроходное разбиение текста на предложения. Работает с любым {@link CharSequence}
+ * и сообщает границы предложений смещениями, не создавая промежуточных строк.
+ * <p>
+ * Предложение заканчивается знаком {@code .}, {@code !}, {@code ?} или {@code …}
+ * (а также их сочетаниями и закрывающими кавычками и скобками после них), за которым
+ * следует пробельный символ или конец текста, а также пустой строкой. Не считаются
+ * концом предложения точка внутри числа ("1.5 ст."), точка после инициала и точка после
+ * распространенного сокращения ("ст.", "ч.л.", "т.д.", "мин."), если следующее слово
+ * начинается со строчной буквы. Текст после последнего знака препинания образует
+ * последнее предложение.
+ * <p>
+ * Разбиение на предложения остается на правилах; обученная {@link StepModel} решает только,
+ * с каких предложений начинаются шаги рецепта.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class SentenceSegmenter {
+
+    /**
+     * Количество предложений в одном шаге рецепта.
+     */
+    public static final int SENTENCES_PER_STEP = 5;
+
+    private static final String[] ABBREVIATIONS = {
+            "ст", "ч", "л", "г", "гр", "кг", "мг", "мл", "мин", "сек", "шт", "см", "мм", "уп", "пач",
+            "стак", "табл", "др", "пр", "напр", "прим", "ок", "т.е", "т.к", "т.д", "т.п", "т.н",
+            "ст.л", "ч.л", "дес.л"
+    };
+
+    /**
+     * Получатель границ предложений.
+     */
+    @FunctionalInterface
+    public interface SentenceConsumer {
+
+        /**
+         * Принимает очередное предложение.
+         *
+         * @param start Смещение первого символа предложения.
+         * @param end   Смещение за последним символом предложения.
+         */
+        void accept(int start, int end);
+    }
+
+    private SentenceSegmenter() {
+    }
+
+    /**
+     * Разбивает текст на предложения и шаги.
+     *
+     * @param text Текст для разбиения; {@code null} считается пустым текстом.
+     * @return Границы предложений и шагов.
+     */
+    public static Segmentation segment(CharSequence text) {
+        CharSequence source = text == null ? "" : text;
+        Segmentation segmentation = new Segmentation(source);
+        forEachSentence(source, segmentation::addSentence);
+        return segmentation;
+    }
+
+    /**
+     * Передает границы предложений текста получателю по порядку.
+     * Пробельные символы между предложениями в границы не входят.
+     *
+     * @param text     Текст для разбиения.
+     * @param consumer Получатель границ.
+     */
+    public static void forEachSentence(CharSequence text, SentenceConsumer consumer) {
+        int length = text.length();
+        int position = 0;
+        while (true) {
+            while (position < length && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position >= length) {
+                return;
+            }
+            int start = position;
+            int end = -1;
+            while (position < length) {
+                char c = text.charAt(position);
+                if (isTerminator(c)) {
+                    int next = position + 1;
+                    while (next < length && isTerminator(text.charAt(next))) {
+                        next++;
+                    }
+                    while (next < length && isClosing(text.charAt(next))) {
+                        next++;
+                    }
+                    boolean followedBySpace = next == length || Character.isWhitespace(text.charAt(next));
+                    if (followedBySpace && !continuesSentence(text, start, position, next)) {
+                        end = next;
+                        position = next;
+                        break;
+                    }
+                    position = next;
+                } else if (c == '\n' && isParagraphBreak(text, position)) {
+                    end = trimEnd(text, start, position);
+                    break;
+                } else {
+                    position++;
+                }
+            }
+            if (end < 0) {
+                end = trimEnd(text, start, length);
+            }
+            consumer.accept(start, end);
+        }
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '.' || c == '!' || c == '?' || c == '…';
+    }
+
+    private static boolean isClosing(char c) {
+        return c == '"' || c == '»' || c == '”' || c == '\'' || c == ')' || c == ']';
+    }
+
+    /**
+     * Проверяет, что одиночная точка не завершает предложение: стоит после инициала
+     * или после сокращения, за которым предложение продолжается со строчной буквы.
+     *
+     * @param start Начало текущего предложения.
+     * @param dot   Смещение знака препинания.
+     * @param next  Смещение за знаками препинания и закрывающими символами.
+     */
+    private static boolean continuesSentence(CharSequence text, int start, int dot, int next) {
+        if (text.charAt(dot) != '.' || next != dot + 1) {
+            return false;
+        }
+        int wordStart = dot;
+        while (wordStart > start) {
+            char previous = text.charAt(wordStart - 1);
+            if (Character.isLetter(previous)
+                    || previous == '.' && wordStart - 2 >= start && Character.isLetter(text.charAt(wordStart - 2))) {
+                wordStart--;
+            } else {
+                break;
+            }
+        }
+        int wordLength = dot - wordStart;
+        if (wordLength == 0) {
+            return false;
+        }
+        if (wordLength == 1 && Character.isUpperCase(text.charAt(wordStart))) {
+            return true;
+        }
+        if (!isAbbreviation(text, wordStart, wordLength)) {
+            return false;
+        }
+        int following = next;
+        while (following < text.length() && Character.isWhitespace(text.charAt(following))) {
+            following++;
+        }
+        return following < text.length() && !Character.isUpperCase(text.charAt(following));
+    }
+
+    private static boolean isAbbreviation(CharSequence text, int wordStart, int wordLength) {
+        for (String abbreviation : ABBREVIATIONS) {
+            if (abbreviation.length() != wordLength) {
+                continue;
+            }
+            int i = 0;
+            while (i < wordLength && Character.toLowerCase(text.charAt(wordStart + i)) == abbreviation.charAt(i)) {
+                i++;
+            }
+            if (i == wordLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет, что с перевода строки начинается пустая строка.
+     */
+    private static boolean isParagraphBreak(CharSequence text, int newline) {
+        for (int i = newline + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                return true;
+            }
+            if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.cookingbook.neuralNetwork;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Линейная модель, которая решает, начинается ли с очередного предложения новый шаг рецепта.
+ * <p>
+ * Для каждой границы между предложениями вычисляется небольшой набор признаков (основа
+ * первого слова следующего предложения и его окончание, последнее слово предыдущего,
+ * переводы строк между ними, длина текущего шага и др.). Признаки хэшируются в индексы
+ * массива весов (feature hashing), поэтому словарь не нужен, а вывод сводится к сумме
+ * нескольких элементов массива {@code float}. Шаг принудительно заканчивается после
+ * {@value #MAX_STEP_SENTENCES} предложений.
+ * <p>
+ * Веса загружаются из файла step-model.bin, который лежит рядом с классом. Формат файла:
+ * число 0x4342534D, версия, размер массива весов (степень двойки), порог в виде логита
+ * и сами веса; все числа записаны в порядке big-endian.
+ * <p>
+ * Модель неизменяема и может использоваться из нескольких потоков одновременно.
+ * <p>
+ * Модель классифицирует только границы между предложениями: начинается ли с предложения
+ * новый шаг. Сами границы предложений находит {@link SentenceSegmenter} по правилам.
+ * Размеченный набор рецептов содержит границы шагов, а не предложений, и неоднозначные
+ * точки в рецептах почти всегда стоят после сокращений из короткого закрытого списка
+ * ("ст.", "мин.", "ч.л."), поэтому правила здесь точнее, чем модель, обученная на этом наборе.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class StepModel {
+
+    /**
+     * Максимальное количество признаков одной границы.
+     */
+    public static final int MAX_FEATURES = 12;
+
+    /**
+     * Максимальное количество предложений в шаге.
+     */
+    public static final int MAX_STEP_SENTENCES = 8;
+
+    private static final int MAGIC = 0x4342534D;
+    private static final int FORMAT_VERSION = 1;
+    private static final int STEM_LENGTH = 5;
+    private static final String RESOURCE = "step-model.bin";
+
+    /**
+     * Массив индексов признаков для каждого потока: модель общая, а разбиение выполняется
+     * для каждого сохраняемого блюда и для пакетов рецептов, поэтому массив не создается на каждый вызов.
+     */
+    private static final ThreadLocal<int[]> FEATURES = ThreadLocal.withInitial(() -> new int[MAX_FEATURES]);
+
+    private final float[] weights;
+    private final int mask;
+    private final float threshold;
+
+    private static final class BundledHolder {
+        static final StepModel MODEL = loadBundled();
+    }
+
+    /**
+     * Конструктор модели.
+     *
+     * @param weights   Веса признаков; длина должна быть степенью двойки.
+     * @param threshold Порог: шаг начинается, если сумма весов признаков больше порога.
+     */
+    public StepModel(float[] weights, float threshold) {
+        if (weights.length == 0 || Integer.bitCount(weights.length) != 1) {
+            throw new IllegalArgumentException("Weight count must be a power of two: " + weights.length);
+        }
+        this.weights = weights;
+        this.mask = weights.length - 1;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Возвращает модель, поставляемую вместе с приложением.
+     *
+     * @return Модель или {@code null}, если файл весов не удалось прочитать.
+     */
+    public static StepModel bundled() {
+        return BundledHolder.MODEL;
+    }
+
+    private static StepModel loadBundled() {
+        try (InputStream in = StepModel.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                System.err.println("Step model " + RESOURCE + " not found, using fixed-size steps");
+                return null;
+            }
+            return load(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Читает модель из потока.
+     *
+     * @param in Поток с весами в формате step-model.bin.
+     * @return Модель.
+     * @throws IOException Если поток не удалось прочитать или формат не поддерживается.
+     */
+    public static StepModel load(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC || data.readInt() != FORMAT_VERSION) {
+            throw new IOException("Unsupported step model format");
+        }
+        int size = data.readInt();
+        if (size <= 0 || size > 1 << 24 || Integer.bitCount(size) != 1) {
+            throw new IOException("Invalid step model size: " + size);
+        }
+        float threshold = data.readFloat();
+        float[] weights = new float[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = data.readFloat();
+        }
+        return new StepModel(weights, threshold);
+    }
+
+    /**
+     * Записывает модель в поток в формате step-model.bin.
+     *
+     * @param out Поток для записи.
+     * @throws IOException Если запись не удалась.
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeInt(weights.length);
+        data.writeFloat(threshold);
+        for (float weight : weights) {
+            data.writeFloat(weight);
+        }
+        data.flush();
+    }
+
+    /**
+     * Назначает границы шагов разбиению текста.
+     *
+     * @param segmentation Разбиение текста на предложения.
+     * @return То же разбиение.
+     */
+    public Segmentation assignSteps(Segmentation segmentation) {
+        int sentences = segmentation.sentenceCount();
+        int[] starts = new int[Math.max(1, sentences)];
+        int[] features = FEATURES.get();
+        int steps = sentences == 0 ? 0 : 1;
+        int sentencesInStep = 1;
+        for (int sentence = 1; sentence < sentences; sentence++) {
+            boolean newStep = sentencesInStep >= MAX_STEP_SENTENCES
+                    || score(features, features(segmentation, sentence, sentencesInStep, weights.length, features)) > threshold;
+            if (newStep) {
+                starts[steps++] = sentence;
+                sentencesInStep = 1;
+            } else {
+                sentencesInStep++;
+            }
+        }
+        segmentation.setStepStarts(starts, steps);
+        return segmentation;
+    }
+
+    /**
+     * Разбивает на предложения и шаги сразу много текстов, распределяя работу по ядрам процессора.
+     *
+     * @param texts Тексты рецептов.
+     * @return Разбиения в том же порядке.
+     */
+    public List<Segmentation> segmentAll(List<? extends CharSequence> texts) {
+        return texts.parallelStream()
+                .map(text -> assignSteps(SentenceSegmenter.segment(text)))
+                .toList();
+    }
+
+    /**
+     * Вычисляет сумму весов признаков.
+     *
+     * @param features Индексы признаков.
+     * @param count    Количество признаков.
+     * @return Оценка; шаг начинается, если она больше порога.
+     */
+    public float score(int[] features, int count) {
+        float sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += weights[features[i]];
+        }
+        return sum;
+    }
+
+    /**
+     * @return Копия весов модели.
+     */
+    public float[] weights() {
+        return Arrays.copyOf(weights, weights.length);
+    }
+
+    /**
+     * @return Порог модели.
+     */
+    public float threshold() {
+        return threshold;
+    }
+
+    /**
+     * Вычисляет индексы признаков границы перед предложением.
+     *
+     * @param segmentation    Разбиение текста на предложения.
+     * @param sentence        Номер предложения, перед которым проверяется граница (не меньше 1).
+     * @param sentencesInStep Количество предложений в текущем шаге.
+     * @param size            Размер массива весов (степень двойки).
+     * @param out             Массив для индексов длиной не меньше {@link #MAX_FEATURES}.
+     * @return Количество признаков.
+     */
+    public static int features(Segmentation segmentation, int sentence, int sentencesInStep, int size, int[] out) {
+        CharSequence text = segmentation.getText();
+        int mask = size - 1;
+        int previousStart = segmentation.sentenceStart(sentence - 1);
+        int previousEnd = segmentation.sentenceEnd(sentence - 1);
+        int start = segmentation.sentenceStart(sentence);
+        int end = segmentation.sentenceEnd(sentence);
+
+        int firstWordStart = nextWordStart(text, start, end);
+        int firstWordEnd = wordEnd(text, firstWordStart, end);
+        int secondWordStart = nextWordStart(text, firstWordEnd, end);
+        int secondWordEnd = wordEnd(text, secondWordStart, end);
+        int lastWordEnd = previousWordEnd(text, previousStart, previousEnd);
+        int lastWordStart = wordStart(text, previousStart, lastWordEnd);
+
+        int count = 0;
+        out[count++] = mix(0, 0) & mask;
+        out[count++] = stem(1, text, firstWordStart, firstWordEnd) & mask;
+        out[count++] = mix(stem(2, text, firstWordStart, firstWordEnd), stem(0, text, secondWordStart, secondWordEnd)) & mask;
+        out[count++] = hash(3, text, Math.max(firstWordStart, firstWordEnd - 2), firstWordEnd) & mask;
+        out[count++] = stem(4, text, lastWordStart, lastWordEnd) & mask;
+        out[count++] = mix(5, Math.min(newlines(text, previousEnd, start), 2)) & mask;
+        out[count++] = mix(6, Math.min(sentencesInStep, 6)) & mask;
+        out[count++] = mix(7, Math.min((previousEnd - previousStart) / 30, 5)) & mask;
+        out[count++] = mix(8, containsDigit(text, previousStart, previousEnd) ? 1 : 0) & mask;
+        out[count++] = mix(9, containsDigit(text, start, end) ? 1 : 0) & mask;
+        out[count++] = mix(10, previousEnd > previousStart ? text.charAt(previousEnd - 1) : 0) & mask;
+        out[count++] = mix(11, Math.min((end - start) / 30, 5)) & mask;
+        return count;
+    }
+
+    private static int nextWordStart(CharSequence text, int from, int end) {
+        while (from < end && !Character.isLetter(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int wordEnd(CharSequence text, int from, int end) {
+        while (from < end && (Character.isLetter(text.charAt(from)) || text.charAt(from) == '-')) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int previousWordEnd(CharSequence text, int start, int end) {
+        while (end > start && !Character.isLetter(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int wordStart(CharSequence text, int start, int end) {
+        while (end > start && Character.isLetter(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int newlines(CharSequence text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean containsDigit(CharSequence text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Хэширует основу слова: первые {@value #STEM_LENGTH} букв в нижнем регистре.
+     */
+    private static int stem(int salt, CharSequence text, int start, int end) {
+        return hash(salt, text, start, Math.min(end, start + STEM_LENGTH));
+    }
+
+    private static int hash(int salt, CharSequence text, int start, int end) {
+        int h = 0x811C9DC5 ^ salt * 0x9E3779B9;
+        for (int i = start; i < end; i++) {
+            h = (h ^ Character.toLowerCase(text.charAt(i))) * 0x01000193;
+        }
+        return finish(h);
+    }
+
+    private static int mix(int salt, int value) {
+        return finish((0x811C9DC5 ^ salt * 0x9E3779B9) * 0x01000193 ^ value * 0x85EBCA6B);
+    }
+
+    private static int finish(int h) {
+        h ^= h >>> 16;
+        h *= 0x7FEB352D;
+        h ^= h >>> 15;
+        return h;
+    }
+}
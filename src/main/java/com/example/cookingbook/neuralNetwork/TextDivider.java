@@ -1,12 +1,18 @@
 package com.example.cookingbook.neuralNetwork;
 
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.metrics.Operation;
+import com.example.cookingbook.metrics.OperationEvent;
+
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Класс для разделения текста на предложения и шаги.
+ * Границы предложений определяет {@link SentenceSegmenter}, границы шагов - {@link StepModel}.
+ * Если модель недоступна, шаг состоит из {@value SentenceSegmenter#SENTENCES_PER_STEP} предложений.
+ * Вызовы измеряются через {@link Metrics}; количество строк в статистике - количество шагов
+ * или предложений.
  *
  * @autor Комов Степан
  * @version 1.0
@@ -14,20 +20,34 @@ import java.util.regex.Pattern;
  */
 public class TextDivider {
 
+    private static final Operation SPLIT_INTO_STEPS = Metrics.operation("TextDivider", "splitTextIntoSteps");
+    private static final Operation SPLIT_INTO_SENTENCES = Metrics.operation("TextDivider", "splitTextIntoSentences");
+    private static final Operation FORMAT_STEPS = Metrics.operation("TextDivider", "formatSteps");
+
     /**
-     * Разделяет текст на шаги с указанным количеством предложений в каждом шаге.
+     * Разделяет текст на шаги.
      *
      * @param text Текст для разделения.
      * @return Список шагов.
      */
     public static List<String> splitTextIntoSteps(String text) {
-        List<String> steps = new ArrayList<>();
-        List<String> sentences = splitTextIntoSentences(text);
+        return SPLIT_INTO_STEPS.call(() -> steps(text));
+    }
 
-        for (int i = 0; i < sentences.size(); i += 5) {
-            int end = Math.min(i + 5, sentences.size());
-            List<String> stepSentences = sentences.subList(i, end);
-            steps.add(String.join(" ", stepSentences));
+    private static List<String> steps(String text) {
+        Segmentation segmentation = divideIntoSteps(SentenceSegmenter.segment(text));
+        List<String> steps = new ArrayList<>(segmentation.stepCount());
+        StringBuilder step = new StringBuilder();
+
+        for (int i = 0; i < segmentation.stepCount(); i++) {
+            step.setLength(0);
+            for (int sentence = segmentation.stepFirstSentence(i); sentence < segmentation.stepEndSentence(i); sentence++) {
+                if (step.length() > 0) {
+                    step.append(' ');
+                }
+                segmentation.appendSentence(step, sentence);
+            }
+            steps.add(step.toString());
         }
 
         return steps;
@@ -40,17 +60,113 @@ public class TextDivider {
      * @return Список предложений.
      */
     public static List<String> splitTextIntoSentences(String text) {
+        return SPLIT_INTO_SENTENCES.call(() -> sentences(text));
+    }
+
+    private static List<String> sentences(String text) {
         List<String> sentences = new ArrayList<>();
+        SentenceSegmenter.forEachSentence(text, (start, end) -> sentences.add(text.substring(start, end)));
+        return sentences;
+    }
 
-        // Регулярное выражение для разделения текста на предложения
-        Pattern pattern = Pattern.compile("[^.!?\\s][^.!?]*(?:\\.(?!\\s|$)|[.!?](?=\\s|$))");
-        Matcher matcher = pattern.matcher(text);
+    /**
+     * Форматирует процесс приготовления для показа пользователю: текст разбивается на шаги
+     * с заголовками "Шаг N:", каждое предложение выводится с новой строки.
+     *
+     * @param cookingProcess Полный текст процесса приготовления.
+     * @return Текст, разделенный на шаги.
+     */
+    public static String formatSteps(String cookingProcess) {
+        OperationEvent event = FORMAT_STEPS.start();
+        Segmentation segmentation = divide(cookingProcess);
+        String formatted = format(segmentation);
+        FORMAT_STEPS.stop(event, segmentation.stepCount());
+        return formatted;
+    }
+
+    /**
+     * Разбивает процесс приготовления на предложения и шаги. Результат сохраняется вместе
+     * с блюдом ({@link Segmentation#encode()}), чтобы при открытии блюда не вызывать модель шагов.
+     *
+     * @param cookingProcess Полный текст процесса приготовления.
+     * @return Разбиение с назначенными границами шагов.
+     */
+    public static Segmentation divide(CharSequence cookingProcess) {
+        return divideIntoSteps(SentenceSegmenter.segment(cookingProcess));
+    }
 
-        // Добавляем найденные предложения в список
-        while (matcher.find()) {
-            sentences.add(matcher.group());
+    /**
+     * Форматирует процесс приготовления по готовому разбиению. Сохраненные границы шагов
+     * используются как есть; модель шагов вызывается, только если их нет.
+     *
+     * @param segmentation Разбиение процесса приготовления.
+     * @return Текст, разделенный на шаги.
+     */
+    public static String formatSteps(Segmentation segmentation) {
+        OperationEvent event = FORMAT_STEPS.start();
+        String formatted = format(segmentation);
+        FORMAT_STEPS.stop(event, segmentation.stepCount());
+        return formatted;
+    }
+
+    private static String format(Segmentation segmentation) {
+        if (!segmentation.hasSteps()) {
+            divideIntoSteps(segmentation);
         }
+        StringBuilder dividedText = new StringBuilder(segmentation.getText().length() + segmentation.stepCount() * 16);
 
-        return sentences;
+        for (int i = 0; i < segmentation.stepCount(); i++) {
+            dividedText.append("Шаг ").append(i + 1).append(":\n");
+            for (int sentence = segmentation.stepFirstSentence(i); sentence < segmentation.stepEndSentence(i); sentence++) {
+                segmentation.appendSentence(dividedText, sentence).append('\n');
+            }
+            dividedText.append('\n');
+        }
+
+        return dividedText.toString();
+    }
+
+    /**
+     * Назначает разбиению границы шагов с помощью общей модели, если она доступна.
+     */
+    private static Segmentation divideIntoSteps(Segmentation segmentation) {
+        StepModel model = StepModel.bundled();
+        return model == null ? segmentation : model.assignSteps(segmentation);
+    }
+
+    /**
+     * Удаляет строки-заголовки "Шаг N:", добавленные {@link #formatSteps(String)}.
+     *
+     * @param formattedText Текст, разделенный на шаги.
+     * @return Текст без заголовков шагов.
+     */
+    public static String removeStepHeaders(String formattedText) {
+        StringBuilder text = new StringBuilder(formattedText.length());
+        int lineStart = 0;
+        while (lineStart < formattedText.length()) {
+            int lineEnd = formattedText.indexOf('\n', lineStart);
+            int next = lineEnd < 0 ? formattedText.length() : lineEnd + 1;
+            if (!isStepHeader(formattedText, lineStart, lineEnd < 0 ? formattedText.length() : lineEnd)) {
+                text.append(formattedText, lineStart, next);
+            }
+            lineStart = next;
+        }
+        return text.toString();
+    }
+
+    /**
+     * Проверяет, что строка имеет вид "Шаг N:".
+     */
+    private static boolean isStepHeader(String text, int start, int end) {
+        String prefix = "Шаг ";
+        if (!text.startsWith(prefix, start) || end - start < prefix.length() + 2 || text.charAt(end - 1) != ':') {
+            return false;
+        }
+        for (int i = start + prefix.length(); i < end - 1; i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,257 @@
+package com.example.cookingbook.openAI;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Двухуровневый кэш ответов API OpenAI. Ключ - хэш SHA-256 модели, ограничения длины ответа
+ * и текста запроса, поэтому одинаковые запросы с одинаковыми параметрами получают один ответ.
+ * <p>
+ * Первый уровень - ограниченный по количеству записей LRU-кэш в памяти; обращение к нему
+ * не блокирует поток. Второй уровень - {@link CompletionStore} (в приложении - таблица
+ * {@code completion_cache} в базе данных); он переживает перезапуск. Записи старше
+ * {@code timeToLive} считаются отсутствующими. Устаревшие записи и записи сверх
+ * {@code maxDiskEntries} (давно не использовавшиеся) периодически удаляются из хранилища.
+ * <p>
+ * Метод {@link #getFromDisk(String)} обращается к хранилищу и не должен вызываться
+ * в потоке JavaFX. {@link #put(String, String)} записывает ответ в хранилище в фоновом
+ * потоке "completion-cache-writer"; записи выполняются по одной, как и в базе данных.
+ * {@link #close()} дожидается записей, поставленных в очередь.
+ * <p>
+ * Размеры задаются системными свойствами {@code cookingbook.openai.cache.memoryEntries}
+ * и {@code cookingbook.openai.cache.diskEntries}, время жизни записи в часах - свойством
+ * {@code cookingbook.openai.cache.ttlHours}.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class CompletionCache {
+
+    private static final int DEFAULT_MEMORY_ENTRIES = 512;
+    private static final int DEFAULT_DISK_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL_HOURS = 30 * 24;
+    private static final int TRIM_INTERVAL = 64;
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    private final CompletionStore store;
+    private final int maxDiskEntries;
+    private final long timeToLiveMillis;
+    private final Map<String, Entry> memory;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "completion-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicInteger putsSinceTrim = new AtomicInteger(TRIM_INTERVAL);
+
+    private record Entry(String response, long createdAt) {
+    }
+
+    /**
+     * Конструктор кэша.
+     *
+     * @param store            Хранилище второго уровня или {@code null},
+     *                         если ответы нужно хранить только в памяти.
+     * @param maxMemoryEntries Максимальное количество ответов в памяти.
+     * @param maxDiskEntries   Максимальное количество ответов в хранилище.
+     * @param timeToLive       Время жизни ответа.
+     */
+    public CompletionCache(CompletionStore store, int maxMemoryEntries, int maxDiskEntries, Duration timeToLive) {
+        this.store = store;
+        this.maxDiskEntries = maxDiskEntries;
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= maxMemoryEntries) {
+                    return false;
+                }
+                evictions.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Создает кэш с размерами из системных свойств.
+     *
+     * @param store Хранилище второго уровня или {@code null}.
+     * @return Кэш ответов.
+     */
+    public static CompletionCache fromSystemProperties(CompletionStore store) {
+        return new CompletionCache(store,
+                Integer.getInteger("cookingbook.openai.cache.memoryEntries", DEFAULT_MEMORY_ENTRIES),
+                Integer.getInteger("cookingbook.openai.cache.diskEntries", DEFAULT_DISK_ENTRIES),
+                Duration.ofHours(Long.getLong("cookingbook.openai.cache.ttlHours", DEFAULT_TTL_HOURS)));
+    }
+
+    /**
+     * Вычисляет ключ кэша для запроса.
+     *
+     * @param settings Параметры подключения; учитываются модель и ограничение длины ответа.
+     * @param prompt   Текст запроса.
+     * @return Ключ кэша.
+     */
+    public static String key(OpenAISettings settings, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(settings.model().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(settings.maxTokens()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(prompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Ищет ответ в памяти. Не обращается к базе данных.
+     *
+     * @param key Ключ кэша.
+     * @return Ответ или {@code null}, если в памяти его нет.
+     */
+    public String getFromMemory(String key) {
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry.createdAt())) {
+                memory.remove(key);
+                return null;
+            }
+            memoryHits.incrementAndGet();
+            return entry.response();
+        }
+    }
+
+    /**
+     * Ищет ответ в хранилище и при успехе переносит его в память.
+     * Вызывается после промаха в памяти.
+     *
+     * @param key Ключ кэша.
+     * @return Ответ или {@code null}, если его нужно запросить у API.
+     */
+    public String getFromDisk(String key) {
+        Entry entry = store != null ? loadEntry(key) : null;
+        if (entry == null || isExpired(entry.createdAt())) {
+            misses.incrementAndGet();
+            return null;
+        }
+        diskHits.incrementAndGet();
+        synchronized (memory) {
+            memory.put(key, entry);
+        }
+        write(() -> touch(key));
+        return entry.response();
+    }
+
+    /**
+     * Сохраняет ответ в памяти сразу, а в хранилище - в фоновом потоке.
+     *
+     * @param key      Ключ кэша.
+     * @param response Ответ API.
+     */
+    public void put(String key, String response) {
+        if (response == null || response.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            memory.put(key, new Entry(response, now));
+        }
+        if (store != null) {
+            write(() -> store(key, response, now));
+        }
+    }
+
+    /**
+     * Прекращает запись в хранилище и ждет записей, уже поставленных в очередь.
+     * После закрытия ответы сохраняются только в памяти.
+     */
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Completion cache writes did not finish in " + CLOSE_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Кэш закрыт: ответ остается только в памяти.
+        }
+    }
+
+    private void store(String key, String response, long now) {
+        try {
+            store.save(key, response, now);
+            if (putsSinceTrim.incrementAndGet() >= TRIM_INTERVAL) {
+                putsSinceTrim.set(0);
+                store.trim(now - timeToLiveMillis, maxDiskEntries);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Возвращает статистику обращений к кэшу.
+     *
+     * @return Статистика кэша.
+     */
+    public CompletionCacheStatistics getStatistics() {
+        int memoryEntries;
+        synchronized (memory) {
+            memoryEntries = memory.size();
+        }
+        return new CompletionCacheStatistics(memoryHits.get(), diskHits.get(), misses.get(), evictions.get(),
+                memoryEntries);
+    }
+
+    private boolean isExpired(long createdAt) {
+        return System.currentTimeMillis() - createdAt > timeToLiveMillis;
+    }
+
+    private Entry loadEntry(String key) {
+        try {
+            CompletionStore.StoredCompletion stored = store.load(key);
+            return stored == null ? null : new Entry(stored.response(), stored.createdAt());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void touch(String key) {
+        try {
+            store.touch(key, System.currentTimeMillis());
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
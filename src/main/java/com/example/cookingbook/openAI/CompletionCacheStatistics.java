@@ -0,0 +1,27 @@
+package com.example.cookingbook.openAI;
+
+/**
+ * Статистика обращений к кэшу ответов API OpenAI.
+ *
+ * @param memoryHits    Количество ответов, найденных в памяти.
+ * @param diskHits      Количество ответов, найденных в базе данных.
+ * @param misses        Количество запросов, потребовавших обращения к API.
+ * @param evictions     Количество ответов, вытесненных из памяти.
+ * @param memoryEntries Количество ответов в памяти.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record CompletionCacheStatistics(long memoryHits, long diskHits, long misses, long evictions,
+                                        int memoryEntries) {
+
+    /**
+     * Доля запросов, обслуженных из кэша (из памяти или из базы данных).
+     *
+     * @return Значение от 0 до 1.
+     */
+    public double hitRate() {
+        long total = memoryHits + diskHits + misses;
+        return total == 0 ? 0 : (double) (memoryHits + diskHits) / total;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.cookingbook.openAI;
+
+import java.sql.SQLException;
+
+/**
+ * Постоянное хранилище ответов API OpenAI - второй уровень {@link CompletionCache}.
+ * Кэш сам решает, какие записи устарели, и вызывает методы хранилища из фоновых потоков,
+ * поэтому реализация может обращаться к базе данных синхронно.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public interface CompletionStore {
+
+    /**
+     * Сохраненный ответ.
+     *
+     * @param response  Текст ответа.
+     * @param createdAt Время сохранения в миллисекундах эпохи.
+     */
+    record StoredCompletion(String response, long createdAt) {
+    }
+
+    /**
+     * Ищет ответ по ключу.
+     *
+     * @param key Ключ кэша.
+     * @return Ответ или {@code null}, если его нет.
+     * @throws SQLException Если хранилище недоступно.
+     */
+    StoredCompletion load(String key) throws SQLException;
+
+    /**
+     * Сохраняет ответ, заменяя прежний ответ с тем же ключом.
+     *
+     * @param key       Ключ кэша.
+     * @param response  Текст ответа.
+     * @param createdAt Время сохранения в миллисекундах эпохи.
+     * @throws SQLException Если запись не удалась.
+     */
+    void save(String key, String response, long createdAt) throws SQLException;
+
+    /**
+     * Отмечает обращение к ответу; давно не использовавшиеся ответы удаляются первыми.
+     *
+     * @param key        Ключ кэша.
+     * @param accessedAt Время обращения в миллисекундах эпохи.
+     * @throws SQLException Если запись не удалась.
+     */
+    void touch(String key, long accessedAt) throws SQLException;
+
+    /**
+     * Удаляет ответы, сохраненные раньше {@code expiredBefore}, и давно не использовавшиеся
+     * ответы сверх {@code maxEntries}.
+     *
+     * @param expiredBefore Граница времени сохранения в миллисекундах эпохи.
+     * @param maxEntries    Максимальное количество ответов в хранилище.
+     * @throws SQLException Если запись не удалась.
+     */
+    void trim(long expiredBefore, int maxEntries) throws SQLException;
+}
@@ -0,0 +1,46 @@
+package com.example.cookingbook.openAI;
+
+import java.io.IOException;
+
+/**
+ * Ошибка, которую вернул сервер API OpenAI.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class OpenAIException extends IOException {
+
+    private final int statusCode;
+    private final long retryAfterSeconds;
+
+    /**
+     * Конструктор исключения.
+     *
+     * @param statusCode        Код ответа HTTP.
+     * @param body              Тело ответа с описанием ошибки.
+     * @param retryAfterSeconds Значение заголовка Retry-After или 0, если его нет.
+     */
+    public OpenAIException(int statusCode, String body, long retryAfterSeconds) {
+        super("OpenAI request failed with HTTP " + statusCode + ": " + body);
+        this.statusCode = statusCode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Проверяет, что ошибка временная и запрос имеет смысл повторить.
+     *
+     * @return {@code true} для ответов 408, 429 и 5xx.
+     */
+    public boolean isRetryable() {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+}
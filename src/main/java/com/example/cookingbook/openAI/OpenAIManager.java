@@ -1,41 +1,541 @@
 package com.example.cookingbook.openAI;
 
-import java.io.BufferedReader;
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.metrics.Operation;
+import com.example.cookingbook.util.Json;
+
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * Клиент API OpenAI для получения текстовых дополнений.
+ * <p>
+ * Все запросы идут через один общий {@link HttpClient}, поэтому соединения переиспользуются
+ * (HTTP/2, если его поддерживает сервер). Запросы асинхронные и возвращают
+ * {@link CompletableFuture}; ответ можно получать по частям через Server-Sent Events.
+ * Временные ошибки (обрыв соединения, тайм-аут, ответы 408, 429 и 5xx) повторяются
+ * с экспоненциально растущей задержкой. Параметры подключения описывает {@link OpenAISettings}.
+ * <p>
+ * Если задан {@link CompletionCache}, повторный запрос с тем же текстом и параметрами
+ * не уходит в сеть: ответ берется из памяти или из базы данных. Запросы, ушедшие в сеть,
+ * проходят через {@link RequestScheduler}, который объединяет одинаковые запросы, ограничивает
+ * частоту и количество одновременных запросов и собирает мелкие запросы в пакеты.
+ * <p>
+ * Через {@link Metrics} измеряются вызовы {@code complete} и {@code stream} целиком (с кэшем
+ * и ожиданием в очереди) и отдельно HTTP-запросы с повторными попытками.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
 public class OpenAIManager {
 
-    private static final String API_KEY = "sk-proj-CmnpZCxfzvdGNHN19YART3BlbkFJXNb8PVSIP58ZvwHAqWIM";
-    private static final String OPENAI_API_URL = "https://api.openai.com/v1/engines/davinci/completions";
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private static final int CACHE_LOOKUP_THREADS = 2;
+
+    private static final Operation COMPLETE = Metrics.operation("OpenAI", "complete");
+    private static final Operation STREAM = Metrics.operation("OpenAI", "stream");
+    private static final Operation COMPLETIONS_REQUEST = Metrics.operation("OpenAI", "completionsRequest");
+    private static final Operation STREAM_REQUEST = Metrics.operation("OpenAI", "streamRequest");
+
+    private static OpenAIManager instance;
+    private static Supplier<CompletionStore> completionStoreFactory = () -> null;
+
+    private final OpenAISettings settings;
+    private final HttpClient httpClient;
+    private final CompletionCache cache;
+    private final RequestScheduler scheduler;
+    private final ExecutorService cacheExecutor;
 
+    /**
+     * Задает хранилище ответов для общего клиента. Фабрика вызывается при создании клиента,
+     * поэтому хранилище (например, база данных) не открывается, пока клиент не нужен.
+     *
+     * @param storeFactory Создает хранилище второго уровня кэша или возвращает {@code null}.
+     */
+    public static synchronized void setCompletionStore(Supplier<CompletionStore> storeFactory) {
+        completionStoreFactory = storeFactory;
+    }
+
+    /**
+     * Возвращает общий для приложения клиент с параметрами из системных свойств.
+     * Ответы кэшируются в памяти и в хранилище, заданном {@link #setCompletionStore(Supplier)}.
+     *
+     * @return Клиент API.
+     */
+    public static synchronized OpenAIManager getInstance() {
+        if (instance == null) {
+            instance = new OpenAIManager(OpenAISettings.fromSystemProperties(),
+                    CompletionCache.fromSystemProperties(completionStoreFactory.get()));
+        }
+        return instance;
+    }
+
+    /**
+     * Закрывает общий клиент, если он был создан.
+     * Вызывается при завершении работы приложения до закрытия базы данных.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * Конструктор клиента без кэша ответов.
+     *
+     * @param settings Параметры подключения.
+     */
+    public OpenAIManager(OpenAISettings settings) {
+        this(settings, null);
+    }
+
+    /**
+     * Конструктор клиента с ограничениями планировщика из системных свойств.
+     *
+     * @param settings Параметры подключения.
+     * @param cache    Кэш ответов или {@code null}, если ответы не нужно кэшировать.
+     */
+    public OpenAIManager(OpenAISettings settings, CompletionCache cache) {
+        this(settings, cache, RequestScheduler.Limits.fromSystemProperties());
+    }
+
+    /**
+     * Конструктор клиента.
+     *
+     * @param settings Параметры подключения.
+     * @param cache    Кэш ответов или {@code null}, если ответы не нужно кэшировать.
+     * @param limits   Ограничения частоты, параллельности и размера пакета запросов.
+     */
+    public OpenAIManager(OpenAISettings settings, CompletionCache cache, RequestScheduler.Limits limits) {
+        this.settings = settings;
+        this.cache = cache;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(settings.connectTimeout())
+                .build();
+        this.scheduler = new RequestScheduler(this::requestCompletions, limits);
+        // Драйвер SQLite держит поток внутри synchronized на время запроса, поэтому поиск
+        // в хранилище идет в нескольких обычных потоках, а не в виртуальных.
+        AtomicInteger number = new AtomicInteger();
+        this.cacheExecutor = Executors.newFixedThreadPool(CACHE_LOOKUP_THREADS, task -> {
+            Thread thread = new Thread(task, "completion-cache-reader-" + number.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Останавливает планировщик запросов (запросы, ожидающие в очереди, отменяются),
+     * затем дожидается начатых поисков в кэше и записей кэша в хранилище.
+     */
+    public void close() {
+        scheduler.close();
+        cacheExecutor.shutdown();
+        try {
+            if (!cacheExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Completion cache lookups did not finish in " + CLOSE_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    /**
+     * Получает дополнение текста, блокируя вызывающий поток до получения ответа.
+     *
+     * @param text Текст запроса.
+     * @return Текст дополнения или {@code null}, если запрос не удался.
+     */
     public static String getCompletion(String text) {
         try {
-            URL url = new URL(OPENAI_API_URL);
-            HttpURLConnection con = (HttpURLConnection) url.openConnection();
-            con.setRequestMethod("POST");
-            con.setRequestProperty("Content-Type", "application/json");
-            con.setRequestProperty("Authorization", "Bearer " + API_KEY);
-            con.setDoOutput(true);
-
-            String requestBody = "{\"prompt\": \"" + text + "\", \"max_tokens\": 200}";
-            con.getOutputStream().write(requestBody.getBytes());
-
-            BufferedReader in = new BufferedReader(new InputStreamReader(con.getInputStream()));
-            String inputLine;
-            StringBuilder response = new StringBuilder();
-            while ((inputLine = in.readLine()) != null) {
-                response.append(inputLine);
-            }
-            in.close();
-
-            return response.toString();
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.err.println("Ошибка при отправке запроса: " + e.getMessage());
+            return getInstance().complete(text).join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = unwrap(e);
+            cause.printStackTrace();
+            System.err.println("Ошибка при отправке запроса: " + cause.getMessage());
             return null;
         }
     }
+
+    /**
+     * Асинхронно получает дополнение текста целиком с интерактивным приоритетом.
+     *
+     * @param prompt Текст запроса.
+     * @return Будущий текст дополнения. Завершается с {@link OpenAIException}, если сервер вернул ошибку.
+     */
+    public CompletableFuture<String> complete(String prompt) {
+        return complete(prompt, RequestScheduler.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Асинхронно получает дополнение текста целиком.
+     *
+     * @param prompt   Текст запроса.
+     * @param priority Приоритет запроса в очереди планировщика.
+     * @return Будущий текст дополнения. Завершается с {@link OpenAIException}, если сервер вернул ошибку.
+     */
+    public CompletableFuture<String> complete(String prompt, RequestScheduler.Priority priority) {
+        return COMPLETE.track(() -> cached(prompt, ignored -> {
+        }, () -> scheduler.submit(prompt, priority)), text -> 1);
+    }
+
+    /**
+     * Отправляет несколько текстов одним запросом. Метод completions принимает массив текстов
+     * и возвращает варианты ответа с номером текста в поле {@code index}.
+     */
+    private CompletableFuture<List<String>> requestCompletions(List<String> prompts) {
+        return COMPLETIONS_REQUEST.track(() -> withRetries(() -> {
+            CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(newRequest(prompts, false),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            CompletableFuture<List<String>> response = exchange
+                    .thenApply(sent -> {
+                        checkStatus(sent);
+                        return completionTexts(Json.parseObject(sent.body()), prompts.size());
+                    })
+                    .orTimeout(settings.requestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            // Отмена зависимого результата не отменяет сам обмен с сервером, поэтому его отменяем явно.
+            response.whenComplete((texts, error) -> {
+                if (error != null) {
+                    exchange.cancel(true);
+                }
+            });
+            return response;
+        }, () -> true), List::size);
+    }
+
+    /**
+     * Асинхронно получает дополнение текста по частям. Каждая часть передается обработчику
+     * сразу после получения; повторная попытка выполняется, только если обработчик еще
+     * не получил ни одной части. Ответ из кэша передается обработчику одной частью.
+     * Каждая попытка целиком, вместе с чтением потока событий, ограничена
+     * {@link OpenAISettings#requestTimeout()}; по истечении срока поток ответа закрывается.
+     *
+     * @param prompt  Текст запроса.
+     * @param onToken Обработчик очередной части ответа. Вызывается в потоке HTTP-клиента.
+     * @return Будущий полный текст дополнения.
+     */
+    public CompletableFuture<String> stream(String prompt, Consumer<String> onToken) {
+        return STREAM.track(() -> cached(prompt, text -> deliver(onToken, text),
+                () -> scheduler.run(RequestScheduler.Priority.INTERACTIVE, () -> requestStream(prompt, onToken))),
+                text -> 1);
+    }
+
+    private CompletableFuture<String> requestStream(String prompt, Consumer<String> onToken) {
+        return STREAM_REQUEST.track(() -> streamWithRetries(prompt, onToken), text -> 1);
+    }
+
+    private CompletableFuture<String> streamWithRetries(String prompt, Consumer<String> onToken) {
+        AtomicBoolean delivered = new AtomicBoolean();
+        return withRetries(() -> {
+            StringBuilder text = new StringBuilder();
+            ServerSentEventSubscriber subscriber = new ServerSentEventSubscriber(event -> {
+                if ("[DONE]".equals(event)) {
+                    return;
+                }
+                String token;
+                try {
+                    token = completionText(Json.parseObject(event));
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping malformed OpenAI event: " + e.getMessage());
+                    return;
+                }
+                if (token.isEmpty()) {
+                    return;
+                }
+                text.append(token);
+                delivered.set(true);
+                deliver(onToken, token);
+            });
+            HttpResponse.BodyHandler<String> handler = responseInfo -> responseInfo.statusCode() / 100 == 2
+                    ? HttpResponse.BodySubscribers.fromLineSubscriber(subscriber, ignored -> text.toString(),
+                    StandardCharsets.UTF_8, null)
+                    : HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+            CompletableFuture<HttpResponse<String>> exchange = httpClient.sendAsync(newRequest(List.of(prompt), true), handler);
+            CompletableFuture<String> response = exchange
+                    .thenApply(sent -> {
+                        checkStatus(sent);
+                        return sent.body();
+                    })
+                    .orTimeout(settings.requestTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            // HttpRequest.timeout ограничивает только ожидание заголовков; поток событий после них
+            // закрывается здесь, если попытка не уложилась в срок или была отменена.
+            response.whenComplete((body, error) -> {
+                if (error != null) {
+                    subscriber.cancel();
+                    exchange.cancel(true);
+                }
+            });
+            return response;
+        }, () -> !delivered.get());
+    }
+
+    /**
+     * Возвращает статистику кэша ответов.
+     *
+     * @return Статистика или {@code null}, если клиент работает без кэша.
+     */
+    public CompletionCacheStatistics getCacheStatistics() {
+        return cache == null ? null : cache.getStatistics();
+    }
+
+    private static void deliver(Consumer<String> onToken, String token) {
+        try {
+            onToken.accept(token);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ищет ответ в кэше и только при промахе выполняет запрос, сохраняя его результат.
+     * Поиск в памяти выполняется сразу, поиск в базе данных - в фоновом потоке.
+     *
+     * @param prompt  Текст запроса.
+     * @param onHit   Получает ответ, найденный в кэше.
+     * @param request Выполняет запрос к API.
+     */
+    private CompletableFuture<String> cached(String prompt, Consumer<String> onHit,
+                                             Supplier<CompletableFuture<String>> request) {
+        if (cache == null) {
+            return request.get();
+        }
+        String key = CompletionCache.key(settings, prompt);
+        String remembered = cache.getFromMemory(key);
+        if (remembered != null) {
+            onHit.accept(remembered);
+            return CompletableFuture.completedFuture(remembered);
+        }
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<String>> running = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<String> response = running.get();
+            if (result.isCancelled() && response != null) {
+                response.cancel(true);
+            }
+        });
+        CompletableFuture<String> lookup;
+        try {
+            lookup = CompletableFuture.supplyAsync(() -> cache.getFromDisk(key), cacheExecutor);
+        } catch (RejectedExecutionException e) {
+            // Клиент закрыт: хранилище кэша больше не читается.
+            return request.get();
+        }
+        lookup.whenComplete((stored, error) -> {
+            if (result.isDone()) {
+                return;
+            }
+            if (stored != null) {
+                onHit.accept(stored);
+                result.complete(stored);
+                return;
+            }
+            CompletableFuture<String> response = request.get();
+            running.set(response);
+            if (result.isCancelled()) {
+                response.cancel(true);
+            }
+            response.whenComplete((text, failure) -> {
+                if (failure != null) {
+                    result.completeExceptionally(unwrap(failure));
+                    return;
+                }
+                cache.put(key, text);
+                result.complete(text);
+            });
+        });
+        return result;
+    }
+
+    private HttpRequest newRequest(List<String> prompts, boolean stream) {
+        StringBuilder body = new StringBuilder(128);
+        body.append("{\"model\": ");
+        Json.appendQuoted(body, settings.model());
+        body.append(", \"prompt\": ");
+        if (prompts.size() == 1) {
+            Json.appendQuoted(body, prompts.get(0));
+        } else {
+            body.append('[');
+            for (int i = 0; i < prompts.size(); i++) {
+                if (i > 0) {
+                    body.append(", ");
+                }
+                Json.appendQuoted(body, prompts.get(i));
+            }
+            body.append(']');
+        }
+        body.append(", \"max_tokens\": ").append(settings.maxTokens());
+        if (stream) {
+            body.append(", \"stream\": true");
+        }
+        body.append('}');
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(settings.endpoint())
+                .timeout(settings.requestTimeout())
+                .header("Content-Type", "application/json")
+                .header("Accept", stream ? "text/event-stream" : "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8));
+        if (settings.apiKey() != null && !settings.apiKey().isEmpty()) {
+            request.header("Authorization", "Bearer " + settings.apiKey());
+        }
+        return request.build();
+    }
+
+    /**
+     * Выполняет запрос с повторными попытками. Отмена возвращенного результата
+     * отменяет текущую попытку и прекращает повторы.
+     *
+     * @param attempt      Выполняет одну попытку запроса.
+     * @param retryAllowed Проверяет, можно ли повторить запрос после ошибки.
+     */
+    private <T> CompletableFuture<T> withRetries(Supplier<CompletableFuture<T>> attempt, BooleanSupplier retryAllowed) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<T> running = current.get();
+            if (result.isCancelled() && running != null) {
+                running.cancel(true);
+            }
+        });
+        runAttempt(attempt, retryAllowed, 0, result, current);
+        return result;
+    }
+
+    private <T> void runAttempt(Supplier<CompletableFuture<T>> attempt, BooleanSupplier retryAllowed, int number,
+                                CompletableFuture<T> result, AtomicReference<CompletableFuture<T>> current) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<T> running = attempt.get();
+        current.set(running);
+        running.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (number < settings.maxRetries() && isRetryable(cause) && retryAllowed.getAsBoolean() && !result.isDone()) {
+                long delay = backoffMillis(number, cause);
+                System.err.println("OpenAI request failed (" + cause + "), retrying in " + delay + " ms");
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                        .execute(() -> runAttempt(attempt, retryAllowed, number + 1, result, current));
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof OpenAIException openAIException) {
+            return openAIException.isRetryable();
+        }
+        return error instanceof IOException || error instanceof TimeoutException;
+    }
+
+    /**
+     * Вычисляет задержку перед повторной попыткой: экспоненциальный рост со случайным
+     * разбросом, но не меньше значения заголовка Retry-After.
+     */
+    private long backoffMillis(int attempt, Throwable error) {
+        long exponential = Math.min(MAX_BACKOFF_MILLIS, settings.initialBackoff().toMillis() << Math.min(attempt, 20));
+        long delay = exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+        if (error instanceof OpenAIException openAIException && openAIException.getRetryAfterSeconds() > 0) {
+            delay = Math.max(delay, TimeUnit.SECONDS.toMillis(openAIException.getRetryAfterSeconds()));
+        }
+        return delay;
+    }
+
+    private static void checkStatus(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            long retryAfter = response.headers().firstValue("Retry-After")
+                    .map(OpenAIManager::parseRetryAfter).orElse(0L);
+            throw new CompletionException(new OpenAIException(response.statusCode(), response.body(), retryAfter));
+        }
+    }
+
+    private static long parseRetryAfter(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Извлекает текст первого варианта ответа. Поддерживает ответы метода completions
+     * ({@code choices[0].text}) и частичные ответы чата ({@code choices[0].delta.content}).
+     */
+    private static String completionText(Map<String, Object> response) {
+        Object choices = response.get("choices");
+        if (!(choices instanceof List<?> list) || list.isEmpty() || !(list.get(0) instanceof Map<?, ?> choice)) {
+            return "";
+        }
+        return choiceText(choice);
+    }
+
+    /**
+     * Извлекает тексты ответов на пакетный запрос, расставляя их по полю {@code index}.
+     * Тексты, для которых сервер не вернул варианта, остаются пустыми.
+     */
+    private static List<String> completionTexts(Map<String, Object> response, int promptCount) {
+        List<String> texts = new ArrayList<>(Collections.nCopies(promptCount, ""));
+        if (!(response.get("choices") instanceof List<?> choices)) {
+            return texts;
+        }
+        for (int i = 0; i < choices.size(); i++) {
+            if (choices.get(i) instanceof Map<?, ?> choice) {
+                int index = choice.get("index") instanceof Long number ? number.intValue() : i;
+                if (index >= 0 && index < promptCount) {
+                    texts.set(index, choiceText(choice));
+                }
+            }
+        }
+        return texts;
+    }
+
+    private static String choiceText(Map<?, ?> choice) {
+        if (choice.get("text") instanceof String text) {
+            return text;
+        }
+        if (choice.get("delta") instanceof Map<?, ?> delta && delta.get("content") instanceof String content) {
+            return content;
+        }
+        return "";
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
 }
@@ -0,0 +1,50 @@
+package com.example.cookingbook.openAI;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Параметры подключения к API OpenAI.
+ * <p>
+ * {@link #fromSystemProperties()} читает системные свойства {@code cookingbook.openai.url},
+ * {@code cookingbook.openai.apiKey} (по умолчанию - переменная окружения {@code OPENAI_API_KEY}),
+ * {@code cookingbook.openai.model}, {@code cookingbook.openai.maxTokens},
+ * {@code cookingbook.openai.connectTimeoutMillis}, {@code cookingbook.openai.requestTimeoutMillis}
+ * и {@code cookingbook.openai.maxRetries}. Адрес можно направить на локальную заглушку сервера.
+ *
+ * @param endpoint       Адрес метода completions.
+ * @param apiKey         Ключ API или {@code null}, если сервер не требует авторизации.
+ * @param model          Модель.
+ * @param maxTokens      Максимальное количество токенов ответа.
+ * @param connectTimeout Время ожидания установки соединения.
+ * @param requestTimeout Время ожидания ответа целиком.
+ * @param maxRetries     Количество повторных попыток после временной ошибки.
+ * @param initialBackoff Задержка перед первой повторной попыткой; каждая следующая вдвое больше.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record OpenAISettings(URI endpoint, String apiKey, String model, int maxTokens,
+                             Duration connectTimeout, Duration requestTimeout,
+                             int maxRetries, Duration initialBackoff) {
+
+    private static final String DEFAULT_ENDPOINT = "https://api.openai.com/v1/completions";
+    private static final String DEFAULT_MODEL = "gpt-3.5-turbo-instruct";
+
+    /**
+     * Создает параметры из системных свойств.
+     *
+     * @return Параметры подключения.
+     */
+    public static OpenAISettings fromSystemProperties() {
+        return new OpenAISettings(
+                URI.create(System.getProperty("cookingbook.openai.url", DEFAULT_ENDPOINT)),
+                System.getProperty("cookingbook.openai.apiKey", System.getenv("OPENAI_API_KEY")),
+                System.getProperty("cookingbook.openai.model", DEFAULT_MODEL),
+                Integer.getInteger("cookingbook.openai.maxTokens", 200),
+                Duration.ofMillis(Long.getLong("cookingbook.openai.connectTimeoutMillis", 5_000)),
+                Duration.ofMillis(Long.getLong("cookingbook.openai.requestTimeoutMillis", 60_000)),
+                Integer.getInteger("cookingbook.openai.maxRetries", 3),
+                Duration.ofMillis(500));
+    }
+}
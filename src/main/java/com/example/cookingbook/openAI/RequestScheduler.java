@@ -0,0 +1,430 @@
+package com.example.cookingbook.openAI;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Планировщик запросов к API OpenAI.
+ * <p>
+ * Одинаковые запросы, которые уже ожидают ответа, объединяются: к API уходит один запрос,
+ * а его ответ получают все вызывающие. Количество одновременно выполняемых запросов
+ * ограничено, а частота их отправки ограничена алгоритмом token bucket. Запросы ждут
+ * в двух очередях: интерактивные ({@link Priority#INTERACTIVE}) всегда отправляются раньше
+ * фоновых ({@link Priority#BULK}). Если в очереди накопилось несколько текстовых запросов
+ * одного приоритета, они отправляются одним пакетным запросом (до {@code maxBatchSize}
+ * текстов), поэтому пакеты образуются именно тогда, когда упираемся в ограничения,
+ * и не задерживают одиночные запросы.
+ * <p>
+ * Очереди разбирает один фоновый поток "openai-scheduler"; {@link #close()} останавливает его.
+ * Запрос, от которого отказались все ожидающие, убирается из очереди, не расходуя лимит
+ * частоты, а если он уже отправлен и пакет больше никому не нужен, HTTP-запрос отменяется.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class RequestScheduler implements AutoCloseable {
+
+    /**
+     * Приоритет запроса.
+     */
+    public enum Priority {
+        /**
+         * Запрос, ответ на который ждет пользователь.
+         */
+        INTERACTIVE,
+        /**
+         * Фоновый запрос массовой обработки.
+         */
+        BULK
+    }
+
+    /**
+     * Ограничения планировщика.
+     * <p>
+     * {@link #fromSystemProperties()} читает системные свойства
+     * {@code cookingbook.openai.maxConcurrentRequests}, {@code cookingbook.openai.requestsPerMinute},
+     * {@code cookingbook.openai.burstRequests} и {@code cookingbook.openai.maxBatchSize}.
+     *
+     * @param maxConcurrentRequests Максимальное количество одновременно выполняемых запросов.
+     * @param requestsPerMinute     Средняя частота отправки запросов.
+     * @param burstRequests         Количество запросов, которые можно отправить подряд без ожидания.
+     * @param maxBatchSize          Максимальное количество текстов в одном запросе; 1 отключает пакеты.
+     */
+    public record Limits(int maxConcurrentRequests, int requestsPerMinute, int burstRequests, int maxBatchSize) {
+
+        /**
+         * Создает ограничения из системных свойств.
+         *
+         * @return Ограничения планировщика.
+         */
+        public static Limits fromSystemProperties() {
+            return new Limits(
+                    Integer.getInteger("cookingbook.openai.maxConcurrentRequests", 4),
+                    Integer.getInteger("cookingbook.openai.requestsPerMinute", 60),
+                    Integer.getInteger("cookingbook.openai.burstRequests", 5),
+                    Integer.getInteger("cookingbook.openai.maxBatchSize", 8));
+        }
+    }
+
+    /**
+     * Запрос в очереди. Текстовый запрос ({@code prompt != null}) можно объединить
+     * с другими в пакет; прочие запросы выполняются по одному через {@code request}.
+     * Поля {@code priority} и {@code waiters} изменяются только под блокировкой планировщика.
+     */
+    private static final class Job {
+        final String prompt;
+        final Supplier<CompletableFuture<?>> request;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        Priority priority;
+        int waiters;
+
+        Job(String prompt, Priority priority, Supplier<CompletableFuture<?>> request) {
+            this.prompt = prompt;
+            this.priority = priority;
+            this.request = request;
+        }
+    }
+
+    private final Function<List<String>, CompletableFuture<List<String>>> batchSender;
+    private final Limits limits;
+    private final Semaphore concurrency;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Job> interactive = new ArrayDeque<>();
+    private final Deque<Job> bulk = new ArrayDeque<>();
+    private final Map<String, Job> inFlight = new HashMap<>();
+    private final double tokensPerNano;
+    private final Thread dispatcher;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+    private boolean closed;
+
+    /**
+     * Конструктор планировщика. Запускает поток, разбирающий очереди.
+     *
+     * @param batchSender Отправляет тексты одним запросом и возвращает ответы в том же порядке.
+     * @param limits      Ограничения планировщика.
+     */
+    public RequestScheduler(Function<List<String>, CompletableFuture<List<String>>> batchSender, Limits limits) {
+        this.batchSender = batchSender;
+        this.limits = limits;
+        this.concurrency = new Semaphore(Math.max(1, limits.maxConcurrentRequests()));
+        this.tokensPerNano = Math.max(1, limits.requestsPerMinute()) / (double) TimeUnit.MINUTES.toNanos(1);
+        this.tokens = Math.max(1, limits.burstRequests());
+        this.dispatcher = new Thread(this::dispatchLoop, "openai-scheduler");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Ставит текстовый запрос в очередь. Если такой же запрос уже ждет ответа, новый запрос
+     * не создается; если при этом новый приоритет выше, ожидающий запрос переносится
+     * в очередь с более высоким приоритетом.
+     *
+     * @param prompt   Текст запроса.
+     * @param priority Приоритет.
+     * @return Будущий ответ. Его отмена не отменяет запрос для остальных ожидающих;
+     * когда ответа не ждет никто, запрос отменяется.
+     */
+    public CompletableFuture<String> submit(String prompt, Priority priority) {
+        CompletableFuture<String> waiter;
+        Job job;
+        lock.lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Request scheduler is closed"));
+            }
+            job = inFlight.get(prompt);
+            if (job != null) {
+                if (priority.compareTo(job.priority) < 0 && queue(job.priority).remove(job)) {
+                    job.priority = priority;
+                    queue(priority).addLast(job);
+                    changed.signal();
+                }
+            } else {
+                job = new Job(prompt, priority, null);
+                inFlight.put(prompt, job);
+                Job created = job;
+                job.result.whenComplete((value, error) -> forget(created));
+                enqueue(job);
+            }
+            job.waiters++;
+            waiter = job.result.copy();
+        } finally {
+            lock.unlock();
+        }
+        Job waited = job;
+        waiter.whenComplete((value, error) -> {
+            if (waiter.isCancelled()) {
+                abandon(waited);
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * Ставит в очередь запрос, который нельзя объединить в пакет (например, потоковый).
+     * Запрос соблюдает общие ограничения частоты и количества одновременных запросов.
+     *
+     * @param priority Приоритет.
+     * @param request  Выполняет запрос; место в лимите одновременных запросов освобождается
+     *                 после завершения возвращенного им результата.
+     * @return Будущий результат запроса. Отмена отменяет ожидание в очереди или сам запрос.
+     */
+    public <T> CompletableFuture<T> run(Priority priority, Supplier<CompletableFuture<T>> request) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Job job = new Job(null, priority, () -> {
+            if (result.isDone()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<T> running = request.get();
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    running.cancel(true);
+                }
+            });
+            running.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            return running;
+        });
+        lock.lock();
+        try {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Request scheduler is closed"));
+            }
+            job.waiters = 1;
+            enqueue(job);
+        } finally {
+            lock.unlock();
+        }
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                abandon(job);
+            }
+        });
+        job.result.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Останавливает поток, разбирающий очереди, и отменяет запросы, которые еще ждут в очереди.
+     * Уже отправленные запросы завершаются как обычно. Новые запросы после закрытия
+     * завершаются с {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        List<Job> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            dropped.addAll(interactive);
+            dropped.addAll(bulk);
+            interactive.clear();
+            bulk.clear();
+        } finally {
+            lock.unlock();
+        }
+        dispatcher.interrupt();
+        for (Job job : dropped) {
+            job.result.cancel(false);
+        }
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Deque<Job> queue(Priority priority) {
+        return priority == Priority.INTERACTIVE ? interactive : bulk;
+    }
+
+    private void enqueue(Job job) {
+        queue(job.priority).addLast(job);
+        changed.signal();
+    }
+
+    /**
+     * Уменьшает число ожидающих запроса. Когда ожидающих не осталось, запрос убирается
+     * из очереди, а его результат отменяется; для отправленного пакета это отменяет
+     * HTTP-запрос, если отменены все запросы пакета.
+     */
+    private void abandon(Job job) {
+        lock.lock();
+        try {
+            if (--job.waiters > 0) {
+                return;
+            }
+            queue(job.priority).remove(job);
+            if (job.prompt != null) {
+                inFlight.remove(job.prompt, job);
+            }
+        } finally {
+            lock.unlock();
+        }
+        job.result.cancel(false);
+    }
+
+    private void forget(Job job) {
+        lock.lock();
+        try {
+            inFlight.remove(job.prompt, job);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatchLoop() {
+        try {
+            while (true) {
+                concurrency.acquire();
+                List<Job> jobs;
+                lock.lock();
+                try {
+                    // Очередь проверяется после каждого ожидания: пока поток ждал токен,
+                    // запросы могли быть отменены, и токен на них тратить не нужно.
+                    while (true) {
+                        if (closed) {
+                            return;
+                        }
+                        if (interactive.isEmpty() && bulk.isEmpty()) {
+                            changed.await();
+                            continue;
+                        }
+                        long wait = reserveToken();
+                        if (wait == 0) {
+                            break;
+                        }
+                        changed.awaitNanos(wait);
+                    }
+                    jobs = takeNext();
+                } finally {
+                    lock.unlock();
+                }
+                start(jobs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Пополняет ведро токенов и забирает один токен.
+     *
+     * @return 0, если токен получен, иначе время в наносекундах до появления токена.
+     */
+    private long reserveToken() {
+        long now = System.nanoTime();
+        tokens = Math.min(Math.max(1, limits.burstRequests()), tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    /**
+     * Забирает из очереди с наивысшим приоритетом первый запрос и, если он текстовый,
+     * остальные текстовые запросы той же очереди до заполнения пакета.
+     */
+    private List<Job> takeNext() {
+        Deque<Job> queue = interactive.isEmpty() ? bulk : interactive;
+        Job first = queue.pollFirst();
+        List<Job> jobs = new ArrayList<>();
+        jobs.add(first);
+        if (first.prompt == null) {
+            return jobs;
+        }
+        Iterator<Job> iterator = queue.iterator();
+        while (jobs.size() < limits.maxBatchSize() && iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.prompt != null) {
+                iterator.remove();
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Отправляет запросы, забранные из очереди. Место в лимите одновременных запросов
+     * освобождается после завершения запроса.
+     */
+    private void start(List<Job> jobs) {
+        CompletableFuture<?> running;
+        try {
+            running = jobs.get(0).prompt == null ? jobs.get(0).request.get() : sendBatch(jobs);
+        } catch (RuntimeException e) {
+            concurrency.release();
+            for (Job job : jobs) {
+                job.result.completeExceptionally(e);
+            }
+            return;
+        }
+        running.whenComplete((value, error) -> concurrency.release());
+    }
+
+    private CompletableFuture<List<String>> sendBatch(List<Job> jobs) {
+        List<String> prompts = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            prompts.add(job.prompt);
+        }
+        CompletableFuture<List<String>> response = batchSender.apply(prompts);
+        for (Job job : jobs) {
+            job.result.whenComplete((text, error) -> {
+                if (job.result.isCancelled() && allCancelled(jobs)) {
+                    response.cancel(true);
+                }
+            });
+        }
+        response.whenComplete((texts, error) -> {
+            for (int i = 0; i < jobs.size(); i++) {
+                if (error != null) {
+                    jobs.get(i).result.completeExceptionally(error);
+                } else if (i < texts.size()) {
+                    jobs.get(i).result.complete(texts.get(i));
+                } else {
+                    jobs.get(i).result.completeExceptionally(
+                            new IOException("OpenAI returned " + texts.size() + " answers for " + jobs.size() + " prompts"));
+                }
+            }
+        });
+        return response;
+    }
+
+    private static boolean allCancelled(List<Job> jobs) {
+        for (Job job : jobs) {
+            if (!job.result.isCancelled()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.cookingbook.openAI;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Разбирает поток Server-Sent Events по строкам и передает данные каждого события
+ * обработчику по мере поступления. Строки {@code data:} одного события объединяются
+ * через перевод строки, событие завершается пустой строкой.
+ * <p>
+ * Метод {@link #cancel()} отменяет подписку: HTTP-клиент закрывает поток ответа, а уже
+ * полученные, но не разобранные строки обработчику не передаются.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class ServerSentEventSubscriber implements Flow.Subscriber<String> {
+
+    private final Consumer<String> onEvent;
+    private final StringBuilder data = new StringBuilder();
+    private boolean hasData;
+    private volatile Flow.Subscription subscription;
+    private volatile boolean cancelled;
+
+    /**
+     * @param onEvent Обработчик данных события. Вызывается в потоке HTTP-клиента.
+     */
+    ServerSentEventSubscriber(Consumer<String> onEvent) {
+        this.onEvent = onEvent;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        if (cancelled) {
+            subscription.cancel();
+        } else {
+            subscription.request(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Отменяет подписку на поток ответа. Может вызываться из любого потока, в том числе до подписки.
+     */
+    void cancel() {
+        cancelled = true;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    @Override
+    public void onNext(String line) {
+        if (cancelled) {
+            return;
+        }
+        if (line.isEmpty()) {
+            dispatch();
+        } else if (line.startsWith("data:")) {
+            if (hasData) {
+                data.append('\n');
+            }
+            data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+            hasData = true;
+        }
+        // Комментарии и поля event, id, retry не используются.
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        data.setLength(0);
+        hasData = false;
+    }
+
+    @Override
+    public void onComplete() {
+        dispatch();
+    }
+
+    private void dispatch() {
+        if (!hasData || cancelled) {
+            return;
+        }
+        String event = data.toString();
+        data.setLength(0);
+        hasData = false;
+        onEvent.accept(event);
+    }
+}
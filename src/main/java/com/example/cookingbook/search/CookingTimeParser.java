@@ -0,0 +1,176 @@
+package com.example.cookingbook.search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Переводит время приготовления, записанное в свободной форме, в минуты.
+ * <p>
+ * Понимает числа с единицами измерения на русском и английском ("40 минут", "1 ч 15 мин",
+ * "1,5 часа", "2h 30m", "1 сутки"), запись вида "1:30" и слова "час", "полчаса", "полтора".
+ * Единицы узнаются только в известных формах слова, поэтому "часто" или "дно" временем не считаются.
+ * Число без единицы считается минутами, а после единицы - следующей меньшей единицей
+ * ("1 ч 15" - 75 минут). Для диапазона ("30-40 мин", "от 20 до 25 минут", "1-2 часа")
+ * берется верхняя граница. Секунды округляются вверх до минуты.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class CookingTimeParser {
+
+    /**
+     * Значение, которое возвращается, если время распознать не удалось.
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final double SECOND = 1.0 / 60;
+    private static final double MINUTE = 1;
+    private static final double HOUR = 60;
+    private static final double DAY = 24 * 60;
+
+    /**
+     * Формы слов, обозначающих единицы измерения, с их длительностью в минутах.
+     */
+    private static final Map<String, Double> UNITS = units();
+
+    private CookingTimeParser() {
+    }
+
+    private static Map<String, Double> units() {
+        Map<String, Double> units = new HashMap<>();
+        for (String word : new String[]{"сек", "секунда", "секунды", "секунд", "секунду",
+                "s", "sec", "secs", "second", "seconds"}) {
+            units.put(word, SECOND);
+        }
+        for (String word : new String[]{"м", "мин", "минута", "минуты", "минут", "минуту", "минутой",
+                "минутка", "минутки", "минуток", "m", "min", "mins", "minute", "minutes"}) {
+            units.put(word, MINUTE);
+        }
+        for (String word : new String[]{"ч", "час", "часа", "часов", "часу", "часом", "часик", "часика",
+                "часиков", "h", "hr", "hrs", "hour", "hours"}) {
+            units.put(word, HOUR);
+        }
+        for (String word : new String[]{"д", "дн", "день", "дня", "дней", "дням", "сут", "сутки", "суток",
+                "day", "days"}) {
+            units.put(word, DAY);
+        }
+        return units;
+    }
+
+    /**
+     * Переводит время приготовления в минуты.
+     *
+     * @param cookingTime Время приготовления в свободной форме.
+     * @return Количество минут или {@link #UNKNOWN}, если в тексте нет распознаваемого времени.
+     */
+    public static int parseMinutes(String cookingTime) {
+        if (cookingTime == null) {
+            return UNKNOWN;
+        }
+        double total = 0;
+        double pending = Double.NaN;
+        double lastUnit = 0;
+        boolean range = false;
+        boolean recognized = false;
+        int length = cookingTime.length();
+        int i = 0;
+        while (i < length) {
+            char c = cookingTime.charAt(i);
+            if (Character.isDigit(c)) {
+                int start = i;
+                while (i < length && (Character.isDigit(cookingTime.charAt(i)) || isDecimalSeparator(cookingTime, i))) {
+                    i++;
+                }
+                double number = Double.parseDouble(cookingTime.substring(start, i).replace(',', '.'));
+                if (range) {
+                    // Верхняя граница диапазона заменяет нижнюю.
+                    if (Double.isNaN(pending)) {
+                        total = 0;
+                    }
+                    pending = Double.NaN;
+                    range = false;
+                } else if (!Double.isNaN(pending)) {
+                    total += pending * smallerUnit(lastUnit);
+                }
+                if (i + 1 < length && cookingTime.charAt(i) == ':' && Character.isDigit(cookingTime.charAt(i + 1))) {
+                    int minutesStart = ++i;
+                    while (i < length && Character.isDigit(cookingTime.charAt(i))) {
+                        i++;
+                    }
+                    total += number * HOUR + Integer.parseInt(cookingTime.substring(minutesStart, i));
+                    lastUnit = MINUTE;
+                } else {
+                    pending = number;
+                }
+                recognized = true;
+            } else if (Character.isLetter(c)) {
+                int start = i;
+                while (i < length && Character.isLetter(cookingTime.charAt(i))) {
+                    i++;
+                }
+                String word = cookingTime.substring(start, i).toLowerCase();
+                if (word.equals("до") || word.equals("to")) {
+                    range = recognized;
+                } else if (word.equals("полтора") || word.equals("полторы")) {
+                    pending = 1.5;
+                } else if (word.equals("пол")) {
+                    pending = 0.5;
+                } else if (word.equals("полчаса") || word.equals("полчасика")) {
+                    total += (Double.isNaN(pending) ? 0.5 : pending * 0.5) * HOUR;
+                    pending = Double.NaN;
+                    lastUnit = HOUR;
+                    recognized = true;
+                } else {
+                    double unit = unit(word);
+                    if (unit > 0 && (!Double.isNaN(pending) || unit >= HOUR)) {
+                        if (range) {
+                            total = 0;
+                            range = false;
+                        }
+                        total += (Double.isNaN(pending) ? 1 : pending) * unit;
+                        pending = Double.NaN;
+                        lastUnit = unit;
+                        recognized = true;
+                    }
+                }
+            } else {
+                if ((c == '-' || c == '–' || c == '—') && recognized) {
+                    range = true;
+                }
+                i++;
+            }
+        }
+        if (!Double.isNaN(pending)) {
+            total += pending * smallerUnit(lastUnit);
+        }
+        return recognized ? (int) Math.ceil(total - 1e-9) : UNKNOWN;
+    }
+
+    /**
+     * Единица числа без подписи: следующая меньшая после последней указанной единицы,
+     * а если единиц еще не было - минуты.
+     */
+    private static double smallerUnit(double lastUnit) {
+        if (lastUnit == DAY) {
+            return HOUR;
+        }
+        if (lastUnit == MINUTE) {
+            return SECOND;
+        }
+        return MINUTE;
+    }
+
+    private static boolean isDecimalSeparator(String text, int i) {
+        char c = text.charAt(i);
+        return (c == '.' || c == ',') && i + 1 < text.length() && Character.isDigit(text.charAt(i + 1));
+    }
+
+    /**
+     * Возвращает длительность единицы измерения в минутах или 0, если слово не является единицей.
+     * Слово сравнивается целиком, поэтому "часто" или "дно" единицами не считаются.
+     */
+    private static double unit(String word) {
+        return UNITS.getOrDefault(word, 0.0);
+    }
+}
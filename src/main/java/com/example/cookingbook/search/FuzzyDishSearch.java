@@ -0,0 +1,158 @@
+package com.example.cookingbook.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Нечеткий поиск блюд по названию и ингредиентам в памяти: находит блюда, когда запрос
+ * написан с опечаткой ("борш"), раздельно ("беф строганов") или в неверной раскладке
+ * клавиатуры (",jho").
+ * <p>
+ * Названия блюд хранятся в {@link TrigramIndex} по идентификатору блюда. Ингредиенты
+ * ищутся в два шага: по триграммам находятся похожие названия ингредиентов (их намного
+ * меньше, чем блюд), а блюда с этими ингредиентами берутся из {@link IngredientIndex}.
+ * Запрос проверяется как есть и после перевода в другую раскладку; для блюда берется
+ * лучшее сходство, совпадение по ингредиенту весит немного меньше совпадения по названию.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class FuzzyDishSearch {
+
+    /**
+     * Минимальная доля триграмм запроса, которые должны найтись в названии.
+     */
+    public static final float MIN_SIMILARITY = 0.5f;
+
+    private static final float INGREDIENT_WEIGHT = 0.9f;
+    private static final int MAX_INGREDIENT_MATCHES = 16;
+
+    private final IngredientIndex ingredientIndex;
+    private final TrigramIndex dishNames = new TrigramIndex();
+    private final TrigramIndex ingredientNames = new TrigramIndex();
+    private final Map<String, Integer> ingredientIds = new HashMap<>();
+    private final List<String> ingredients = new ArrayList<>();
+
+    /**
+     * Результат нечеткого поиска.
+     *
+     * @param dishId     Идентификатор блюда.
+     * @param similarity Сходство запроса с названием или ингредиентом блюда, от 0 до 1.
+     */
+    public record Match(int dishId, float similarity) {
+    }
+
+    /**
+     * Конструктор поиска. Названия ингредиентов сразу берутся из индекса ингредиентов,
+     * названия блюд добавляются методом {@link #add}.
+     *
+     * @param ingredientIndex Индекс ингредиентов, поддерживаемый вместе с этим поиском.
+     */
+    public FuzzyDishSearch(IngredientIndex ingredientIndex) {
+        this.ingredientIndex = ingredientIndex;
+        addIngredients(ingredientIndex.ingredients());
+    }
+
+    /**
+     * Добавляет блюдо в индекс.
+     *
+     * @param dishId      Идентификатор блюда.
+     * @param name        Название блюда.
+     * @param ingredients Нормализованные названия ингредиентов блюда.
+     */
+    public synchronized void add(int dishId, String name, Collection<String> ingredients) {
+        dishNames.add(dishId, name);
+        addIngredients(ingredients);
+    }
+
+    /**
+     * Удаляет название блюда из индекса. Названия ингредиентов остаются: блюда для них
+     * берутся из индекса ингредиентов, где удаленного блюда уже нет.
+     *
+     * @param dishId Идентификатор блюда.
+     * @param name   Название, с которым блюдо было добавлено.
+     */
+    public synchronized void remove(int dishId, String name) {
+        dishNames.remove(dishId, name);
+    }
+
+    /**
+     * Освобождает запас памяти после массового заполнения индекса.
+     */
+    public synchronized void optimize() {
+        dishNames.optimize();
+        ingredientNames.optimize();
+    }
+
+    /**
+     * @return Общее количество пар "триграмма - название" в индексе.
+     */
+    public synchronized long postingCount() {
+        return dishNames.postingCount() + ingredientNames.postingCount();
+    }
+
+    /**
+     * Находит блюда, похожие на запрос.
+     *
+     * @param query Текст запроса.
+     * @param limit Максимальное количество результатов.
+     * @return Блюда по убыванию сходства.
+     */
+    public synchronized List<Match> find(String query, int limit) {
+        List<Match> result = new ArrayList<>();
+        if (query == null || query.isBlank() || limit <= 0) {
+            return result;
+        }
+        List<String> variants = new ArrayList<>(3);
+        variants.add(query);
+        String russian = KeyboardLayout.toRussian(query);
+        if (russian != null) {
+            variants.add(russian);
+        }
+        String latin = KeyboardLayout.toLatin(query);
+        if (latin != null) {
+            variants.add(latin);
+        }
+
+        List<TrigramIndex.Match> byName = dishNames.search(variants, MIN_SIMILARITY, limit);
+        List<TrigramIndex.Match> byIngredient = ingredientNames.search(variants, MIN_SIMILARITY, MAX_INGREDIENT_MATCHES);
+        Set<Integer> found = new HashSet<>();
+        int namePosition = 0;
+        int ingredientPosition = 0;
+        while (result.size() < limit && (namePosition < byName.size() || ingredientPosition < byIngredient.size())) {
+            float ingredientSimilarity = ingredientPosition < byIngredient.size()
+                    ? byIngredient.get(ingredientPosition).similarity() * INGREDIENT_WEIGHT : 0;
+            if (namePosition < byName.size() && byName.get(namePosition).similarity() >= ingredientSimilarity) {
+                TrigramIndex.Match match = byName.get(namePosition++);
+                if (found.add(match.id())) {
+                    result.add(new Match(match.id(), match.similarity()));
+                }
+                continue;
+            }
+            String ingredient = ingredients.get(byIngredient.get(ingredientPosition++).id());
+            for (int dishId : ingredientIndex.dishesWith(ingredient, limit)) {
+                if (result.size() < limit && found.add(dishId)) {
+                    result.add(new Match(dishId, ingredientSimilarity));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void addIngredients(Collection<String> names) {
+        for (String name : names) {
+            if (!ingredientIds.containsKey(name)) {
+                int id = ingredients.size();
+                ingredientIds.put(name, id);
+                ingredients.add(name);
+                ingredientNames.add(id, name);
+            }
+        }
+    }
+}
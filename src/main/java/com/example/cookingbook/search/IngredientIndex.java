@@ -0,0 +1,172 @@
+package com.example.cookingbook.search;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Инвертированный индекс "ингредиент - блюда" в памяти. Множество блюд для каждого
+ * ингредиента хранится сжатым битовым множеством (Roaring bitmap), для каждого блюда
+ * хранится количество его ингредиентов.
+ * <p>
+ * Индекс отвечает на вопрос "что можно приготовить из этих продуктов": находит блюда,
+ * которым не хватает не более заданного количества ингредиентов, и упорядочивает их
+ * по числу недостающих.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class IngredientIndex {
+
+    private final Map<String, RoaringBitmap> dishesByIngredient = new HashMap<>();
+    private int[] ingredientCounts = new int[1024];
+    private int[] coveredCounts = new int[1024];
+
+    /**
+     * Результат поиска по индексу.
+     *
+     * @param dishId       Идентификатор блюда.
+     * @param missingCount Количество ингредиентов блюда, которых нет среди доступных.
+     */
+    public record Match(int dishId, int missingCount) {
+    }
+
+    /**
+     * Добавляет ингредиенты блюда в индекс.
+     *
+     * @param dishId      Идентификатор блюда.
+     * @param ingredients Нормализованные названия ингредиентов без повторов.
+     */
+    public synchronized void add(int dishId, Collection<String> ingredients) {
+        ensureCapacity(dishId);
+        for (String ingredient : ingredients) {
+            if (dishesByIngredient.computeIfAbsent(ingredient, key -> new RoaringBitmap()).checkedAdd(dishId)) {
+                ingredientCounts[dishId]++;
+            }
+        }
+    }
+
+    /**
+     * Удаляет ингредиенты блюда из индекса.
+     *
+     * @param dishId      Идентификатор блюда.
+     * @param ingredients Нормализованные названия ингредиентов, с которыми блюдо было добавлено.
+     */
+    public synchronized void remove(int dishId, Collection<String> ingredients) {
+        for (String ingredient : ingredients) {
+            RoaringBitmap dishes = dishesByIngredient.get(ingredient);
+            if (dishes != null && dishes.checkedRemove(dishId)) {
+                ingredientCounts[dishId]--;
+                if (dishes.isEmpty()) {
+                    dishesByIngredient.remove(ingredient);
+                }
+            }
+        }
+    }
+
+    /**
+     * Сжимает битовые множества после массового заполнения индекса.
+     */
+    public synchronized void optimize() {
+        for (RoaringBitmap dishes : dishesByIngredient.values()) {
+            dishes.runOptimize();
+        }
+    }
+
+    /**
+     * @return Нормализованные названия всех ингредиентов, которые есть хотя бы в одном блюде.
+     */
+    public synchronized List<String> ingredients() {
+        return new ArrayList<>(dishesByIngredient.keySet());
+    }
+
+    /**
+     * Возвращает блюда с ингредиентом.
+     *
+     * @param ingredient Нормализованное название ингредиента.
+     * @param limit      Максимальное количество блюд.
+     * @return Идентификаторы блюд по возрастанию.
+     */
+    public synchronized int[] dishesWith(String ingredient, int limit) {
+        RoaringBitmap dishes = dishesByIngredient.get(ingredient);
+        if (dishes == null || limit <= 0) {
+            return new int[0];
+        }
+        int[] dishIds = new int[(int) Math.min(limit, dishes.getLongCardinality())];
+        IntIterator iterator = dishes.getIntIterator();
+        for (int i = 0; i < dishIds.length; i++) {
+            dishIds[i] = iterator.next();
+        }
+        return dishIds;
+    }
+
+    /**
+     * Находит блюда, почти полностью покрытые доступными ингредиентами.
+     *
+     * @param availableIngredients Нормализованные названия доступных ингредиентов.
+     * @param maxMissing           Максимальное количество недостающих ингредиентов.
+     * @param limit                Максимальное количество результатов.
+     * @return Блюда по возрастанию числа недостающих ингредиентов, при равенстве - по идентификатору.
+     */
+    public synchronized List<Match> findCovered(Collection<String> availableIngredients, int maxMissing, int limit) {
+        List<RoaringBitmap> postings = new ArrayList<>();
+        for (String ingredient : availableIngredients) {
+            RoaringBitmap dishes = dishesByIngredient.get(ingredient);
+            if (dishes != null) {
+                postings.add(dishes);
+            }
+        }
+        if (postings.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        RoaringBitmap candidates = RoaringBitmap.or(postings.iterator());
+        for (RoaringBitmap dishes : postings) {
+            IntIterator iterator = dishes.getIntIterator();
+            while (iterator.hasNext()) {
+                coveredCounts[iterator.next()]++;
+            }
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, (a, b) -> a.missingCount() != b.missingCount()
+                ? Integer.compare(b.missingCount(), a.missingCount())
+                : Integer.compare(b.dishId(), a.dishId()));
+        IntIterator iterator = candidates.getIntIterator();
+        while (iterator.hasNext()) {
+            int dishId = iterator.next();
+            int missing = ingredientCounts[dishId] - coveredCounts[dishId];
+            coveredCounts[dishId] = 0;
+            if (missing > maxMissing) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new Match(dishId, missing));
+            } else if (missing < best.peek().missingCount()) {
+                best.poll();
+                best.add(new Match(dishId, missing));
+            }
+        }
+
+        Match[] matches = best.toArray(new Match[0]);
+        Arrays.sort(matches, (a, b) -> a.missingCount() != b.missingCount()
+                ? Integer.compare(a.missingCount(), b.missingCount())
+                : Integer.compare(a.dishId(), b.dishId()));
+        return new ArrayList<>(Arrays.asList(matches));
+    }
+
+    private void ensureCapacity(int dishId) {
+        if (dishId >= ingredientCounts.length) {
+            int capacity = Math.max(dishId + 1, ingredientCounts.length * 2);
+            ingredientCounts = Arrays.copyOf(ingredientCounts, capacity);
+            coveredCounts = Arrays.copyOf(coveredCounts, capacity);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.cookingbook.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Приводит свободный текст ингредиентов к списку нормализованных названий.
+ * Текст делится на позиции по переводам строк, запятым и точкам с запятой; из каждой
+ * позиции убираются количества, единицы измерения, пояснения в скобках и служебные слова.
+ * Названия приводятся к нижнему регистру, буква "ё" заменяется на "е".
+ * <p>
+ * Например, "Мука пшеничная - 200 г" превращается в "мука пшеничная", а "Соль по вкусу" - в "соль".
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class IngredientNormalizer {
+
+    private static final Locale RUSSIAN = Locale.forLanguageTag("ru");
+
+    /**
+     * Единицы измерения и служебные слова, которые не являются частью названия ингредиента.
+     */
+    private static final Set<String> NOISE_WORDS = Set.of(
+            "г", "гр", "грамм", "грамма", "граммов", "кг", "мг", "мл", "л", "литр", "литра", "литров",
+            "ст", "стакан", "стакана", "стаканов", "ч", "чл", "стл", "ложка", "ложки", "ложек",
+            "столовая", "столовые", "столовых", "чайная", "чайные", "чайных",
+            "шт", "штука", "штуки", "штук", "щепотка", "щепотки", "пучок", "пучка", "пучков",
+            "зубчик", "зубчика", "зубчиков", "кусок", "куска", "кусочка", "долька", "дольки",
+            "банка", "банки", "упаковка", "упаковки", "пачка", "пачки", "веточка", "веточки",
+            "по", "вкусу", "для", "на", "и", "или", "по-желанию", "желанию", "примерно", "около",
+            "g", "kg", "ml", "l", "pcs", "tbsp", "tsp", "cup", "cups");
+
+    private IngredientNormalizer() {
+    }
+
+    /**
+     * Извлекает нормализованные названия ингредиентов из текста.
+     *
+     * @param ingredientsText Текст ингредиентов.
+     * @return Различные названия в порядке их появления в тексте.
+     */
+    public static List<String> normalize(String ingredientsText) {
+        Set<String> ingredients = new LinkedHashSet<>();
+        if (ingredientsText == null) {
+            return new ArrayList<>();
+        }
+        int start = 0;
+        for (int i = 0; i <= ingredientsText.length(); i++) {
+            if (i == ingredientsText.length() || isItemSeparator(ingredientsText.charAt(i))) {
+                String ingredient = normalizeName(ingredientsText.substring(start, i));
+                if (!ingredient.isEmpty()) {
+                    ingredients.add(ingredient);
+                }
+                start = i + 1;
+            }
+        }
+        return new ArrayList<>(ingredients);
+    }
+
+    /**
+     * Нормализует одно название ингредиента, например введенное пользователем в запросе.
+     *
+     * @param item Название ингредиента, возможно с количеством.
+     * @return Нормализованное название или пустая строка, если в нем не осталось слов.
+     */
+    public static String normalizeName(String item) {
+        StringBuilder name = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i <= item.length(); i++) {
+            char c = i < item.length() ? item.charAt(i) : ' ';
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            }
+            if (depth == 0 && Character.isLetter(c)) {
+                word.append(c == 'ё' || c == 'Ё' ? 'е' : Character.toLowerCase(c));
+            } else if (word.length() > 0 && (c == '-' && i + 1 < item.length() && Character.isLetter(item.charAt(i + 1)))) {
+                word.append('-');
+            } else if (word.length() > 0) {
+                appendWord(name, word.toString().toLowerCase(RUSSIAN));
+                word.setLength(0);
+            }
+        }
+        return name.toString();
+    }
+
+    private static void appendWord(StringBuilder name, String word) {
+        if (NOISE_WORDS.contains(word)) {
+            return;
+        }
+        if (name.length() > 0) {
+            name.append(' ');
+        }
+        name.append(word);
+    }
+
+    private static boolean isItemSeparator(char c) {
+        return c == '\n' || c == '\r' || c == ',' || c == ';' || c == '•';
+    }
+}
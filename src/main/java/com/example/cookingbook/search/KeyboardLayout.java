@@ -0,0 +1,61 @@
+package com.example.cookingbook.search;
+
+/**
+ * Исправление текста, набранного в неверной раскладке клавиатуры (ЙЦУКЕН и QWERTY).
+ * Каждый символ заменяется символом той же клавиши в другой раскладке, например
+ * ",jho" превращается в "борщ", а "сфккщеы" - в "carrots".
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class KeyboardLayout {
+
+    private static final String LATIN_KEYS = "qwertyuiop[]asdfghjkl;'zxcvbnm,.`QWERTYUIOP{}ASDFGHJKL:\"ZXCVBNM<>~";
+    private static final String RUSSIAN_KEYS = "йцукенгшщзхъфывапролджэячсмитьбюёЙЦУКЕНГШЩЗХЪФЫВАПРОЛДЖЭЯЧСМИТЬБЮЁ";
+
+    private KeyboardLayout() {
+    }
+
+    /**
+     * Переводит текст, набранный в латинской раскладке, в русскую.
+     *
+     * @param text Текст.
+     * @return Текст с замененными символами или {@code null}, если заменять нечего.
+     */
+    public static String toRussian(String text) {
+        return convert(text, LATIN_KEYS, RUSSIAN_KEYS);
+    }
+
+    /**
+     * Переводит текст, набранный в русской раскладке, в латинскую.
+     *
+     * @param text Текст.
+     * @return Текст с замененными символами или {@code null}, если заменять нечего.
+     */
+    public static String toLatin(String text) {
+        return convert(text, RUSSIAN_KEYS, LATIN_KEYS);
+    }
+
+    private static String convert(String text, String from, String to) {
+        StringBuilder converted = new StringBuilder(text.length());
+        boolean changed = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int key = from.indexOf(c);
+            // Знаки препинания заменяются только внутри слова: запятая между словами остается запятой.
+            if (key >= 0 && (Character.isLetter(c) || isInsideWord(text, i))) {
+                converted.append(to.charAt(key));
+                changed = true;
+            } else {
+                converted.append(c);
+            }
+        }
+        return changed ? converted.toString() : null;
+    }
+
+    private static boolean isInsideWord(String text, int index) {
+        return (index > 0 && Character.isLetter(text.charAt(index - 1)))
+                || (index + 1 < text.length() && Character.isLetter(text.charAt(index + 1)));
+    }
+}
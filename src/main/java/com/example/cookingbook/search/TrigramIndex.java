@@ -0,0 +1,359 @@
+package com.example.cookingbook.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Триграммный индекс коротких текстов (названий) в памяти для нечеткого поиска.
+ * <p>
+ * Текст приводится к нижнему регистру, буква "ё" заменяется на "е", все символы, кроме букв
+ * и цифр, считаются разделителями слов. Каждое слово дополняется двумя пробелами в начале
+ * и одним в конце и разбивается на триграммы, как в расширении pg_trgm: "борщ" дает
+ * "  б", " бо", "бор", "орщ", "рщ ". Триграмма кодируется числом (7 бит на символ),
+ * для каждой триграммы хранится отсортированный массив идентификаторов текстов.
+ * <p>
+ * Сходство запроса с текстом - доля триграмм запроса, которые есть в тексте. Поэтому
+ * "борш" находит "Борщ украинский" (3 из 5 триграмм), а "беф строганов" - "Бефстроганов".
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class TrigramIndex {
+
+    private static final int[] NO_TRIGRAMS = new int[0];
+
+    private final Map<Integer, Postings> postingsByTrigram = new HashMap<>();
+    private int[] trigramCounts = new int[1024];
+    private int[] sharedCounts = new int[1024];
+    private float[] similarities = new float[1024];
+    private long postingCount;
+
+    /**
+     * Результат поиска по индексу.
+     *
+     * @param id         Идентификатор текста.
+     * @param similarity Доля триграмм запроса, найденных в тексте, от 0 до 1.
+     */
+    public record Match(int id, float similarity) {
+    }
+
+    /**
+     * Добавляет текст в индекс.
+     *
+     * @param id   Идентификатор текста.
+     * @param text Текст.
+     */
+    public synchronized void add(int id, String text) {
+        int[] trigrams = trigrams(text);
+        if (trigrams.length == 0) {
+            return;
+        }
+        ensureCapacity(id);
+        for (int trigram : trigrams) {
+            if (postingsByTrigram.computeIfAbsent(trigram, key -> new Postings()).add(id)) {
+                trigramCounts[id]++;
+                postingCount++;
+            }
+        }
+    }
+
+    /**
+     * Удаляет текст из индекса.
+     *
+     * @param id   Идентификатор текста.
+     * @param text Текст, с которым идентификатор был добавлен.
+     */
+    public synchronized void remove(int id, String text) {
+        for (int trigram : trigrams(text)) {
+            Postings postings = postingsByTrigram.get(trigram);
+            if (postings != null && postings.remove(id)) {
+                trigramCounts[id]--;
+                postingCount--;
+                if (postings.size == 0) {
+                    postingsByTrigram.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Освобождает запас памяти в массивах идентификаторов после массового заполнения индекса.
+     */
+    public synchronized void optimize() {
+        for (Postings postings : postingsByTrigram.values()) {
+            postings.trim();
+        }
+    }
+
+    /**
+     * @return Общее количество пар "триграмма - текст" в индексе.
+     */
+    public synchronized long postingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Находит тексты, похожие на любой из вариантов запроса.
+     * <p>
+     * Тексту, в котором есть не меньше {@code minSimilarity} триграмм запроса, достаточно
+     * встретиться хотя бы в одном из нескольких самых коротких списков: их количество на единицу
+     * больше числа триграмм, которых разрешено не найти. Только эти списки просматриваются
+     * целиком; в остальных проверяются уже найденные тексты.
+     *
+     * @param queries       Варианты запроса; для каждого текста берется лучшее сходство.
+     * @param minSimilarity Минимальное сходство от 0 (не включительно) до 1.
+     * @param limit         Максимальное количество результатов.
+     * @return Тексты по убыванию сходства, при равенстве - более короткие, затем по идентификатору.
+     */
+    public synchronized List<Match> search(Collection<String> queries, float minSimilarity, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        IntList candidates = new IntList();
+        IntList touched = new IntList();
+        for (String query : queries) {
+            int[] queryTrigrams = trigrams(query);
+            if (queryTrigrams.length == 0) {
+                continue;
+            }
+            Postings[] lists = new Postings[queryTrigrams.length];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postingsByTrigram.getOrDefault(queryTrigrams[i], Postings.EMPTY);
+            }
+            Arrays.sort(lists, Comparator.comparingInt(postings -> postings.size));
+            int required = Math.max(1, (int) Math.ceil(minSimilarity * lists.length - 1e-6));
+            int scanned = lists.length - required + 1;
+
+            touched.size = 0;
+            for (int i = 0; i < scanned; i++) {
+                Postings postings = lists[i];
+                for (int j = 0; j < postings.size; j++) {
+                    int id = postings.ids[j];
+                    if (sharedCounts[id]++ == 0) {
+                        touched.add(id);
+                    }
+                }
+            }
+            for (int i = scanned; i < lists.length; i++) {
+                countShared(lists[i], touched);
+            }
+
+            for (int i = 0; i < touched.size; i++) {
+                int id = touched.values[i];
+                float similarity = (float) sharedCounts[id] / lists.length;
+                sharedCounts[id] = 0;
+                if (similarity >= minSimilarity && similarity > similarities[id]) {
+                    if (similarities[id] == 0) {
+                        candidates.add(id);
+                    }
+                    similarities[id] = similarity;
+                }
+            }
+        }
+
+        Comparator<Match> ranking = (a, b) -> compare(a.id(), a.similarity(), b.id(), b.similarity());
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+        for (int i = 0; i < candidates.size; i++) {
+            int id = candidates.values[i];
+            float similarity = similarities[id];
+            similarities[id] = 0;
+            // Результат создается только для текста, который лучше худшего из уже отобранных.
+            if (best.size() == limit && compare(id, similarity, best.peek().id(), best.peek().similarity()) >= 0) {
+                continue;
+            }
+            best.add(new Match(id, similarity));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        Match[] matches = best.toArray(new Match[0]);
+        Arrays.sort(matches, ranking);
+        return new ArrayList<>(Arrays.asList(matches));
+    }
+
+    /**
+     * Порядок результатов: по убыванию сходства, затем по возрастанию числа триграмм текста
+     * и идентификатора.
+     */
+    private int compare(int id, float similarity, int otherId, float otherSimilarity) {
+        if (similarity != otherSimilarity) {
+            return similarity > otherSimilarity ? -1 : 1;
+        }
+        if (trigramCounts[id] != trigramCounts[otherId]) {
+            return Integer.compare(trigramCounts[id], trigramCounts[otherId]);
+        }
+        return Integer.compare(id, otherId);
+    }
+
+    /**
+     * Увеличивает счетчики общих триграмм для уже найденных текстов, которые есть в списке.
+     * Короткий набор найденных текстов ищется в длинном списке двоичным поиском.
+     */
+    private void countShared(Postings postings, IntList touched) {
+        if ((long) touched.size * 32 < postings.size) {
+            for (int i = 0; i < touched.size; i++) {
+                int id = touched.values[i];
+                if (postings.contains(id)) {
+                    sharedCounts[id]++;
+                }
+            }
+            return;
+        }
+        for (int j = 0; j < postings.size; j++) {
+            int id = postings.ids[j];
+            if (sharedCounts[id] > 0) {
+                sharedCounts[id]++;
+            }
+        }
+    }
+
+    /**
+     * Разбивает текст на различные триграммы.
+     *
+     * @param text Текст.
+     * @return Коды триграмм по возрастанию.
+     */
+    static int[] trigrams(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_TRIGRAMS;
+        }
+        int[] trigrams = new int[text.length() * 2 + 2];
+        int count = 0;
+        int first = 0;
+        int second = 0;
+        boolean inWord = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? fold(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                int symbol = symbol(c);
+                trigrams[count++] = first << 14 | second << 7 | symbol;
+                first = second;
+                second = symbol;
+                inWord = true;
+            } else if (inWord) {
+                trigrams[count++] = first << 14 | second << 7;
+                first = 0;
+                second = 0;
+                inWord = false;
+            }
+        }
+        if (count == 0) {
+            return NO_TRIGRAMS;
+        }
+        Arrays.sort(trigrams, 0, count);
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (trigrams[i] != trigrams[unique - 1]) {
+                trigrams[unique++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, unique);
+    }
+
+    private static char fold(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    /**
+     * Номер символа от 1 до 127: цифры, латинские и русские буквы получают собственные номера,
+     * остальные буквы делят оставшиеся; 0 обозначает границу слова.
+     */
+    private static int symbol(char c) {
+        if (c >= '0' && c <= '9') {
+            return 1 + c - '0';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return 11 + c - 'a';
+        }
+        if (c >= 'а' && c <= 'я') {
+            return 37 + c - 'а';
+        }
+        return 69 + c % 59;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= trigramCounts.length) {
+            int capacity = Math.max(id + 1, trigramCounts.length * 2);
+            trigramCounts = Arrays.copyOf(trigramCounts, capacity);
+            sharedCounts = Arrays.copyOf(sharedCounts, capacity);
+            similarities = Arrays.copyOf(similarities, capacity);
+        }
+    }
+
+    /**
+     * Отсортированный массив идентификаторов текстов, содержащих триграмму.
+     */
+    private static final class Postings {
+        static final Postings EMPTY = new Postings();
+
+        int[] ids = new int[4];
+        int size;
+
+        boolean add(int id) {
+            if (size == 0 || ids[size - 1] < id) {
+                grow();
+                ids[size++] = id;
+                return true;
+            }
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return false;
+            }
+            index = -index - 1;
+            grow();
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+            return true;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void trim() {
+            if (ids.length > size) {
+                ids = Arrays.copyOf(ids, Math.max(size, 1));
+            }
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+        }
+    }
+
+    /**
+     * Расширяемый массив идентификаторов для промежуточных результатов поиска.
+     */
+    private static final class IntList {
+        int[] values = new int[64];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.model.Dish;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Читает блюда из CSV-файла с заголовком. Порядок столбцов определяется заголовком,
+ * поддерживаются имена {@code name}, {@code cooking_time}, {@code ingredients},
+ * {@code cooking_process} и {@code favorite}. Значения в кавычках могут содержать
+ * запятые и переводы строк, кавычка внутри значения удваивается.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class CsvDishReader implements DishReader {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int nameColumn = -1;
+    private int cookingTimeColumn = -1;
+    private int ingredientsColumn = -1;
+    private int cookingProcessColumn = -1;
+    private int favoriteColumn = -1;
+    private int pushedBack = -2;
+    private long recordNumber;
+
+    /**
+     * Конструктор для инициализации чтения. Сразу читает строку заголовка.
+     *
+     * @param reader Источник символов.
+     * @throws IOException Если заголовок не удалось прочитать или в нем нет столбца {@code name}.
+     */
+    CsvDishReader(Reader reader) throws IOException {
+        this.reader = reader;
+        int first = reader.read();
+        if (first != '\uFEFF') {
+            pushedBack = first;
+        }
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IOException("CSV header is missing");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> nameColumn = i;
+                case "cooking_time", "cookingtime" -> cookingTimeColumn = i;
+                case "ingredients" -> ingredientsColumn = i;
+                case "cooking_process", "cookingprocess" -> cookingProcessColumn = i;
+                case "favorite" -> favoriteColumn = i;
+                default -> {
+                }
+            }
+        }
+        if (nameColumn < 0) {
+            throw new IOException("CSV header has no 'name' column");
+        }
+    }
+
+    @Override
+    public Dish next() throws IOException {
+        List<String> record;
+        do {
+            record = readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isEmpty());
+
+        String favorite = column(record, favoriteColumn);
+        return new Dish(
+                column(record, nameColumn),
+                column(record, cookingTimeColumn),
+                column(record, ingredientsColumn),
+                column(record, cookingProcessColumn),
+                favorite != null && (favorite.equalsIgnoreCase("true") || favorite.equals("1")));
+    }
+
+    private String column(List<String> record, int index) {
+        return index >= 0 && index < record.size() ? record.get(index) : null;
+    }
+
+    /**
+     * Читает одну запись CSV с учетом кавычек.
+     *
+     * @return Значения полей или {@code null}, если файл закончился.
+     */
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c < 0) {
+            return null;
+        }
+        recordNumber++;
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Unterminated quoted value in record " + recordNumber);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c < 0) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n' && following >= 0) {
+                        pushedBack = following;
+                    }
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.model.Dish;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Контрольная сумма содержимого блюд (SHA-256) для проверки, что экспорт и импорт
+ * не исказили данные. Учитываются название, время приготовления, ингредиенты,
+ * процесс приготовления и признак избранного в порядке следования блюд; идентификаторы
+ * не учитываются, так как при импорте блюда получают новые.
+ * <p>
+ * Экспорт сохраняет сумму и количество блюд в файл {@code <имя файла>.digest}.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+final class DishDigest {
+
+    private final MessageDigest digest;
+    private long count;
+
+    DishDigest() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Добавляет блюдо к сумме.
+     *
+     * @param dish Блюдо.
+     */
+    void add(Dish dish) {
+        update(dish.getName());
+        update(dish.getCookingTime());
+        update(dish.getIngredients());
+        update(dish.getCookingProcess());
+        digest.update((byte) (dish.isFavorite() ? 1 : 0));
+        count++;
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * Завершает подсчет.
+     *
+     * @return Сумма в шестнадцатеричном виде.
+     */
+    String finish() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Сравнивает содержимое двух блюд без учета идентификаторов.
+     */
+    static boolean sameContent(Dish first, Dish second) {
+        return Objects.equals(first.getName(), second.getName())
+                && Objects.equals(first.getCookingTime(), second.getCookingTime())
+                && Objects.equals(first.getIngredients(), second.getIngredients())
+                && Objects.equals(first.getCookingProcess(), second.getCookingProcess())
+                && first.isFavorite() == second.isFavorite();
+    }
+
+    static Path fileFor(Path exportFile) {
+        return exportFile.resolveSibling(exportFile.getFileName() + ".digest");
+    }
+
+    /**
+     * Записывает количество блюд и сумму в файл рядом с файлом экспорта.
+     */
+    static void write(Path exportFile, long count, String digest) throws IOException {
+        Files.writeString(fileFor(exportFile), count + " " + digest + System.lineSeparator());
+    }
+
+    /**
+     * Читает сохраненную при экспорте сумму.
+     *
+     * @return Количество блюд и сумма или {@code null}, если файла суммы нет.
+     * @throws IOException Если файл суммы поврежден.
+     */
+    static String[] read(Path exportFile) throws IOException {
+        Path file = fileFor(exportFile);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String[] parts = Files.readString(file).trim().split(" ");
+        if (parts.length != 2) {
+            throw new IOException("Corrupted digest file " + file);
+        }
+        return parts;
+    }
+
+    private void update(String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+}
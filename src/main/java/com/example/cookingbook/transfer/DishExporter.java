@@ -0,0 +1,124 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.database.DataAccessException;
+import com.example.cookingbook.database.DishDAO;
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.util.Json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковый экспорт всех блюд в файл JSON Lines, который читает {@link DishImporter}.
+ * Если имя файла оканчивается на {@code .gz}, файл сжимается gzip.
+ * <p>
+ * Блюда читаются из базы данных по одному через {@link DishDAO#forEachDish} и сразу
+ * записываются в файл, поэтому расход памяти не зависит от количества блюд. Файл пишется
+ * во временный файл и заменяет целевой только после успешной записи. Рядом сохраняется
+ * файл {@code <имя файла>.digest} с количеством блюд и контрольной суммой их содержимого,
+ * по которой импорт проверяет, что данные перенесены без искажений.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class DishExporter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DishDAO dishDAO;
+
+    /**
+     * Конструктор для инициализации экспорта.
+     *
+     * @param dishDAO DAO, из которого выгружаются блюда.
+     */
+    public DishExporter(DishDAO dishDAO) {
+        this.dishDAO = dishDAO;
+    }
+
+    /**
+     * Выгружает все блюда в файл.
+     *
+     * @param file Файл экспорта ({@code .jsonl} или {@code .jsonl.gz}); существующий файл заменяется.
+     * @return Итог экспорта.
+     * @throws IOException Если файл не удалось записать или блюда не удалось дочитать;
+     *                     прежний файл экспорта в этом случае остается без изменений.
+     */
+    public ExportReport exportFile(Path file) throws IOException {
+        long startTime = System.nanoTime();
+        Path target = file.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        DishDigest digest = new DishDigest();
+        try {
+            try (Writer writer = openWriter(temporary, target)) {
+                StringBuilder line = new StringBuilder(1024);
+                dishDAO.forEachDish(dish -> {
+                    line.setLength(0);
+                    appendJson(line, dish);
+                    line.append('\n');
+                    try {
+                        writer.append(line);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    digest.add(dish);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (DataAccessException e) {
+                throw new IOException("Export stopped after " + digest.count() + " dishes", e);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        String checksum = digest.finish();
+        DishDigest.write(target, digest.count(), checksum);
+        return new ExportReport(digest.count(), Files.size(target), checksum,
+                Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Дописывает блюдо в виде JSON-объекта с полями, которые понимает {@link JsonLinesDishReader}.
+     * Идентификатор выгружается для справки; при импорте блюдо получает новый.
+     */
+    static void appendJson(StringBuilder builder, Dish dish) {
+        builder.append("{\"id\":").append(dish.getId());
+        builder.append(",\"name\":");
+        Json.appendQuoted(builder, dish.getName());
+        builder.append(",\"cookingTime\":");
+        Json.appendQuoted(builder, dish.getCookingTime());
+        builder.append(",\"ingredients\":");
+        Json.appendQuoted(builder, dish.getIngredients());
+        builder.append(",\"cookingProcess\":");
+        Json.appendQuoted(builder, dish.getCookingProcess());
+        builder.append(",\"favorite\":").append(dish.isFavorite()).append('}');
+    }
+
+    private static Writer openWriter(Path temporary, Path target) throws IOException {
+        OutputStream out = Files.newOutputStream(temporary);
+        try {
+            if (target.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.database.DataAccessException;
+import com.example.cookingbook.database.DishDAO;
+import com.example.cookingbook.model.Dish;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Потоковый импорт блюд из файлов JSON Lines ({@code .jsonl}, {@code .ndjson}) и CSV ({@code .csv}),
+ * в том числе сжатых gzip ({@code .jsonl.gz}). Файл читается по частям, каждая часть
+ * записывается пакетно через {@link DishDAO#addImportedDishes}.
+ * <p>
+ * Каждая записанная часть читается из базы данных обратно и сравнивается с прочитанной
+ * из файла. Если рядом с файлом лежит файл {@code <имя файла>.digest}, созданный
+ * {@link DishExporter}, после импорта сверяются количество блюд и контрольная сумма
+ * их содержимого, то есть проверяется весь путь от экспорта до записи в базу.
+ * <p>
+ * Количество импортированных записей сохраняется в базе данных в одной транзакции с каждой
+ * записанной частью; ключ прогресса - абсолютный путь к файлу. Если импорт прервался, повторный
+ * запуск пропускает уже записанные блюда и продолжает с места остановки, а блюда части,
+ * зафиксированной перед сбоем, не добавляются второй раз. После успешного импорта прогресс удаляется.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public class DishImporter {
+
+    private static final int DEFAULT_CHUNK_SIZE = 5000;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final DishDAO dishDAO;
+    private final int chunkSize;
+
+    /**
+     * Конструктор для инициализации импорта с размером части по умолчанию.
+     *
+     * @param dishDAO DAO, в которое добавляются блюда.
+     */
+    public DishImporter(DishDAO dishDAO) {
+        this(dishDAO, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Конструктор для инициализации импорта.
+     *
+     * @param dishDAO   DAO, в которое добавляются блюда.
+     * @param chunkSize Количество блюд, записываемых за один вызов {@link DishDAO#addImportedDishes}.
+     */
+    public DishImporter(DishDAO dishDAO, int chunkSize) {
+        this.dishDAO = dishDAO;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Импортирует блюда из файла, продолжая прерванный ранее импорт того же файла.
+     *
+     * @param file Файл импорта.
+     * @return Итог импорта.
+     * @throws IOException Если файл не удалось прочитать или блюда не удалось записать.
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        String source = file.toAbsolutePath().normalize().toString();
+        long alreadyImported = readProgress(source);
+        long startTime = System.nanoTime();
+        long imported = 0;
+        DishDigest digest = new DishDigest();
+
+        try (DishReader reader = openReader(file)) {
+            long skipped = 0;
+            Dish skippedDish;
+            while (skipped < alreadyImported && (skippedDish = reader.next()) != null) {
+                digest.add(skippedDish);
+                skipped++;
+            }
+
+            List<Dish> chunk = new ArrayList<>(chunkSize);
+            Dish dish;
+            while ((dish = reader.next()) != null) {
+                digest.add(dish);
+                chunk.add(dish);
+                if (chunk.size() == chunkSize) {
+                    imported += writeChunk(chunk, source, alreadyImported + imported);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                imported += writeChunk(chunk, source, alreadyImported + imported);
+            }
+        }
+
+        try {
+            dishDAO.clearImportProgress(source);
+        } catch (DataAccessException e) {
+            throw new IOException("Import finished, but its progress was not cleared", e);
+        }
+        boolean verified = verifyDigest(file, digest);
+        return new ImportReport(imported, alreadyImported, verified,
+                Duration.ofNanos(System.nanoTime() - startTime));
+    }
+
+    /**
+     * Записывает часть блюд вместе с прогрессом импорта.
+     *
+     * @return Количество записанных блюд.
+     * @throws IOException Если часть записана не полностью.
+     */
+    private int writeChunk(List<Dish> chunk, String source, long importedBefore) throws IOException {
+        try {
+            dishDAO.addImportedDishes(chunk, source, importedBefore);
+        } catch (DataAccessException e) {
+            int written = 0;
+            while (written < chunk.size() && chunk.get(written).getId() > 0) {
+                written++;
+            }
+            throw new IOException("Import stopped after " + (importedBefore + written)
+                    + " dishes; run it again to resume", e);
+        }
+        verifyChunk(chunk, importedBefore);
+        int written = chunk.size();
+        chunk.clear();
+        return written;
+    }
+
+    /**
+     * Читает записанную часть из базы данных и сравнивает с блюдами из файла.
+     *
+     * @throws IOException Если какое-либо блюдо сохранилось не так, как было прочитано.
+     */
+    private void verifyChunk(List<Dish> chunk, long importedBefore) throws IOException {
+        int firstId = chunk.get(0).getId();
+        int lastId = chunk.get(chunk.size() - 1).getId();
+        List<Dish> stored = dishDAO.getDishesAfterId(firstId - 1, lastId - firstId + 1);
+        int position = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Dish dish = chunk.get(i);
+            while (position < stored.size() && stored.get(position).getId() < dish.getId()) {
+                position++;
+            }
+            if (position == stored.size() || !DishDigest.sameContent(dish, stored.get(position))) {
+                throw new IOException("Dish " + (importedBefore + i + 1) + " of the import file (id "
+                        + dish.getId() + ") was not stored as read");
+            }
+        }
+    }
+
+    /**
+     * Сверяет количество и контрольную сумму прочитанных блюд с сохраненными при экспорте.
+     *
+     * @return {@code true}, если файл суммы есть и совпал; {@code false}, если его нет.
+     * @throws IOException Если сумма или количество не совпали.
+     */
+    private static boolean verifyDigest(Path file, DishDigest digest) throws IOException {
+        String[] expected = DishDigest.read(file);
+        if (expected == null) {
+            return false;
+        }
+        long count = digest.count();
+        String checksum = digest.finish();
+        if (!expected[0].equals(Long.toString(count)) || !expected[1].equals(checksum)) {
+            throw new IOException("Imported dishes do not match the export: expected " + expected[0]
+                    + " dishes with digest " + expected[1] + ", read " + count + " with digest " + checksum);
+        }
+        return true;
+    }
+
+    private static DishReader openReader(Path file) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        InputStream in = Files.newInputStream(file);
+        if (fileName.endsWith(".gz")) {
+            try {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            fileName = fileName.substring(0, fileName.length() - ".gz".length());
+        }
+        // Строгий декодер, как у Files.newBufferedReader: неверные байты UTF-8 - ошибка, а не замена символов.
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8.newDecoder()), BUFFER_SIZE);
+        try {
+            return fileName.endsWith(".csv") ? new CsvDishReader(reader) : new JsonLinesDishReader(reader);
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private long readProgress(String source) throws IOException {
+        try {
+            return dishDAO.getImportProgress(source);
+        } catch (DataAccessException e) {
+            throw new IOException("Import progress of " + source + " was not read", e);
+        }
+    }
+}
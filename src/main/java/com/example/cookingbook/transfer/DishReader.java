@@ -0,0 +1,24 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.model.Dish;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Последовательное чтение блюд из файла импорта.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+interface DishReader extends Closeable {
+
+    /**
+     * Читает следующее блюдо.
+     *
+     * @return Блюдо или {@code null}, если файл закончился.
+     * @throws IOException Если файл не удалось прочитать или запись имеет неверный формат.
+     */
+    Dish next() throws IOException;
+}
@@ -0,0 +1,33 @@
+package com.example.cookingbook.transfer;
+
+import java.time.Duration;
+
+/**
+ * Итог экспорта блюд.
+ *
+ * @param exported Количество выгруженных блюд.
+ * @param bytes    Размер файла экспорта.
+ * @param digest   Контрольная сумма содержимого блюд (SHA-256).
+ * @param elapsed  Время экспорта.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record ExportReport(long exported, long bytes, String digest, Duration elapsed) {
+
+    /**
+     * Скорость экспорта.
+     *
+     * @return Количество блюд в секунду.
+     */
+    public double dishesPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : exported * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Exported %d dishes (%d KB) in %d ms, %.0f dishes/s",
+                exported, bytes / 1024, elapsed.toMillis(), dishesPerSecond());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.cookingbook.transfer;
+
+import java.time.Duration;
+
+/**
+ * Итог импорта блюд.
+ *
+ * @param imported Количество блюд, добавленных за этот запуск.
+ * @param skipped  Количество блюд, пропущенных, так как они были импортированы прошлым запуском.
+ * @param verified Совпали ли блюда с контрольной суммой, сохраненной при экспорте
+ *                 ({@code false}, если файла суммы нет).
+ * @param elapsed  Время импорта.
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public record ImportReport(long imported, long skipped, boolean verified, Duration elapsed) {
+
+    /**
+     * Скорость импорта.
+     *
+     * @return Количество блюд в секунду.
+     */
+    public double dishesPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : imported * 1_000_000_000.0 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d dishes (skipped %d) in %d ms, %.0f dishes/s%s",
+                imported, skipped, elapsed.toMillis(), dishesPerSecond(), verified ? ", matches export digest" : "");
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.util.Json;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Читает блюда из файла JSON Lines: одна строка - один JSON-объект с полями
+ * {@code name}, {@code cookingTime}, {@code ingredients}, {@code cookingProcess} и {@code favorite}.
+ * Поля также могут называться как столбцы таблицы: {@code cooking_time}, {@code cooking_process}.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class JsonLinesDishReader implements DishReader {
+
+    private final BufferedReader reader;
+    private long lineNumber;
+
+    /**
+     * Конструктор для инициализации чтения.
+     *
+     * @param reader Источник строк.
+     */
+    JsonLinesDishReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public Dish next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        try {
+            return toDish(Json.parseObject(line));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid JSON on line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Создает блюдо из разобранного JSON-объекта.
+     *
+     * @param fields Поля объекта.
+     * @return Блюдо.
+     */
+    static Dish toDish(Map<String, Object> fields) {
+        return new Dish(
+                text(fields, "name", "name"),
+                text(fields, "cookingTime", "cooking_time"),
+                text(fields, "ingredients", "ingredients"),
+                text(fields, "cookingProcess", "cooking_process"),
+                Boolean.TRUE.equals(fields.get("favorite")));
+    }
+
+    private static String text(Map<String, Object> fields, String key, String alternativeKey) {
+        Object value = fields.containsKey(key) ? fields.get(key) : fields.get(alternativeKey);
+        return value == null ? null : value.toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.cookingbook.util;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Вспомогательные методы для передачи результатов фоновых операций
+ * в поток JavaFX Application Thread.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+public final class FxFutures {
+
+    /**
+     * Исполнитель, выполняющий задачи в потоке JavaFX.
+     */
+    public static final Executor FX_EXECUTOR = command -> {
+        if (Platform.isFxApplicationThread()) {
+            command.run();
+        } else {
+            Platform.runLater(command);
+        }
+    };
+
+    private FxFutures() {
+    }
+
+    /**
+     * Передает результат операции обработчику в потоке JavaFX.
+     * Ошибка операции выводится в стандартный поток ошибок; отмена операции игнорируется.
+     *
+     * @param future    Будущий результат.
+     * @param onSuccess Обработчик результата.
+     * @param <T>       Тип результата.
+     * @return Будущее завершение обработчика.
+     */
+    public static <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> future, Consumer<? super T> onSuccess) {
+        return onFxThread(future, onSuccess, error -> error.printStackTrace());
+    }
+
+    /**
+     * Передает результат или ошибку операции обработчикам в потоке JavaFX.
+     * Отмена операции игнорируется.
+     *
+     * @param future    Будущий результат.
+     * @param onSuccess Обработчик результата.
+     * @param onError   Обработчик ошибки.
+     * @param <T>       Тип результата.
+     * @return Будущее завершение обработчика.
+     */
+    public static <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> future, Consumer<? super T> onSuccess,
+                                                         Consumer<Throwable> onError) {
+        return future.handleAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (!(cause instanceof CancellationException)) {
+                    onError.accept(cause);
+                }
+            }
+            return null;
+        }, FX_EXECUTOR);
+    }
+}
@@ -2,6 +2,9 @@ module com.example.cookingbook {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires java.net.http;
+    requires roaringbitmap;
+    requires jdk.jfr;
 
 
     opens com.example.cookingbook to javafx.fxml;
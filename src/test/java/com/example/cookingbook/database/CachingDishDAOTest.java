@@ -0,0 +1,213 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что кэш блюд меняется только после записи, зафиксированной базой данных,
+ * что одновременные записи попадают в кэш в том же порядке, что и в базу данных,
+ * и что неудачная загрузка кэша не принимается за пустой список блюд.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class CachingDishDAOTest {
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private DishDAOImpl database;
+    private CachingDishDAO cache;
+    private final List<DishChangeEvent> events = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager(directory.resolve("cache.db").toString(), 2);
+        database = new DishDAOImpl(databaseManager);
+        DishChangeNotifier notifier = new DishChangeNotifier();
+        notifier.subscribe(Runnable::run, events::addAll);
+        cache = new CachingDishDAO(database, 1000, 8, notifier);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void rejectedUpdateLeavesCacheAndSubscribersUntouched() throws SQLException {
+        Dish dish = new Dish("Борщ", "60 мин", "Свекла", "Сварить.", false);
+        cache.addDish(dish);
+        assertEquals("Борщ", cache.getSummariesAfterId(0, 10).get(0).getName());
+        rejectWrites();
+        events.clear();
+
+        dish.setName("Щи");
+        assertThrows(DataAccessException.class, () -> cache.updateDish(dish));
+        assertThrows(DataAccessException.class, () -> cache.deleteDish(dish.getId()));
+
+        assertEquals("Борщ", cache.getSummariesAfterId(0, 10).get(0).getName());
+        assertEquals("Борщ", database.getDishById(dish.getId()).getName());
+        assertTrue(events.isEmpty(), "events for rolled back writes: " + events);
+    }
+
+    @Test
+    void failedLoadIsReportedAndRetried() throws SQLException {
+        database.addDish(new Dish("Борщ", "60 мин", "Свекла", "Сварить.", false));
+        execute("ALTER TABLE dishes RENAME TO dishes_hidden");
+
+        assertThrows(DataAccessException.class, () -> cache.getSummariesAfterId(0, 10));
+        assertThrows(DataAccessException.class, () -> cache.getFavoriteSummaries());
+
+        execute("ALTER TABLE dishes_hidden RENAME TO dishes");
+        assertEquals("Борщ", cache.getSummariesAfterId(0, 10).get(0).getName());
+        assertEquals(1, cache.getStatistics().size());
+    }
+
+    @Test
+    void rejectedAddIsNotCached() throws SQLException {
+        cache.getSummariesAfterId(0, 10);
+        rejectWrites();
+
+        Dish dish = new Dish("Плов", "90 мин", "Рис", "Потушить.", false);
+        assertThrows(DataAccessException.class, () -> cache.addDish(dish));
+
+        assertEquals(0, dish.getId());
+        assertTrue(cache.getSummariesAfterId(0, 10).isEmpty());
+        assertTrue(events.isEmpty(), "events for rolled back writes: " + events);
+    }
+
+    @Test
+    void writesToMissingDishArePublishedNowhere() {
+        Dish dish = new Dish("Рагу", "40 мин", "Овощи", "Потушить.", false);
+        cache.addDish(dish);
+        assertTrue(cache.deleteDish(dish.getId()));
+        events.clear();
+
+        dish.setName("Рагу овощное");
+        assertFalse(cache.updateDish(dish));
+        assertFalse(cache.deleteDish(dish.getId()));
+
+        assertTrue(cache.getSummariesAfterId(0, 10).isEmpty());
+        assertTrue(events.isEmpty(), "events for writes that changed nothing: " + events);
+    }
+
+    @Test
+    void subscribersReceiveOnlyCommittedChanges() throws SQLException {
+        Dish dish = new Dish("Каша", "15 мин", "Крупа", "Сварить.", false);
+        cache.addDish(dish);
+        dish.setFavorite(true);
+        cache.updateDish(dish);
+        rejectWrites();
+        assertThrows(DataAccessException.class, () -> cache.deleteDish(dish.getId()));
+
+        assertEquals(List.of(DishChangeEvent.Type.ADDED, DishChangeEvent.Type.UPDATED),
+                events.stream().map(DishChangeEvent::type).toList());
+    }
+
+    @Test
+    void bodyReadBeforeUpdateIsNotCached() throws Exception {
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        CachingDishDAO slowCache = new CachingDishDAO(new DishDAOImpl(databaseManager) {
+            @Override
+            public Dish getDishById(int id) {
+                Dish dish = super.getDishById(id);
+                read.countDown();
+                try {
+                    updated.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return dish;
+            }
+        }, 1000, 8);
+        Dish dish = new Dish("Борщ", "60 мин", "Свекла", "Сварить.", false);
+        slowCache.addDish(dish);
+
+        CompletableFuture<Dish> stale = CompletableFuture.supplyAsync(() -> slowCache.getDishById(dish.getId()));
+        read.await();
+        Dish changed = new Dish("Щи", "60 мин", "Капуста", "Сварить.", false);
+        changed.setId(dish.getId());
+        slowCache.updateDish(changed);
+        updated.countDown();
+
+        assertEquals("Борщ", stale.get().getName());
+        assertEquals("Щи", slowCache.getDishById(dish.getId()).getName());
+    }
+
+    @Test
+    void concurrentUpdatesReachCacheInCommitOrder() throws InterruptedException {
+        Dish dish = new Dish("Омлет", "10 мин", "Яйца", "Пожарить.", false);
+        cache.addDish(dish);
+        cache.getSummariesAfterId(0, 10);
+
+        int writers = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int writer = 0; writer < writers; writer++) {
+            int number = writer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 200; i++) {
+                    Dish copy = new Dish("Омлет " + number + "-" + i, "10 мин", "Яйца", "Пожарить.", false);
+                    copy.setId(dish.getId());
+                    cache.updateDish(copy);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Dish stored = database.getDishById(dish.getId());
+        assertNotNull(stored);
+        assertEquals(stored.getName(), cache.getSummariesAfterId(0, 10).get(0).getName());
+        DishChangeEvent last = events.get(events.size() - 1);
+        assertEquals(stored.getName(), last.summary().getName());
+    }
+
+    /**
+     * Заставляет базу данных отклонять любые изменения таблицы блюд.
+     */
+    private void rejectWrites() throws SQLException {
+        try (Statement statement = databaseManager.getConnection().createStatement()) {
+            statement.execute("CREATE TRIGGER reject_insert BEFORE INSERT ON dishes BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+            statement.execute("CREATE TRIGGER reject_update BEFORE UPDATE ON dishes BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+            statement.execute("CREATE TRIGGER reject_delete BEFORE DELETE ON dishes BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+        }
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = databaseManager.getConnection().createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
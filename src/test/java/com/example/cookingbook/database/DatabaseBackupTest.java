@@ -0,0 +1,82 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверяет, что резервная копия открытой базы содержит все блюда, проходит проверку
+ * целостности и заменяет прежнюю копию, не оставляя временных файлов.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class DatabaseBackupTest {
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private DishDAOImpl dishDAO;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager(directory.resolve("cookingbook.db").toString(), 1);
+        dishDAO = new DishDAOImpl(databaseManager);
+        dishDAO.addDishes(List.of(
+                new Dish("Борщ", "1 ч", "Свёкла", "Сварить.", false),
+                new Dish("Омлет", "10 мин", "Яйца", "Обжарить.", true)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void backupReplacesPreviousCopy() throws IOException, SQLException {
+        Path target = directory.resolve("backup").resolve("cookingbook.db");
+        DatabaseBackup backup = new DatabaseBackup(databaseManager);
+        backup.backup(target);
+        dishDAO.addDish(new Dish("Чай", "5 мин", "Вода", "Заварить.", false));
+
+        BackupReport report = backup.backup(target);
+
+        assertEquals(3, report.dishes());
+        assertEquals(Files.size(target), report.bytes());
+        assertFalse(Files.exists(target.resolveSibling(target.getFileName() + ".part")));
+        DatabaseManager copy = new DatabaseManager(target.toString(), 1);
+        try {
+            List<String> names = new DishDAOImpl(copy).getAllDishes().stream().map(Dish::getName).sorted().toList();
+            assertEquals(List.of("Борщ", "Омлет", "Чай"), names);
+        } finally {
+            copy.closeConnection();
+        }
+    }
+
+    @Test
+    void damagedCopyFailsCheck() throws IOException, SQLException {
+        Path target = directory.resolve("cookingbook.backup.db");
+        new DatabaseBackup(databaseManager).backup(target);
+        byte[] bytes = Files.readAllBytes(target);
+        // Первая страница с заголовком остается целой, остальные страницы затираются.
+        Arrays.fill(bytes, 4096, bytes.length, (byte) 0x5A);
+        Files.write(target, bytes);
+
+        assertThrows(SQLException.class, () -> DatabaseBackup.verify(target));
+    }
+}
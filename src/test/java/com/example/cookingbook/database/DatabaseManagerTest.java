@@ -0,0 +1,90 @@
+package com.example.cookingbook.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что закрытие базы данных дожидается соединений для записи и для чтения,
+ * которые еще заняты запросами, а неудачное открытие сообщается сразу.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class DatabaseManagerTest {
+
+    private static final long HOLD_MILLIS = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void closeWaitsForConnectionsInUse() throws Exception {
+        DatabaseManager databaseManager = new DatabaseManager(directory.resolve("close.db").toString(), 2);
+        CountDownLatch acquired = new CountDownLatch(2);
+        CompletableFuture<Boolean> writerOpen = CompletableFuture.supplyAsync(() -> {
+            Connection connection = databaseManager.acquireWriteConnection();
+            acquired.countDown();
+            try {
+                return holdAndCheck(connection);
+            } finally {
+                databaseManager.releaseWriteConnection(connection);
+            }
+        });
+        CompletableFuture<Boolean> readerOpen = CompletableFuture.supplyAsync(() -> {
+            Connection connection = null;
+            try {
+                connection = databaseManager.acquireReadConnection();
+                acquired.countDown();
+                return holdAndCheck(connection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                databaseManager.releaseReadConnection(connection);
+            }
+        });
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+
+        databaseManager.closeConnection();
+
+        assertTrue(writerOpen.get(5, TimeUnit.SECONDS), "write connection was closed while in use");
+        assertTrue(readerOpen.get(5, TimeUnit.SECONDS), "read connection was closed while in use");
+        assertTrue(databaseManager.getConnection().isClosed());
+    }
+
+    /**
+     * Держит соединение занятым и проверяет, что за это время его не закрыли.
+     */
+    private static boolean holdAndCheck(Connection connection) {
+        try {
+            Thread.sleep(HOLD_MILLIS);
+            assertFalse(connection.isClosed());
+            connection.createStatement().close();
+            return true;
+        } catch (InterruptedException | SQLException e) {
+            return false;
+        }
+    }
+
+    @Test
+    void failedOpenThrows() throws Exception {
+        Path file = directory.resolve("broken.db");
+        Files.write(file, "not a database, just text that is long enough to be read as a header".repeat(100)
+                .getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(DataAccessException.class, () -> new DatabaseManager(file.toString(), 2));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет приведение текста в полнотекстовом индексе: "ё" совпадает с "е",
+ * регистр не учитывается, а "й" и "и" остаются разными буквами.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class FullTextSearchTest {
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager(directory.resolve("fts.db").toString(), 1);
+        DishDAOImpl dishDAO = new DishDAOImpl(databaseManager);
+        dishDAO.addDish(new Dish("Свёкла тушёная", "30 мин", "Свёкла, сметана", "Потушить.", false));
+        dishDAO.addDish(new Dish("Мои любимые блины", "20 мин", "Мука, молоко", "Пожарить.", false));
+        dishDAO.addDish(new Dish("Чай с мёдом", "5 мин", "Чай, мёд", "Заварить.", false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void yoMatchesYeInTextAndQuery() throws SQLException {
+        assertEquals(List.of("Свёкла тушёная"), match("свекла"));
+        assertEquals(List.of("Свёкла тушёная"), match("СВЁКЛА"));
+        assertEquals(List.of("Чай с мёдом"), match("медом"));
+    }
+
+    @Test
+    void shortIIsNotFoldedToI() throws SQLException {
+        assertEquals(List.of("Мои любимые блины"), match("мои"));
+        assertTrue(match("мой").isEmpty());
+        assertTrue(match("чаи").isEmpty());
+    }
+
+    private List<String> match(String searchText) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement statement = databaseManager.getConnection().prepareStatement(
+                "SELECT d.name FROM dishes_fts JOIN dishes d ON d.id = dishes_fts.rowid " +
+                        "WHERE dishes_fts MATCH ? ORDER BY d.id")) {
+            statement.setString(1, FullTextSearch.toMatchQuery(searchText));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    names.add(resultSet.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+}
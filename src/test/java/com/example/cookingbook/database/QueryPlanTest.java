@@ -0,0 +1,89 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет через EXPLAIN QUERY PLAN, что списки блюд по названию, по времени приготовления
+ * и избранных читаются из покрывающих индексов в нужном порядке, без обращения к таблице
+ * и без сортировки во временном B-дереве, а полнотекстовый индекс создан миграцией.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class QueryPlanTest {
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager(directory.resolve("plans.db").toString(), 1);
+        List<Dish> dishes = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            dishes.add(new Dish("Блюдо " + i, (5 + i % 90) + " мин", "Вода, соль", "Сварить.", i % 10 == 0));
+        }
+        new DishDAOImpl(databaseManager).addDishes(dishes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void namePagesUseNameIndex() throws SQLException {
+        assertCoveringIndexScan(DishDAOImpl.SUMMARIES_BY_NAME_QUERY, "idx_dishes_name");
+        assertCoveringIndexScan(DishDAOImpl.SUMMARIES_AFTER_NAME_QUERY, "idx_dishes_name");
+    }
+
+    @Test
+    void cookingTimePagesUseCookingMinutesIndex() throws SQLException {
+        assertCoveringIndexScan(DishDAOImpl.SUMMARIES_BY_COOKING_TIME_QUERY, "idx_dishes_cooking_minutes");
+    }
+
+    @Test
+    void favoritesUsePartialIndex() throws SQLException {
+        assertCoveringIndexScan(DishDAOImpl.FAVORITE_SUMMARIES_QUERY, "idx_dishes_favorite");
+    }
+
+    @Test
+    void fullTextIndexIsPartOfSchemaVersion() throws SQLException {
+        assertEquals(DatabaseSchema.VERSION, DatabaseSchema.userVersion(databaseManager.getConnection()));
+        assertTrue(databaseManager.isFullTextSearchAvailable());
+    }
+
+    private void assertCoveringIndexScan(String query, String index) throws SQLException {
+        String plan = String.join("\n", plan(query));
+        assertTrue(plan.contains("USING COVERING INDEX " + index), query + "\n" + plan);
+        assertFalse(plan.contains("TEMP B-TREE"), query + "\n" + plan);
+    }
+
+    private List<String> plan(String query) throws SQLException {
+        List<String> details = new ArrayList<>();
+        try (PreparedStatement statement = databaseManager.getConnection().prepareStatement("EXPLAIN QUERY PLAN " + query);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                details.add(resultSet.getString("detail"));
+            }
+        }
+        return details;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.metrics.Metrics;
+import com.example.cookingbook.metrics.Operation;
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.model.IngredientMatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что индексы поиска в памяти строятся, не блокируя запись блюд, получают
+ * изменения, сделанные во время построения, а ошибка загрузки сообщается один раз.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class SearchIndexTest {
+
+    private static final List<String> INGREDIENTS = List.of("лук", "морковь");
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private DishDAOImpl dishDAO;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager(directory.resolve("search.db").toString(), 1);
+        dishDAO = new DishDAOImpl(databaseManager);
+        dishDAO.addDish(new Dish("Суп", "30 мин", "Лук, морковь", "Сварить.", false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void writeDuringBuildIsNotBlockedAndReachesIndex() throws Exception {
+        // Построение ждет единственное соединение для чтения, которое держит тест.
+        Connection reader = databaseManager.acquireReadConnection();
+        Thread build;
+        try {
+            build = dishDAO.startSearchIndexBuild();
+            Dish added = new Dish("Рагу", "40 мин", "Лук, морковь", "Потушить.", false);
+
+            CompletableFuture.runAsync(() -> dishDAO.addDish(added)).get(5, TimeUnit.SECONDS);
+        } finally {
+            databaseManager.releaseReadConnection(reader);
+        }
+        build.join(5_000);
+
+        List<String> names = new ArrayList<>();
+        for (IngredientMatch match : dishDAO.findDishesByIngredients(INGREDIENTS, 0, 10)) {
+            names.add(match.dish().getName());
+        }
+        assertEquals(List.of("Рагу", "Суп"), names.stream().sorted().toList());
+        assertEquals(1, dishDAO.searchDishes("Рагк").size());
+    }
+
+    @Test
+    void failedBuildIsReportedOnce() throws SQLException {
+        try (Statement statement = databaseManager.getConnection().createStatement()) {
+            statement.execute("DROP TABLE dish_ingredients");
+        }
+        Operation sqlErrors = Metrics.operation("Database", "sqlException");
+        long errorsBefore = sqlErrors.statistics().errors();
+
+        assertTrue(dishDAO.findDishesByIngredients(INGREDIENTS, 0, 10).isEmpty());
+        assertTrue(dishDAO.findDishesByIngredients(INGREDIENTS, 0, 10).isEmpty());
+
+        assertEquals(1, sqlErrors.statistics().errors() - errorsBefore);
+    }
+}
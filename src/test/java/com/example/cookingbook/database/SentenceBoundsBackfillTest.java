@@ -0,0 +1,84 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import com.example.cookingbook.neuralNetwork.Segmentation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что разбиение на предложения и шаги сохраняется при записи блюда,
+ * а фоновое заполнение пересчитывает блюда без разбиения и с разбиением прежнего формата.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class SentenceBoundsBackfillTest {
+
+    private static final String PROCESS = "Нарежьте лук. Обжарьте. Добавьте морковь. Посолите. Варите 20 минут.";
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private DishDAOImpl dishDAO;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager(directory.resolve("backfill.db").toString(), 1);
+        dishDAO = new DishDAOImpl(databaseManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void writtenDishStoresSteps() {
+        Dish dish = new Dish("Суп", "30 мин", "Лук, морковь", PROCESS, false);
+        dishDAO.addDish(dish);
+
+        Dish stored = dishDAO.getDishById(dish.getId());
+
+        assertTrue(Segmentation.isCurrent(stored.getCookingProcess(), stored.getSentenceBounds()));
+        assertTrue(Segmentation.decode(stored.getCookingProcess(), stored.getSentenceBounds()).hasSteps());
+    }
+
+    @Test
+    void backfillRecomputesMissingAndLegacyBounds() throws SQLException {
+        Dish missing = new Dish("Суп", "30 мин", "Лук, морковь", PROCESS, false);
+        Dish legacy = new Dish("Рагу", "40 мин", "Лук, морковь", PROCESS, false);
+        dishDAO.addDish(missing);
+        dishDAO.addDish(legacy);
+        setBounds(missing.getId(), null);
+        setBounds(legacy.getId(), new byte[]{1, 0, 13});
+        assertFalse(Segmentation.isCurrent(PROCESS, dishDAO.getDishById(legacy.getId()).getSentenceBounds()));
+
+        new SentenceBoundsBackfill(databaseManager).run();
+
+        for (Dish dish : new Dish[]{missing, legacy}) {
+            Dish stored = dishDAO.getDishById(dish.getId());
+            assertTrue(Segmentation.isCurrent(stored.getCookingProcess(), stored.getSentenceBounds()),
+                    "dish " + dish.getName() + " was not backfilled");
+        }
+    }
+
+    private void setBounds(int dishId, byte[] bounds) throws SQLException {
+        try (PreparedStatement update = databaseManager.getConnection().prepareStatement(
+                "UPDATE dishes SET sentence_bounds = ? WHERE id = ?")) {
+            update.setBytes(1, bounds);
+            update.setInt(2, dishId);
+            update.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.DishSummary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что снимок первой страницы читается без изменений и что прочитанный файл
+ * можно сразу заменить новым снимком, а поврежденный файл игнорируется.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class StartupSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void snapshotCanBeRewrittenAfterRead() throws IOException {
+        StartupSnapshot snapshot = new StartupSnapshot(directory.resolve("cookingbook.snapshot"), 10);
+        snapshot.write(List.of(
+                new DishSummary(1, "Борщ", "1 ч", "Свёкла, капуста", true, 60),
+                new DishSummary(2, "Омлет", null, "Яйца", false, 0)));
+
+        List<DishSummary> read = snapshot.read();
+        snapshot.write(List.of(new DishSummary(3, "Каша", "20 мин", "Крупа", false, 20)));
+
+        assertEquals(2, read.size());
+        assertEquals("Борщ", read.get(0).getName());
+        assertEquals("Свёкла, капуста", read.get(0).getIngredientsPreview());
+        assertTrue(read.get(0).isFavorite());
+        assertEquals(60, read.get(0).getCookingMinutes());
+        assertNull(read.get(1).getCookingTime());
+        assertEquals("Каша", snapshot.read().get(0).getName());
+    }
+
+    @Test
+    void truncatedSnapshotIsIgnored() throws IOException {
+        Path file = directory.resolve("cookingbook.snapshot");
+        StartupSnapshot snapshot = new StartupSnapshot(file, 10);
+        snapshot.write(List.of(new DishSummary(1, "Борщ", "1 ч", "Свёкла", false, 60)));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertTrue(snapshot.read().isEmpty());
+    }
+}
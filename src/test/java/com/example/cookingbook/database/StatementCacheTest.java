@@ -0,0 +1,174 @@
+package com.example.cookingbook.database;
+
+import com.example.cookingbook.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteConnection;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что длительная работа DishDAOImpl не накапливает подготовленные запросы:
+ * после 100 000 вызовов чтения и записи размер кэшей запросов и количество запросов,
+ * открытых в SQLite, такие же, как после первого прохода по всем видам вызовов.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class StatementCacheTest {
+
+    private static final int CALLS = 100_000;
+    private static final int WARMUP_CALLS = 1_000;
+    private static final int DISH_COUNT = 100;
+    private static final int READ_POOL_SIZE = 2;
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private DishDAOImpl dishDAO;
+    private final List<Dish> dishes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager(directory.resolve("statements.db").toString(), READ_POOL_SIZE);
+        dishDAO = new DishDAOImpl(databaseManager);
+        for (int i = 0; i < DISH_COUNT; i++) {
+            dishes.add(new Dish("Блюдо " + i, (10 + i) + " мин", "Вода, соль, продукт " + i,
+                    "Смешать. Сварить " + i + " минут.", i % 3 == 0));
+        }
+        dishDAO.addDishes(dishes);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void mixedCallsDoNotGrowStatementCaches() throws Exception {
+        for (int call = 0; call < WARMUP_CALLS; call++) {
+            invoke(call);
+        }
+        int[] cachedAfterWarmup = cachedStatementCounts();
+        int[] openAfterWarmup = openStatementCounts();
+
+        for (int call = WARMUP_CALLS; call < CALLS; call++) {
+            invoke(call);
+        }
+
+        int[] cached = cachedStatementCounts();
+        int[] open = openStatementCounts();
+        for (int i = 0; i < cached.length; i++) {
+            assertTrue(cached[i] <= cachedAfterWarmup[i],
+                    "statement cache of connection " + i + " grew from " + cachedAfterWarmup[i] + " to " + cached[i]);
+            assertTrue(open[i] <= openAfterWarmup[i],
+                    "open statements of connection " + i + " grew from " + openAfterWarmup[i] + " to " + open[i]);
+            assertTrue(open[i] <= cached[i],
+                    "connection " + i + " has " + open[i] + " open statements for " + cached[i] + " cached");
+        }
+        assertEquals(DISH_COUNT, dishDAO.getAllDishes().size());
+    }
+
+    /**
+     * Выполняет один из видов вызовов DAO; каждые 20 вызовов проходят по всем видам.
+     */
+    private void invoke(int call) {
+        Dish dish = dishes.get(call % DISH_COUNT);
+        switch (call % 20) {
+            case 0 -> dishDAO.getDishById(dish.getId());
+            case 1 -> dishDAO.getSummariesAfterId(call % DISH_COUNT, 20);
+            case 2 -> dishDAO.getSummariesAfterName(null, 0, 20);
+            case 3 -> dishDAO.getSummariesAfterName(dish.getName(), dish.getId(), 20);
+            case 4 -> dishDAO.getSummariesByCookingTime(10, 60, 10, 0, 20);
+            case 5 -> dishDAO.getFavoriteSummaries();
+            case 6 -> dishDAO.getRecentSummaries();
+            case 7 -> dishDAO.searchSummaries("Блюдо " + call % DISH_COUNT);
+            case 8 -> dishDAO.searchDishes("сварить");
+            case 9 -> dishDAO.findDishesByIngredients(List.of("вода", "соль"), 1, 10);
+            case 10 -> dishDAO.getDishesAfterId(call % DISH_COUNT, 10);
+            case 11 -> dishDAO.getDishesAfterName(dish.getName(), dish.getId(), 10);
+            case 12 -> dishDAO.getDishesByCookingTime(10, 30);
+            case 13 -> dishDAO.getFavoriteDishes();
+            case 14 -> dishDAO.getRecentlyAddedDishes();
+            case 15 -> {
+                dish.setFavorite(!dish.isFavorite());
+                dishDAO.updateDish(dish);
+            }
+            case 16 -> {
+                Dish added = new Dish("Временное блюдо", "5 мин", "Вода", "Вскипятить.", false);
+                dishDAO.addDish(added);
+                dishDAO.deleteDish(added.getId());
+            }
+            case 17 -> dishDAO.deleteDish(-1);
+            case 18 -> dishDAO.getSummariesAfterName(null, 0, 5);
+            default -> dishDAO.getDishById(-1);
+        }
+    }
+
+    private int[] cachedStatementCounts() throws SQLException {
+        List<Connection> connections = connections();
+        try {
+            int[] counts = new int[connections.size()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = databaseManager.cachedStatementCount(connections.get(i));
+            }
+            return counts;
+        } finally {
+            release(connections);
+        }
+    }
+
+    /**
+     * Считает запросы, которые драйвер SQLite подготовил и еще не закрыл на каждом соединении.
+     */
+    private int[] openStatementCounts() throws Exception {
+        Field statements = Class.forName("org.sqlite.core.DB").getDeclaredField("stmts");
+        statements.setAccessible(true);
+        List<Connection> connections = connections();
+        try {
+            int[] counts = new int[connections.size()];
+            for (int i = 0; i < counts.length; i++) {
+                Object database = connections.get(i).unwrap(SQLiteConnection.class).getDatabase();
+                Map<?, ?> open = (Map<?, ?>) statements.get(database);
+                synchronized (database) {
+                    counts[i] = open.size();
+                }
+            }
+            return counts;
+        } finally {
+            release(connections);
+        }
+    }
+
+    /**
+     * Захватывает соединение для записи и все соединения для чтения, чтобы их кэши не менялись во время подсчета.
+     */
+    private List<Connection> connections() throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        connections.add(databaseManager.acquireWriteConnection());
+        for (int i = 0; i < READ_POOL_SIZE; i++) {
+            connections.add(databaseManager.acquireReadConnection());
+        }
+        return connections;
+    }
+
+    private void release(List<Connection> connections) {
+        databaseManager.releaseWriteConnection(connections.get(0));
+        for (int i = 1; i < connections.size(); i++) {
+            databaseManager.releaseReadConnection(connections.get(i));
+        }
+    }
+}
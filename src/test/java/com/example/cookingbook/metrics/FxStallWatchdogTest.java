@@ -0,0 +1,87 @@
+package com.example.cookingbook.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что сторож сообщает о зависании наблюдаемого потока один раз, со стеком,
+ * снятым во время зависания, даже если поток завис до первого отклика сторожу.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class FxStallWatchdogTest {
+
+    private static final long INTERVAL_MILLIS = 10;
+    private static final long THRESHOLD_MILLIS = 100;
+
+    private final AtomicReference<Thread> uiThread = new AtomicReference<>();
+    private final ExecutorService ui = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "test-ui");
+        uiThread.set(thread);
+        return thread;
+    });
+    private FxStallWatchdog watchdog;
+
+    @AfterEach
+    void tearDown() {
+        if (watchdog != null) {
+            watchdog.stop();
+        }
+        ui.shutdownNow();
+    }
+
+    @Test
+    void stallIsReportedOnceWithBlockedStack() throws Exception {
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ui.execute(() -> stallUiThread(stalled, release));
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+        List<FxStallWatchdog.Stall> reports = new CopyOnWriteArrayList<>();
+        CountDownLatch resumed = new CountDownLatch(1);
+        watchdog = new FxStallWatchdog(ui, uiThread.get(), INTERVAL_MILLIS, THRESHOLD_MILLIS, stall -> {
+            reports.add(stall);
+            if (stall.finished()) {
+                resumed.countDown();
+            }
+        });
+
+        watchdog.start();
+        Thread.sleep(4 * THRESHOLD_MILLIS);
+        release.countDown();
+        assertTrue(resumed.await(5, TimeUnit.SECONDS), "stall end was not reported");
+        watchdog.stop();
+
+        List<FxStallWatchdog.Stall> detected = reports.stream().filter(stall -> !stall.finished()).toList();
+        assertEquals(1, detected.size(), "stall reported " + detected.size() + " times");
+        assertTrue(Arrays.stream(detected.get(0).stackTrace())
+                        .anyMatch(element -> element.getMethodName().equals("stallUiThread")),
+                "stack does not show the blocked task: " + Arrays.toString(detected.get(0).stackTrace()));
+        assertEquals(2, reports.size(), reports.toString());
+        assertTrue(reports.get(1).durationNanos() >= TimeUnit.MILLISECONDS.toNanos(3 * THRESHOLD_MILLIS));
+        assertFalse(reports.get(0).finished());
+    }
+
+    private static void stallUiThread(CountDownLatch stalled, CountDownLatch release) {
+        stalled.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
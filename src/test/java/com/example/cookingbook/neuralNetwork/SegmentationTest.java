@@ -0,0 +1,81 @@
+package com.example.cookingbook.neuralNetwork;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет сохранение разбиения процесса приготовления: границы шагов восстанавливаются
+ * без модели, а границы, вычисленные для другого текста или в прежнем формате, не используются.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class SegmentationTest {
+
+    private static final String TEXT = "Нарежьте лук. Обжарьте его 5 мин. на сковороде. Добавьте морковь. "
+            + "Посолите. Залейте водой и доведите до кипения. Варите 20 минут. Подавайте горячим.";
+
+    @Test
+    void decodedSegmentationKeepsSentencesAndSteps() {
+        Segmentation divided = TextDivider.divide(TEXT);
+        byte[] encoded = divided.encode();
+
+        Segmentation decoded = Segmentation.decode(TEXT, encoded);
+
+        assertTrue(Segmentation.isCurrent(TEXT, encoded));
+        assertTrue(decoded.hasSteps());
+        assertEquals(divided.sentenceCount(), decoded.sentenceCount());
+        for (int i = 0; i < divided.sentenceCount(); i++) {
+            assertEquals(divided.sentenceStart(i), decoded.sentenceStart(i));
+            assertEquals(divided.sentenceEnd(i), decoded.sentenceEnd(i));
+        }
+        assertEquals(divided.stepCount(), decoded.stepCount());
+        for (int i = 0; i < divided.stepCount(); i++) {
+            assertEquals(divided.stepFirstSentence(i), decoded.stepFirstSentence(i));
+        }
+        assertArrayEquals(encoded, decoded.encode());
+        assertEquals(TextDivider.formatSteps(TEXT), TextDivider.formatSteps(decoded));
+    }
+
+    @Test
+    void boundsOfAnotherTextOfTheSameLengthAreRecomputed() {
+        String edited = TEXT.replace("Посолите.", "Поперчите");
+        assertEquals(TEXT.length(), edited.length());
+        byte[] encoded = TextDivider.divide(TEXT).encode();
+
+        assertFalse(Segmentation.isCurrent(edited, encoded));
+        Segmentation decoded = Segmentation.decode(edited, encoded);
+        assertFalse(decoded.hasSteps());
+        assertEquals(SentenceSegmenter.segment(edited).sentenceCount(), decoded.sentenceCount());
+    }
+
+    @Test
+    void previousFormatIsRecomputed() {
+        ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        legacy.write(1);
+        legacy.write(0);
+        legacy.write(13);
+
+        assertFalse(Segmentation.isCurrent(TEXT, legacy.toByteArray()));
+        assertEquals(SentenceSegmenter.segment(TEXT).sentenceCount(),
+                Segmentation.decode(TEXT, legacy.toByteArray()).sentenceCount());
+    }
+
+    @Test
+    void corruptedBoundsAreRecomputed() {
+        byte[] encoded = TextDivider.divide(TEXT).encode();
+        encoded[encoded.length - 1] = (byte) 0x7F;
+
+        Segmentation decoded = Segmentation.decode(TEXT, encoded);
+
+        assertFalse(decoded.hasSteps());
+        assertEquals(SentenceSegmenter.segment(TEXT).sentenceCount(), decoded.sentenceCount());
+    }
+}
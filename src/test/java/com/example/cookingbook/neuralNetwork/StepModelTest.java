@@ -0,0 +1,141 @@
+package com.example.cookingbook.neuralNetwork;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет точность поставляемой {@link StepModel} на размеченных рецептах, которые
+ * не участвовали в обучении. Граница шага считается найденной верно, если модель начинает
+ * шаг с того же предложения, что и разметка; качество оценивается мерой F1 по всем границам.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class StepModelTest {
+
+    private static final String FIXTURE = "step-model-test.txt";
+
+    /**
+     * Нижняя граница F1 на отложенных рецептах; при обучении модель показала 0.75.
+     */
+    private static final double MIN_F1 = 0.7;
+
+    private static final List<Segmentation> texts = new ArrayList<>();
+    private static final List<boolean[]> labels = new ArrayList<>();
+
+    @BeforeAll
+    static void loadFixture() throws IOException {
+        try (InputStream in = StepModelTest.class.getResourceAsStream(FIXTURE)) {
+            assertNotNull(in, FIXTURE + " not found");
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    // Как и в обучающем наборе, в каждом третьем рецепте шаги разделены переводом строки.
+                    addRecipe(line, texts.size() % 3 == 2 ? "\n" : " ");
+                }
+            }
+        }
+        assertEquals(10, texts.size());
+    }
+
+    @Test
+    void bundledModelFindsStepBreaks() {
+        StepModel model = StepModel.bundled();
+        assertNotNull(model, "bundled step model is not available");
+
+        double modelF1 = f1(model::assignSteps);
+        double fixedF1 = f1(segmentation -> segmentation);
+
+        assertTrue(modelF1 >= MIN_F1, "step model F1 " + modelF1 + " is below " + MIN_F1);
+        assertTrue(modelF1 > fixedF1, "step model F1 " + modelF1 + " is not better than fixed steps " + fixedF1);
+    }
+
+    @Test
+    void batchSegmentationMatchesSingleTexts() {
+        StepModel model = StepModel.bundled();
+        List<CharSequence> sources = new ArrayList<>();
+        for (Segmentation text : texts) {
+            sources.add(text.getText());
+        }
+
+        List<Segmentation> batch = model.segmentAll(sources);
+
+        for (int i = 0; i < sources.size(); i++) {
+            Segmentation single = model.assignSteps(SentenceSegmenter.segment(sources.get(i)));
+            assertEquals(single.stepCount(), batch.get(i).stepCount());
+            for (int step = 0; step < single.stepCount(); step++) {
+                assertEquals(single.stepFirstSentence(step), batch.get(i).stepFirstSentence(step));
+            }
+        }
+    }
+
+    private static double f1(UnaryOperator<Segmentation> divide) {
+        int truePositives = 0;
+        int falsePositives = 0;
+        int falseNegatives = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            boolean[] expected = labels.get(i);
+            boolean[] predicted = stepStarts(divide.apply(SentenceSegmenter.segment(texts.get(i).getText())));
+            for (int sentence = 1; sentence < expected.length; sentence++) {
+                if (predicted[sentence] && expected[sentence]) {
+                    truePositives++;
+                } else if (predicted[sentence]) {
+                    falsePositives++;
+                } else if (expected[sentence]) {
+                    falseNegatives++;
+                }
+            }
+        }
+        return truePositives == 0 ? 0 : 2.0 * truePositives / (2 * truePositives + falsePositives + falseNegatives);
+    }
+
+    private static boolean[] stepStarts(Segmentation segmentation) {
+        boolean[] starts = new boolean[segmentation.sentenceCount()];
+        for (int step = 0; step < segmentation.stepCount(); step++) {
+            starts[segmentation.stepFirstSentence(step)] = true;
+        }
+        return starts;
+    }
+
+    /**
+     * Собирает текст рецепта из шагов и размечает предложения, с которых начинаются шаги.
+     */
+    private static void addRecipe(String line, String separator) {
+        StringBuilder text = new StringBuilder();
+        List<Boolean> starts = new ArrayList<>();
+        for (String step : line.split("\\|")) {
+            String trimmed = step.trim();
+            if (text.length() > 0) {
+                text.append(separator);
+            }
+            text.append(trimmed);
+            int sentences = SentenceSegmenter.segment(trimmed).sentenceCount();
+            for (int i = 0; i < sentences; i++) {
+                starts.add(i == 0);
+            }
+        }
+        Segmentation segmentation = SentenceSegmenter.segment(text.toString());
+        assertEquals(starts.size(), segmentation.sentenceCount(), "ambiguous sentence bounds: " + line);
+        boolean[] stepStarts = new boolean[starts.size()];
+        for (int i = 0; i < stepStarts.length; i++) {
+            stepStarts[i] = starts.get(i);
+        }
+        texts.add(segmentation);
+        labels.add(stepStarts);
+    }
+}
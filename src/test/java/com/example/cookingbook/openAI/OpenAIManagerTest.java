@@ -0,0 +1,108 @@
+package com.example.cookingbook.openAI;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что потоковый запрос, сервер которого прислал заголовки и часть событий,
+ * а затем замолчал, завершается по общему сроку запроса и закрывает соединение.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class OpenAIManagerTest {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMillis(500);
+
+    private ServerSocket server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void stalledStreamIsClosedAtDeadline() throws Exception {
+        CompletableFuture<Boolean> closedByClient = CompletableFuture.supplyAsync(this::serveStalledStream);
+        OpenAISettings settings = new OpenAISettings(
+                URI.create("http://127.0.0.1:" + server.getLocalPort() + "/v1/completions"), null, "test", 10,
+                Duration.ofSeconds(1), REQUEST_TIMEOUT, 0, Duration.ofMillis(10));
+        List<String> tokens = new CopyOnWriteArrayList<>();
+
+        long start = System.nanoTime();
+        CompletableFuture<String> response = new OpenAIManager(settings).stream("Борщ", tokens::add);
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertEquals(List.of("Свёкла"), tokens);
+        assertTrue(elapsedMillis < 3 * REQUEST_TIMEOUT.toMillis(), "stream failed after " + elapsedMillis + " ms");
+        assertTrue(closedByClient.get(5, TimeUnit.SECONDS), "client kept the stalled connection open");
+    }
+
+    /**
+     * Отвечает на один запрос заголовками и одним событием, затем ничего не отправляет.
+     *
+     * @return {@code true}, если клиент закрыл соединение.
+     */
+    private boolean serveStalledStream() {
+        try (Socket socket = server.accept()) {
+            socket.setSoTimeout(5_000);
+            InputStream in = socket.getInputStream();
+            readHeaders(in);
+            OutputStream out = socket.getOutputStream();
+            byte[] event = "data: {\"choices\": [{\"text\": \"Свёкла\"}]}\n\n".getBytes(StandardCharsets.UTF_8);
+            out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/event-stream\r\nTransfer-Encoding: chunked\r\n\r\n"
+                    + Integer.toHexString(event.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(event);
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) >= 0) {
+                // Остаток тела запроса; ждем, пока клиент закроет соединение.
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void readHeaders(InputStream in) throws IOException {
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Request ended before headers");
+            }
+            matched = b == "\r\n\r\n".charAt(matched) ? matched + 1 : b == '\r' ? 1 : 0;
+        }
+    }
+}
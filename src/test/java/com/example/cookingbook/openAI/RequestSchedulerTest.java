@@ -0,0 +1,128 @@
+package com.example.cookingbook.openAI;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что планировщик отменяет объединенный запрос только после отказа всех ожидающих,
+ * не отправляет запросы, отмененные в очереди, и останавливает свой поток при закрытии.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class RequestSchedulerTest {
+
+    /**
+     * Отправленный пакет: тексты и ответ, который завершает тест.
+     */
+    private record Sent(List<String> prompts, CompletableFuture<List<String>> response) {
+    }
+
+    private final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+    private RequestScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void requestIsCancelledWhenLastWaiterLeaves() throws Exception {
+        scheduler = newScheduler(new RequestScheduler.Limits(4, 6_000, 5, 8));
+        CompletableFuture<String> first = scheduler.submit("Борщ", RequestScheduler.Priority.INTERACTIVE);
+        CompletableFuture<String> second = scheduler.submit("Борщ", RequestScheduler.Priority.INTERACTIVE);
+        Sent request = nextSent();
+        assertEquals(List.of("Борщ"), request.prompts());
+
+        first.cancel(true);
+        assertFalse(request.response().isCancelled(), "request cancelled while another caller waits");
+        second.cancel(true);
+
+        assertTrue(request.response().isCancelled(), "request kept running without waiters");
+        CompletableFuture<String> third = scheduler.submit("Борщ", RequestScheduler.Priority.INTERACTIVE);
+        Sent repeated = nextSent();
+        repeated.response().complete(List.of("Свёкла"));
+        assertEquals("Свёкла", third.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledQueuedRequestIsNotSent() throws Exception {
+        // Один запрос подряд и один токен в секунду: второй запрос ждет токен в очереди.
+        scheduler = newScheduler(new RequestScheduler.Limits(4, 60, 1, 1));
+        scheduler.submit("Борщ", RequestScheduler.Priority.INTERACTIVE);
+        assertEquals(List.of("Борщ"), nextSent().prompts());
+        CompletableFuture<String> abandoned = scheduler.submit("Щи", RequestScheduler.Priority.INTERACTIVE);
+        CompletableFuture<Object> abandonedRun = scheduler.run(RequestScheduler.Priority.INTERACTIVE,
+                () -> CompletableFuture.failedFuture(new AssertionError("cancelled request was sent")));
+
+        abandoned.cancel(true);
+        abandonedRun.cancel(true);
+        CompletableFuture<String> next = scheduler.submit("Уха", RequestScheduler.Priority.INTERACTIVE);
+
+        Sent request = nextSent();
+        assertEquals(List.of("Уха"), request.prompts());
+        request.response().complete(List.of("Рыба"));
+        assertEquals("Рыба", next.get(5, TimeUnit.SECONDS));
+        assertNull(sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void closeStopsDispatcherAndCancelsQueuedRequests() throws Exception {
+        scheduler = newScheduler(new RequestScheduler.Limits(4, 60, 1, 1));
+        scheduler.submit("Борщ", RequestScheduler.Priority.INTERACTIVE);
+        nextSent();
+        CompletableFuture<String> queued = scheduler.submit("Щи", RequestScheduler.Priority.BULK);
+        CompletableFuture<Object> queuedRun = scheduler.run(RequestScheduler.Priority.BULK,
+                () -> CompletableFuture.completedFuture(null));
+
+        scheduler.close();
+
+        assertFalse(dispatcher().isAlive(), "dispatcher thread is still running");
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, failure.getCause());
+        assertTrue(queuedRun.isCompletedExceptionally());
+        failure = assertThrows(ExecutionException.class,
+                () -> scheduler.submit("Уха", RequestScheduler.Priority.INTERACTIVE).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+    }
+
+    private RequestScheduler newScheduler(RequestScheduler.Limits limits) {
+        return new RequestScheduler(prompts -> {
+            CompletableFuture<List<String>> response = new CompletableFuture<>();
+            sent.add(new Sent(prompts, response));
+            return response;
+        }, limits);
+    }
+
+    private Sent nextSent() throws InterruptedException {
+        Sent request = sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(request, "request was not sent");
+        return request;
+    }
+
+    private Thread dispatcher() throws ReflectiveOperationException {
+        Field field = RequestScheduler.class.getDeclaredField("dispatcher");
+        field.setAccessible(true);
+        return (Thread) field.get(scheduler);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.cookingbook.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверяет разбор времени приготовления: единицы, диапазоны, запись "1:30", слова
+ * "полтора" и "полчаса", а также то, что слова, лишь начинающиеся как единица измерения,
+ * временем не считаются.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class CookingTimeParserTest {
+
+    @Test
+    void unitsAndNumbersWithoutUnit() {
+        assertEquals(40, CookingTimeParser.parseMinutes("40 минут"));
+        assertEquals(75, CookingTimeParser.parseMinutes("1 ч 15 мин"));
+        assertEquals(75, CookingTimeParser.parseMinutes("1 ч 15"));
+        assertEquals(90, CookingTimeParser.parseMinutes("1,5 часа"));
+        assertEquals(150, CookingTimeParser.parseMinutes("2h 30m"));
+        assertEquals(1440, CookingTimeParser.parseMinutes("1 сутки"));
+        assertEquals(60, CookingTimeParser.parseMinutes("час"));
+        assertEquals(25, CookingTimeParser.parseMinutes("25"));
+        assertEquals(1, CookingTimeParser.parseMinutes("30 секунд"));
+    }
+
+    @Test
+    void ranges() {
+        assertEquals(40, CookingTimeParser.parseMinutes("30-40 мин"));
+        assertEquals(25, CookingTimeParser.parseMinutes("от 20 до 25 минут"));
+        assertEquals(120, CookingTimeParser.parseMinutes("1-2 часа"));
+    }
+
+    @Test
+    void clockNotationAndWords() {
+        assertEquals(90, CookingTimeParser.parseMinutes("1:30"));
+        assertEquals(90, CookingTimeParser.parseMinutes("полтора часа"));
+        assertEquals(30, CookingTimeParser.parseMinutes("полчаса"));
+        assertEquals(90, CookingTimeParser.parseMinutes("1 час и полчаса"));
+    }
+
+    @Test
+    void wordsStartingLikeUnitsAreNotUnits() {
+        assertEquals(30, CookingTimeParser.parseMinutes("30 минут, часто помешивая"));
+        assertEquals(20, CookingTimeParser.parseMinutes("20 минут, выложив на дно формы"));
+        assertEquals(15, CookingTimeParser.parseMinutes("15 минут, днище смазать маслом"));
+        assertEquals(CookingTimeParser.UNKNOWN, CookingTimeParser.parseMinutes("Часто помешивать"));
+        assertEquals(CookingTimeParser.UNKNOWN, CookingTimeParser.parseMinutes("по вкусу"));
+        assertEquals(CookingTimeParser.UNKNOWN, CookingTimeParser.parseMinutes(null));
+    }
+}
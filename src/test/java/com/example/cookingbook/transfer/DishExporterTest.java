@@ -0,0 +1,110 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.database.DataAccessException;
+import com.example.cookingbook.database.DatabaseManager;
+import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет, что экспортированные блюда импортируются без изменений и проходят сверку
+ * контрольной суммы, измененный файл сверку не проходит, а прерванный экспорт
+ * не заменяет предыдущий файл.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class DishExporterTest {
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager source;
+    private DatabaseManager target;
+    private DishDAOImpl sourceDAO;
+    private DishDAOImpl targetDAO;
+
+    @BeforeEach
+    void setUp() {
+        source = new DatabaseManager(directory.resolve("source.db").toString(), 1);
+        target = new DatabaseManager(directory.resolve("target.db").toString(), 1);
+        sourceDAO = new DishDAOImpl(source);
+        targetDAO = new DishDAOImpl(target);
+        sourceDAO.addDishes(List.of(
+                new Dish("Борщ", "1 ч 30 мин", "Свёкла, капуста", "Сварить бульон. Добавить \"овощи\".", true),
+                new Dish("Омлет", null, "Яйца, молоко", "Взбить.\nОбжарить.", false),
+                new Dish("Чай", "5 мин", "Вода, чай", "Заварить.", false)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.closeConnection();
+        target.closeConnection();
+    }
+
+    @Test
+    void exportedDishesImportUnchanged() throws IOException {
+        Path file = directory.resolve("dishes.jsonl.gz");
+
+        ExportReport exported = new DishExporter(sourceDAO).exportFile(file);
+        ImportReport imported = new DishImporter(targetDAO, 2).importFile(file);
+
+        assertEquals(3, exported.exported());
+        assertEquals(3, imported.imported());
+        assertTrue(imported.verified());
+        List<Dish> expected = sourceDAO.getAllDishes();
+        List<Dish> actual = targetDAO.getAllDishes();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(DishDigest.sameContent(expected.get(i), actual.get(i)), actual.get(i).getName());
+        }
+    }
+
+    @Test
+    void changedExportFailsDigestCheck() throws IOException {
+        Path file = directory.resolve("dishes.jsonl");
+        new DishExporter(sourceDAO).exportFile(file);
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        Files.writeString(file, content.replace("Заварить.", "Залить."), StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> new DishImporter(targetDAO, 2).importFile(file));
+    }
+
+    @Test
+    void failedExportKeepsPreviousFile() throws IOException, SQLException {
+        Path file = directory.resolve("dishes.jsonl");
+        DishExporter exporter = new DishExporter(sourceDAO);
+        exporter.exportFile(file);
+        byte[] previous = Files.readAllBytes(file);
+        byte[] previousDigest = Files.readAllBytes(DishDigest.fileFor(file));
+        try (Statement statement = source.getConnection().createStatement()) {
+            statement.execute("DROP TABLE dishes");
+        }
+
+        IOException failure = assertThrows(IOException.class, () -> exporter.exportFile(file));
+
+        assertInstanceOf(DataAccessException.class, failure.getCause());
+        assertArrayEquals(previous, Files.readAllBytes(file));
+        assertArrayEquals(previousDigest, Files.readAllBytes(DishDigest.fileFor(file)));
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+    }
+}
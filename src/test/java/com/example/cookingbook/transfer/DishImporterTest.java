@@ -0,0 +1,99 @@
+package com.example.cookingbook.transfer;
+
+import com.example.cookingbook.database.DataAccessException;
+import com.example.cookingbook.database.DatabaseManager;
+import com.example.cookingbook.database.DishDAOImpl;
+import com.example.cookingbook.model.Dish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверяет, что прерванный импорт продолжается с первого незаписанного блюда
+ * и не добавляет блюда, записанные до сбоя, второй раз.
+ *
+ * @autor Комов Степан
+ * @version 1.0
+ * @since 2024-05-20
+ */
+class DishImporterTest {
+
+    private static final int DISH_COUNT = 5;
+
+    @TempDir
+    Path directory;
+
+    private DatabaseManager databaseManager;
+    private DishDAOImpl dishDAO;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        databaseManager = new DatabaseManager(directory.resolve("import.db").toString(), 1);
+        dishDAO = new DishDAOImpl(databaseManager);
+        file = directory.resolve("dishes.jsonl");
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= DISH_COUNT; i++) {
+            lines.add("{\"name\":\"Блюдо " + i + "\",\"cookingTime\":\"10 мин\",\"ingredients\":\"Вода\","
+                    + "\"cookingProcess\":\"Вскипятить.\",\"favorite\":false}");
+        }
+        Files.write(file, lines);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.closeConnection();
+    }
+
+    @Test
+    void resumedImportAddsEachDishOnce() throws IOException, SQLException {
+        DishImporter importer = new DishImporter(dishDAO, 2);
+        execute("CREATE TRIGGER reject_dish BEFORE INSERT ON dishes WHEN NEW.name = 'Блюдо 4' "
+                + "BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+
+        IOException failure = assertThrows(IOException.class, () -> importer.importFile(file));
+        assertInstanceOf(DataAccessException.class, failure.getCause());
+        assertEquals(2, dishDAO.getAllDishes().size());
+        assertEquals(2, dishDAO.getImportProgress(file.toAbsolutePath().normalize().toString()));
+
+        execute("DROP TRIGGER reject_dish");
+        ImportReport report = importer.importFile(file);
+
+        assertEquals(2, report.skipped());
+        assertEquals(3, report.imported());
+        List<String> names = new ArrayList<>();
+        for (Dish dish : dishDAO.getAllDishes()) {
+            names.add(dish.getName());
+        }
+        assertEquals(List.of("Блюдо 1", "Блюдо 2", "Блюдо 3", "Блюдо 4", "Блюдо 5"), names);
+        assertEquals(0, dishDAO.getImportProgress(file.toAbsolutePath().normalize().toString()));
+    }
+
+    @Test
+    void failedBatchInsertIsReported() throws SQLException {
+        execute("CREATE TRIGGER reject_dish BEFORE INSERT ON dishes BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+        Dish dish = new Dish("Суп", "30 мин", "Вода", "Сварить.", false);
+
+        assertThrows(DataAccessException.class, () -> dishDAO.addDishes(List.of(dish)));
+        assertEquals(0, dish.getId());
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Statement statement = databaseManager.getConnection().createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}